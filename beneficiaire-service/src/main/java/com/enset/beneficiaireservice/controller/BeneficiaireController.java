@@ -2,16 +2,42 @@ package com.enset.beneficiaireservice.controller;
 
 
 
+import com.enset.beneficiaireservice.dtos.BeneficiaireChanges;
+import com.enset.beneficiaireservice.dtos.BeneficiaireImportReport;
+import com.enset.beneficiaireservice.dtos.BeneficiaireSearchPage;
 import com.enset.beneficiaireservice.entities.Beneficiaire;
+import com.enset.beneficiaireservice.events.BeneficiaireChangedEvent;
+import com.enset.beneficiaireservice.events.BeneficiaireChangedEvent.TypeChangement;
 import com.enset.beneficiaireservice.repo.BeneficiaireRepository;
+import com.enset.beneficiaireservice.service.BeneficiaireChangeLog;
+import com.enset.beneficiaireservice.service.BeneficiaireImportService;
+import com.enset.beneficiaireservice.service.BeneficiaireIndex;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/beneficiaires")
@@ -19,27 +45,119 @@ import java.util.Optional;
 @Tag(name = "Gestion des Bénéficiaires", description = "API pour la gestion des bénéficiaires de virements")
 public class BeneficiaireController {
 
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
     @Autowired
     private BeneficiaireRepository beneficiaireRepository;
 
+    @Autowired
+    private BeneficiaireChangeLog beneficiaireChangeLog;
+
+    @Autowired
+    private BeneficiaireIndex beneficiaireIndex;
+
+    @Autowired
+    private BeneficiaireImportService beneficiaireImportService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${beneficiaire.search.max-size:100}")
+    private int searchMaxSize;
+
+    @Value("${beneficiaire.cache.shared-max-age:10}")
+    private long sharedMaxAge;
+
     @GetMapping
-    @Operation(summary = "Lister tous les bénéficiaires")
-    public List<Beneficiaire> getAllBeneficiaires() {
+    @Operation(summary = "Lister tous les bénéficiaires",
+            description = "ETag dérivé du journal des changements : If-None-Match évite de relire la table")
+    public List<Beneficiaire> getAllBeneficiaires(WebRequest request, HttpServletResponse response) {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl().getHeaderValue());
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        // Séquence lue avant la table : au pire le client reçoit un contenu plus récent que son ETag
+        String etag = beneficiaireChangeLog.getEpoch() + "-" + beneficiaireChangeLog.currentSequence()
+                + "-" + representation(request.getHeader(HttpHeaders.ACCEPT));
+        if (request.checkNotModified(etag)) {
+            // 304 déjà positionné, aucun corps à produire
+            return null;
+        }
         return beneficiaireRepository.findAll();
     }
 
+    @GetMapping(params = "ids")
+    @Operation(summary = "Trouver plusieurs bénéficiaires par ID en un seul appel",
+            description = "Les IDs inconnus sont ignorés")
+    public List<Beneficiaire> getBeneficiairesByIds(@RequestParam List<Long> ids) {
+        Set<Long> distinctIds = new HashSet<>(ids);
+        distinctIds.remove(null);
+        return beneficiaireRepository.findAllById(distinctIds);
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Trouver un bénéficiaire par ID")
-    public ResponseEntity<Beneficiaire> getBeneficiaireById(@PathVariable Long id) {
+    public ResponseEntity<Beneficiaire> getBeneficiaireById(@PathVariable Long id,
+                                                            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         Optional<Beneficiaire> beneficiaire = beneficiaireRepository.findById(id);
-        return beneficiaire.map(ResponseEntity::ok)
+        // Si If-None-Match correspond, Spring répond 304 sans sérialiser le corps
+        return beneficiaire.map(b -> conditionnelle(b, accept))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Rechercher des bénéficiaires par début de nom, prénom ou RIB",
+            description = "Chaque mot de la requête doit commencer un mot du nom, du prénom ou du RIB ; résultats paginés")
+    public ResponseEntity<BeneficiaireSearchPage> searchBeneficiaires(@RequestParam String q,
+                                                                      @RequestParam(defaultValue = "0") int page,
+                                                                      @RequestParam(defaultValue = "20") int size) {
+        if (q.isBlank() || page < 0 || size < 1 || size > searchMaxSize) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(beneficiaireIndex.search(q, page, size));
+    }
+
+    @GetMapping("/rib/{rib}")
+    @Operation(summary = "Trouver un bénéficiaire par RIB")
+    public ResponseEntity<Beneficiaire> getBeneficiaireByRib(@PathVariable String rib,
+                                                             @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return beneficiaireIndex.findByRib(rib)
+                .map(b -> conditionnelle(b, accept))
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping("/changes")
+    @Operation(summary = "Lister les changements de bénéficiaires depuis une séquence donnée",
+            description = "Utilisé par les autres services pour invalider leurs caches de bénéficiaires")
+    public BeneficiaireChanges getChanges(@RequestParam(defaultValue = "0") long after) {
+        return beneficiaireChangeLog.changesSince(after);
+    }
+
     @PostMapping
     @Operation(summary = "Créer un nouveau bénéficiaire")
     public Beneficiaire createBeneficiaire(@RequestBody Beneficiaire beneficiaire) {
-        return beneficiaireRepository.save(beneficiaire);
+        Beneficiaire saved = beneficiaireRepository.save(beneficiaire);
+        // Une création peut rendre obsolète un résultat négatif mis en cache (RIB inconnu)
+        eventPublisher.publishEvent(BeneficiaireChangedEvent.of(saved.getId(), TypeChangement.CREATION, saved.getRib()));
+        return saved;
+    }
+
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE})
+    @Operation(summary = "Importer des bénéficiaires depuis un fichier CSV",
+            description = "Colonnes nom, prenom, rib, type ; crée ou met à jour selon le RIB et retourne les lignes rejetées")
+    public ResponseEntity<BeneficiaireImportReport> importerCsv(InputStream body) throws IOException {
+        try {
+            return ResponseEntity.ok(beneficiaireImportService.importer(
+                    new InputStreamReader(body, StandardCharsets.UTF_8)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "Importer des bénéficiaires depuis un fichier CSV envoyé en multipart")
+    public ResponseEntity<BeneficiaireImportReport> importerFichier(@RequestPart("file") MultipartFile file) throws IOException {
+        try (InputStream body = file.getInputStream()) {
+            return importerCsv(body);
+        }
     }
 
     @PutMapping("/{id}")
@@ -49,11 +167,15 @@ public class BeneficiaireController {
         Optional<Beneficiaire> optionalBeneficiaire = beneficiaireRepository.findById(id);
         if (optionalBeneficiaire.isPresent()) {
             Beneficiaire beneficiaire = optionalBeneficiaire.get();
+            String ancienRib = beneficiaire.getRib();
             beneficiaire.setNom(beneficiaireDetails.getNom());
             beneficiaire.setPrenom(beneficiaireDetails.getPrenom());
             beneficiaire.setRib(beneficiaireDetails.getRib());
             beneficiaire.setType(beneficiaireDetails.getType());
-            return ResponseEntity.ok(beneficiaireRepository.save(beneficiaire));
+            Beneficiaire saved = beneficiaireRepository.save(beneficiaire);
+            eventPublisher.publishEvent(
+                    BeneficiaireChangedEvent.of(id, TypeChangement.MODIFICATION, ancienRib, saved.getRib()));
+            return ResponseEntity.ok(saved);
         }
         return ResponseEntity.notFound().build();
     }
@@ -61,16 +183,69 @@ public class BeneficiaireController {
     @DeleteMapping("/{id}")
     @Operation(summary = "Supprimer un bénéficiaire")
     public ResponseEntity<?> deleteBeneficiaire(@PathVariable Long id) {
-        if (beneficiaireRepository.existsById(id)) {
+        Optional<Beneficiaire> beneficiaire = beneficiaireRepository.findById(id);
+        if (beneficiaire.isPresent()) {
             beneficiaireRepository.deleteById(id);
+            eventPublisher.publishEvent(
+                    BeneficiaireChangedEvent.of(id, TypeChangement.SUPPRESSION, beneficiaire.get().getRib()));
             return ResponseEntity.ok().build();
         }
         return ResponseEntity.notFound().build();
     }
     @GetMapping("/{id}/exists")
     public ResponseEntity<Boolean> checkBeneficiaireExists(@PathVariable Long id) {
-        boolean exists = beneficiaireRepository.existsById(id);
+        boolean exists = beneficiaireIndex.existsById(id);
         return ResponseEntity.ok(exists);
     }
 
-}
\ No newline at end of file
+    @PostMapping("/exists")
+    @Operation(summary = "Vérifier l'existence de plusieurs bénéficiaires en un seul appel")
+    public ResponseEntity<Map<Long, Boolean>> checkBeneficiairesExist(@RequestBody List<Long> ids) {
+        Set<Long> distinctIds = new HashSet<>(ids);
+        distinctIds.remove(null);
+        Set<Long> existingIds = distinctIds.isEmpty()
+                ? Set.of()
+                : new HashSet<>(beneficiaireRepository.findExistingIds(distinctIds));
+        Map<Long, Boolean> result = new LinkedHashMap<>();
+        for (Long id : distinctIds) {
+            result.put(id, existingIds.contains(id));
+        }
+        return ResponseEntity.ok(result);
+    }
+
+    // Navigateur : revalidation systématique (max-age=0) ; cache partagé (gateway) : s-maxage
+    private CacheControl cacheControl() {
+        return CacheControl.maxAge(Duration.ZERO).sMaxAge(Duration.ofSeconds(sharedMaxAge));
+    }
+
+    // JSON et Smile ont des corps différents : un ETag par représentation, et Vary pour les caches
+    private ResponseEntity<Beneficiaire> conditionnelle(Beneficiaire beneficiaire, String accept) {
+        return ResponseEntity.ok()
+                .eTag(beneficiaire.getId() + "." + beneficiaire.getVersion() + "-" + representation(accept))
+                .varyBy(HttpHeaders.ACCEPT)
+                .cacheControl(cacheControl())
+                .body(beneficiaire);
+    }
+
+    // Représentation servie pour cet Accept : Smile s'il est demandé explicitement, avec une qualité
+    // au moins égale à celle de JSON ; JSON sinon (y compris pour */* ou un Accept invalide)
+    private static String representation(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return "json";
+        }
+        double qualiteSmile = 0;
+        double qualiteJson = 0;
+        try {
+            for (MediaType type : MediaType.parseMediaTypes(accept)) {
+                if (type.equalsTypeAndSubtype(SMILE)) {
+                    qualiteSmile = Math.max(qualiteSmile, type.getQualityValue());
+                } else if (type.equalsTypeAndSubtype(MediaType.APPLICATION_JSON)) {
+                    qualiteJson = Math.max(qualiteJson, type.getQualityValue());
+                }
+            }
+        } catch (InvalidMediaTypeException e) {
+            return "json";
+        }
+        return qualiteSmile > 0 && qualiteSmile >= qualiteJson ? "smile" : "json";
+    }
+}
@@ -0,0 +1,26 @@
+package com.enset.beneficiaireservice.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Set;
+
+@Data @AllArgsConstructor @NoArgsConstructor
+public class BeneficiaireChanges {
+
+    // Identifie la base du journal (commune à toutes les instances) : séquences comparables à epoch égal
+    private String epoch;
+    private long sequence;
+    // Vrai si les changements demandés ne sont plus en mémoire : le client doit tout purger
+    private boolean reset;
+    private List<Change> changes;
+
+    @Data @AllArgsConstructor @NoArgsConstructor
+    public static class Change {
+        private long sequence;
+        private Long beneficiaireId;
+        private Set<String> ribs;
+    }
+}
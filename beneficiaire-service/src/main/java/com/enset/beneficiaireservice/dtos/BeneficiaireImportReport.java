@@ -0,0 +1,28 @@
+package com.enset.beneficiaireservice.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data @AllArgsConstructor @NoArgsConstructor
+public class BeneficiaireImportReport {
+    // Lignes de données lues (en-tête et lignes vides exclues)
+    private long lignes;
+    private long crees;
+    private long misAJour;
+    private long rejetes;
+    private List<Erreur> erreurs = new ArrayList<>();
+    // Vrai si des erreurs ont été omises de la liste (taille bornée)
+    private boolean erreursTronquees;
+
+    @Data @AllArgsConstructor @NoArgsConstructor
+    public static class Erreur {
+        // Numéro de ligne dans le fichier, en-tête compris
+        private long ligne;
+        private String rib;
+        private String motif;
+    }
+}
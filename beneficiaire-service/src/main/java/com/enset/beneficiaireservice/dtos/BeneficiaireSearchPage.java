@@ -0,0 +1,17 @@
+package com.enset.beneficiaireservice.dtos;
+
+import com.enset.beneficiaireservice.entities.Beneficiaire;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data @AllArgsConstructor @NoArgsConstructor
+public class BeneficiaireSearchPage {
+    private List<Beneficiaire> content;
+    private int page;
+    private int size;
+    // Nombre total de bénéficiaires correspondant à la recherche, toutes pages confondues
+    private long total;
+}
@@ -20,6 +20,8 @@ public class Beneficiaire {
     private String rib;
     @Enumerated(EnumType.STRING)
     private TypeBeneficiaire type;
+    @Version
+    private Long version;
 
     public enum TypeBeneficiaire {
         PHYSIQUE, MORALE
@@ -0,0 +1,26 @@
+package com.enset.beneficiaireservice.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Entrée du journal des changements, partagée par toutes les instances du service : la séquence
+ * est attribuée par la base, donc comparable quelle que soit l'instance interrogée.
+ */
+@Entity
+@Table(name = "beneficiaire_changes")
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class BeneficiaireChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long sequence;
+    // Null pour un import en masse
+    private Long beneficiaireId;
+    // RIB concernés (ancien et nouveau), séparés par des virgules
+    @Column(length = 1000)
+    private String ribs;
+}
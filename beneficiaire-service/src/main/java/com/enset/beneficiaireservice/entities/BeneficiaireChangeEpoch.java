@@ -0,0 +1,22 @@
+package com.enset.beneficiaireservice.entities;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Ligne unique (id = 1) : identifie la base qui porte le journal des changements. Les séquences
+ * ne sont comparables qu'à époque égale.
+ */
+@Entity
+@Table(name = "beneficiaire_changes_epoch")
+@Data @NoArgsConstructor @AllArgsConstructor
+public class BeneficiaireChangeEpoch {
+
+    @Id
+    private Integer id;
+    private String epoch;
+}
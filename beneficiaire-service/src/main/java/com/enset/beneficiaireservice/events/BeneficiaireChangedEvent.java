@@ -0,0 +1,38 @@
+package com.enset.beneficiaireservice.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Publié après chaque écriture sur un bénéficiaire. Les RIB concernés (ancien et nouveau)
+ * sont transmis pour que les caches indexés par RIB puissent aussi être purgés.
+ * Un import en masse publie un événement par lot, sans identifiant ({@link TypeChangement#IMPORT}).
+ */
+@Getter
+@AllArgsConstructor
+public class BeneficiaireChangedEvent {
+
+    private final Long beneficiaireId;
+    private final Set<String> ribs;
+    private final TypeChangement type;
+
+    public enum TypeChangement {
+        CREATION, MODIFICATION, SUPPRESSION, IMPORT
+    }
+
+    public static BeneficiaireChangedEvent of(Long beneficiaireId, TypeChangement type, String... ribs) {
+        Set<String> distinctRibs = Stream.of(ribs)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toUnmodifiableSet());
+        return new BeneficiaireChangedEvent(beneficiaireId, distinctRibs, type);
+    }
+
+    public static BeneficiaireChangedEvent importEnMasse(Set<String> ribs) {
+        return new BeneficiaireChangedEvent(null, Set.copyOf(ribs), TypeChangement.IMPORT);
+    }
+}
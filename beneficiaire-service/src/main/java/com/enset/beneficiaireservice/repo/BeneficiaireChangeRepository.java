@@ -0,0 +1,28 @@
+package com.enset.beneficiaireservice.repo;
+
+import com.enset.beneficiaireservice.entities.BeneficiaireChange;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface BeneficiaireChangeRepository extends JpaRepository<BeneficiaireChange, Long> {
+
+    List<BeneficiaireChange> findBySequenceGreaterThanOrderBySequence(long after);
+
+    @Query("SELECT COALESCE(MAX(c.sequence), 0) FROM BeneficiaireChange c")
+    long maxSequence();
+
+    @Query("SELECT MIN(c.sequence) FROM BeneficiaireChange c")
+    Long minSequence();
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM BeneficiaireChange c WHERE c.sequence <= :sequence")
+    int deleteUpTo(@Param("sequence") long sequence);
+}
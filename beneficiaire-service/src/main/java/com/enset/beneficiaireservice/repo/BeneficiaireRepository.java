@@ -2,12 +2,21 @@ package com.enset.beneficiaireservice.repo;
 
 import com.enset.beneficiaireservice.entities.Beneficiaire;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface BeneficiaireRepository extends JpaRepository<Beneficiaire, Long> {
     Optional<Beneficiaire> findByRib(String rib);
     boolean existsByRib(String rib);
+    List<Beneficiaire> findByRibIn(Collection<String> ribs);
+
+    // Ne charge que les identifiants : pas d'hydratation des entités pour une simple vérification
+    @Query("SELECT b.id FROM Beneficiaire b WHERE b.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,63 @@
+package com.enset.beneficiaireservice.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Garde les jetons déjà vérifiés : la signature d'un jeton n'est contrôlée qu'à sa première
+ * présentation. Une entrée disparaît à l'expiration du jeton (au plus tard après {@code maxTtl}) ;
+ * les jetons refusés ne sont pas conservés.
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+
+    private final JwtDecoder delegate;
+    private final Cache<String, Jwt> jetons;
+
+    public CachingJwtDecoder(JwtDecoder delegate, long maxSize, Duration maxTtl) {
+        this.delegate = delegate;
+        this.jetons = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(Expiry.creating((String empreinte, Jwt jwt) -> dureeDeVie(jwt, maxTtl)))
+                .build();
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        String empreinte = empreinte(token);
+        Jwt jwt = jetons.getIfPresent(empreinte);
+        if (jwt == null) {
+            jwt = delegate.decode(token);
+            jetons.put(empreinte, jwt);
+        }
+        return jwt;
+    }
+
+    private static Duration dureeDeVie(Jwt jwt, Duration maxTtl) {
+        if (jwt.getExpiresAt() == null) {
+            return maxTtl;
+        }
+        Duration restante = Duration.between(Instant.now(), jwt.getExpiresAt());
+        return restante.isNegative() ? Duration.ZERO : (restante.compareTo(maxTtl) > 0 ? maxTtl : restante);
+    }
+
+    // Clé : empreinte SHA-256 plutôt que le jeton lui-même
+    private static String empreinte(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.enset.beneficiaireservice.security;
+
+import com.enset.common.security.InternalIdentity;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationToken;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Authentifie les appels internes porteurs d'un en-tête {@link InternalIdentity#HEADER} valide,
+ * sans vérifier de JWT. Un en-tête absent ou invalide laisse la main à l'authentification JWT.
+ */
+public class InternalIdentityFilter extends OncePerRequestFilter {
+
+    // Marque la requête pour que le BearerTokenResolver ignore le jeton éventuel
+    static final String ATTRIBUT_IDENTITE = InternalIdentityFilter.class.getName() + ".identite";
+
+    private final InternalIdentity internalIdentity;
+
+    public InternalIdentityFilter(InternalIdentity internalIdentity) {
+        this.internalIdentity = internalIdentity;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        internalIdentity.verifier(request.getHeader(InternalIdentity.HEADER)).ifPresent(identite -> {
+            PreAuthenticatedAuthenticationToken authentication = new PreAuthenticatedAuthenticationToken(
+                    identite.sujet(), identite,
+                    identite.roles().stream().map(SimpleGrantedAuthority::new).toList());
+            SecurityContext context = SecurityContextHolder.createEmptyContext();
+            context.setAuthentication(authentication);
+            SecurityContextHolder.setContext(context);
+            request.setAttribute(ATTRIBUT_IDENTITE, identite);
+        });
+        chain.doFilter(request, response);
+    }
+}
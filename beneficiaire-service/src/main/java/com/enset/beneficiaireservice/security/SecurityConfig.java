@@ -1,18 +1,45 @@
 package com.enset.beneficiaireservice.security;
 
+import com.enset.common.security.InternalIdentity;
+import com.enset.common.security.JwksCache;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.server.resource.web.BearerTokenResolver;
+import org.springframework.security.oauth2.server.resource.web.DefaultBearerTokenResolver;
+import org.springframework.security.oauth2.server.resource.web.authentication.BearerTokenAuthenticationFilter;
 import org.springframework.security.web.SecurityFilterChain;
 
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, InternalIdentity internalIdentity,
+                                           @Value("${internal.identity.enabled:true}") boolean identiteInterne) throws Exception {
+        if (identiteInterne) {
+            // Appels venant de la gateway ou d'un autre service : HMAC au lieu de la signature du JWT
+            http.addFilterBefore(new InternalIdentityFilter(internalIdentity), BearerTokenAuthenticationFilter.class);
+        }
         http
+                // API sans session ni cookie (JWT ou en-tête interne à chaque requête) : pas de jeton CSRF,
+                // sinon les écritures authentifiées par l'en-tête interne seraient refusées
+                .csrf(csrf -> csrf.disable())
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers(
                                 "/swagger-ui.html",
@@ -27,4 +54,46 @@ public class SecurityConfig {
 
         return http.build();
     }
+
+    @Bean
+    public InternalIdentity internalIdentity(@Value("${internal.identity.secret}") String secret) {
+        return new InternalIdentity(secret);
+    }
+
+    @Bean
+    public BearerTokenResolver bearerTokenResolver() {
+        DefaultBearerTokenResolver defaut = new DefaultBearerTokenResolver();
+        // Requête déjà authentifiée par InternalIdentityFilter : le JWT éventuel n'est pas revérifié
+        return request -> request.getAttribute(InternalIdentityFilter.ATTRIBUT_IDENTITE) != null
+                ? null
+                : defaut.resolve(request);
+    }
+
+    // Clés de Keycloak en mémoire, relues en tâche de fond, avec copie locale de secours
+    @Bean(initMethod = "demarrer", destroyMethod = "arreter")
+    public JwksCache jwksCache(@Value("${spring.security.oauth2.resourceserver.jwt.jwk-set-uri}") URI jwkSetUri,
+                               @Value("${security.jwks.cache-file}") Path fichier,
+                               @Value("${security.jwks.refresh-interval:5m}") Duration intervalle,
+                               @Value("${security.jwks.min-refresh-interval:30s}") Duration intervalleMin,
+                               @Value("${security.jwks.timeout:3s}") Duration timeout) {
+        return new JwksCache(jwkSetUri, fichier, intervalle, intervalleMin, timeout);
+    }
+
+    // Signature vérifiée avec le JWKS en mémoire, puis jeton conservé jusqu'à son expiration
+    @Bean
+    public JwtDecoder jwtDecoder(JwksCache jwksCache,
+                                 @Value("${spring.security.oauth2.resourceserver.jwt.issuer-uri}") String issuer,
+                                 @Value("${security.jwt.cache.max-size:10000}") long maxSize,
+                                 @Value("${security.jwt.cache.max-ttl:5m}") Duration maxTtl) {
+        DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+        // Décodage sur un thread de requête : la relecture d'une clé inconnue peut y bloquer
+        processor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.RS256,
+                (selector, context) -> jwksCache.selectionnerOuRelire(selector)));
+        // Les claims (exp, iss...) sont validés par Spring ci-dessous
+        processor.setJWTClaimsSetVerifier((claims, context) -> {
+        });
+        NimbusJwtDecoder decoder = new NimbusJwtDecoder(processor);
+        decoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(issuer));
+        return new CachingJwtDecoder(decoder, maxSize, maxTtl);
+    }
 }
@@ -0,0 +1,98 @@
+package com.enset.beneficiaireservice.service;
+
+import com.enset.beneficiaireservice.dtos.BeneficiaireChanges;
+import com.enset.beneficiaireservice.entities.BeneficiaireChange;
+import com.enset.beneficiaireservice.events.BeneficiaireChangedEvent;
+import com.enset.beneficiaireservice.repo.BeneficiaireChangeRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Journal borné des derniers changements de bénéficiaires, consommé par les services
+ * qui gardent des bénéficiaires en cache pour savoir quelles entrées invalider.
+ * <p>
+ * Conservé en base : derrière le load balancer, toutes les instances renvoient la même époque
+ * et les mêmes séquences, et un redémarrage ne force pas les consommateurs à tout purger.
+ * L'époque ne change que si la base est recréée.
+ */
+@Component
+public class BeneficiaireChangeLog {
+
+    private final BeneficiaireChangeRepository changeRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final int capacity;
+    private volatile String epoch;
+
+    public BeneficiaireChangeLog(BeneficiaireChangeRepository changeRepository, JdbcTemplate jdbcTemplate,
+                                 @Value("${beneficiaire.changes.capacity:1000}") int capacity) {
+        this.changeRepository = changeRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.capacity = capacity;
+    }
+
+    @EventListener
+    public void onBeneficiaireChanged(BeneficiaireChangedEvent event) {
+        // Import en masse : pas de liste de RIB conservée, les consommateurs purgent tout leur cache
+        Set<String> ribs = event.getType() == BeneficiaireChangedEvent.TypeChangement.IMPORT ? Set.of() : event.getRibs();
+        BeneficiaireChange change = changeRepository.save(BeneficiaireChange.builder()
+                .beneficiaireId(event.getBeneficiaireId())
+                .ribs(String.join(",", ribs))
+                .build());
+        changeRepository.deleteUpTo(change.getSequence() - capacity);
+    }
+
+    public BeneficiaireChanges changesSince(long after) {
+        // Lus avant les changements : une écriture concurrente est au pire renvoyée deux fois
+        long sequence = changeRepository.maxSequence();
+        Long oldest = changeRepository.minSequence();
+        long oldestAvailable = oldest == null ? sequence + 1 : oldest;
+        if (after > sequence || after < oldestAvailable - 1) {
+            return new BeneficiaireChanges(getEpoch(), sequence, true, List.of());
+        }
+        List<BeneficiaireChanges.Change> result = new ArrayList<>();
+        for (BeneficiaireChange change : changeRepository.findBySequenceGreaterThanOrderBySequence(after)) {
+            result.add(new BeneficiaireChanges.Change(change.getSequence(), change.getBeneficiaireId(), ribs(change)));
+        }
+        return new BeneficiaireChanges(getEpoch(), sequence, false, result);
+    }
+
+    public String getEpoch() {
+        String courante = epoch;
+        if (courante == null) {
+            courante = lireOuCreerEpoch();
+            epoch = courante;
+        }
+        return courante;
+    }
+
+    public long currentSequence() {
+        return changeRepository.maxSequence();
+    }
+
+    // La première instance démarrée sur une base vide fixe l'époque, les suivantes la relisent
+    private String lireOuCreerEpoch() {
+        try {
+            jdbcTemplate.update("INSERT INTO beneficiaire_changes_epoch (id, epoch) VALUES (1, ?)",
+                    UUID.randomUUID().toString());
+        } catch (DuplicateKeyException e) {
+            // Déjà fixée
+        }
+        return jdbcTemplate.queryForObject("SELECT epoch FROM beneficiaire_changes_epoch WHERE id = 1", String.class);
+    }
+
+    private static Set<String> ribs(BeneficiaireChange change) {
+        if (change.getRibs() == null || change.getRibs().isEmpty()) {
+            return Set.of();
+        }
+        return Set.copyOf(Arrays.asList(change.getRibs().split(",")));
+    }
+}
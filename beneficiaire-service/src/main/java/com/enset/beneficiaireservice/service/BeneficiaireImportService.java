@@ -0,0 +1,240 @@
+package com.enset.beneficiaireservice.service;
+
+import com.enset.beneficiaireservice.dtos.BeneficiaireImportReport;
+import com.enset.beneficiaireservice.entities.Beneficiaire;
+import com.enset.beneficiaireservice.events.BeneficiaireChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Import CSV de bénéficiaires : le fichier est lu ligne par ligne et écrit par lots
+ * (MERGE sur le RIB), la mémoire utilisée ne dépend donc que de la taille du lot.
+ * <p>
+ * Colonnes : nom, prenom, rib, type (séparateur « , » ou « ; »). L'en-tête est facultatif ;
+ * s'il est présent, les colonnes peuvent être dans n'importe quel ordre.
+ */
+@Service
+public class BeneficiaireImportService {
+
+    // Format IBAN : code pays, clé, puis 10 à 30 caractères alphanumériques
+    private static final Pattern RIB = Pattern.compile("[A-Z]{2}\\d{2}[A-Z0-9]{10,30}");
+    private static final List<String> COLONNES_PAR_DEFAUT = List.of("nom", "prenom", "rib", "type");
+    private static final int LONGUEUR_MAX = 255;
+
+    // Insère ou met à jour selon le RIB (contrainte unique), en une seule instruction par ligne du lot
+    private static final String MERGE_SQL =
+            "MERGE INTO beneficiaires t " +
+            "USING (VALUES (CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(255)))) " +
+            "AS s(nom, prenom, rib, type) ON t.rib = s.rib " +
+            "WHEN MATCHED THEN UPDATE SET nom = s.nom, prenom = s.prenom, type = s.type, version = t.version + 1 " +
+            "WHEN NOT MATCHED THEN INSERT (nom, prenom, rib, type, version) VALUES (s.nom, s.prenom, s.rib, s.type, 0)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${beneficiaire.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${beneficiaire.import.max-errors:1000}")
+    private int maxErreurs;
+
+    private record Ligne(long numero, String nom, String prenom, String rib, Beneficiaire.TypeBeneficiaire type) {
+    }
+
+    /**
+     * Chaque lot est validé dans sa propre transaction : une erreur d'écriture ne rejette que
+     * les lignes du lot concerné. Un RIB répété dans un même lot est rejeté ; répété dans un lot
+     * ultérieur, il met à jour le bénéficiaire créé précédemment.
+     *
+     * @throws IllegalArgumentException si l'en-tête ne contient pas les colonnes nom et rib
+     */
+    public BeneficiaireImportReport importer(Reader source) throws IOException {
+        BeneficiaireImportReport report = new BeneficiaireImportReport();
+        Map<String, Ligne> lot = new LinkedHashMap<>();
+        Map<String, Integer> colonnes = null;
+        char separateur = ',';
+        long numero = 0;
+
+        try (BufferedReader reader = new BufferedReader(source)) {
+            String texte;
+            while ((texte = reader.readLine()) != null) {
+                numero++;
+                if (numero == 1 && texte.startsWith("\uFEFF")) {
+                    texte = texte.substring(1);
+                }
+                if (texte.isBlank()) {
+                    continue;
+                }
+                if (colonnes == null) {
+                    separateur = texte.indexOf(';') >= 0 && texte.indexOf(',') < 0 ? ';' : ',';
+                    List<String> champs = decouper(texte, separateur);
+                    if (estEnTete(champs)) {
+                        colonnes = indexer(champs);
+                        continue;
+                    }
+                    colonnes = indexer(COLONNES_PAR_DEFAUT);
+                }
+
+                report.setLignes(report.getLignes() + 1);
+                Ligne ligne = valider(numero, decouper(texte, separateur), colonnes, report);
+                if (ligne == null) {
+                    continue;
+                }
+                Ligne precedente = lot.putIfAbsent(ligne.rib(), ligne);
+                if (precedente != null) {
+                    rejeter(report, numero, ligne.rib(), "RIB déjà présent à la ligne " + precedente.numero());
+                    continue;
+                }
+                if (lot.size() >= batchSize) {
+                    ecrire(lot, report);
+                    lot.clear();
+                }
+            }
+        }
+        if (!lot.isEmpty()) {
+            ecrire(lot, report);
+        }
+        return report;
+    }
+
+    private void ecrire(Map<String, Ligne> lot, BeneficiaireImportReport report) {
+        List<Ligne> lignes = new ArrayList<>(lot.values());
+        Set<String> existants;
+        try {
+            existants = transactionTemplate.execute(status -> {
+                Set<String> ribsExistants = new HashSet<>(namedParameterJdbcTemplate.queryForList(
+                        "SELECT rib FROM beneficiaires WHERE rib IN (:ribs)",
+                        Map.of("ribs", lot.keySet()), String.class));
+                jdbcTemplate.batchUpdate(MERGE_SQL, lignes, lignes.size(), (ps, ligne) -> {
+                    ps.setString(1, ligne.nom());
+                    ps.setString(2, ligne.prenom());
+                    ps.setString(3, ligne.rib());
+                    ps.setString(4, ligne.type().name());
+                });
+                return ribsExistants;
+            });
+        } catch (DataAccessException e) {
+            for (Ligne ligne : lignes) {
+                rejeter(report, ligne.numero(), ligne.rib(), "Erreur d'écriture du lot : " + e.getMostSpecificCause().getMessage());
+            }
+            return;
+        }
+
+        report.setMisAJour(report.getMisAJour() + existants.size());
+        report.setCrees(report.getCrees() + lignes.size() - existants.size());
+        // Un événement par lot : index de recherche et caches des autres services
+        eventPublisher.publishEvent(BeneficiaireChangedEvent.importEnMasse(lot.keySet()));
+    }
+
+    private Ligne valider(long numero, List<String> champs, Map<String, Integer> colonnes,
+                          BeneficiaireImportReport report) {
+        String nom = champ(champs, colonnes, "nom");
+        String prenom = champ(champs, colonnes, "prenom");
+        String rib = champ(champs, colonnes, "rib").replace(" ", "").toUpperCase(Locale.ROOT);
+        String type = champ(champs, colonnes, "type").toUpperCase(Locale.ROOT);
+
+        String motif = null;
+        if (nom.isEmpty()) {
+            motif = "Nom manquant";
+        } else if (nom.length() > LONGUEUR_MAX || prenom.length() > LONGUEUR_MAX) {
+            motif = "Nom ou prénom trop long";
+        } else if (!RIB.matcher(rib).matches()) {
+            motif = "RIB invalide";
+        } else if (!type.isEmpty() && !type.equals("PHYSIQUE") && !type.equals("MORALE")) {
+            motif = "Type invalide (PHYSIQUE ou MORALE attendu)";
+        }
+        if (motif != null) {
+            rejeter(report, numero, rib, motif);
+            return null;
+        }
+        Beneficiaire.TypeBeneficiaire typeBeneficiaire =
+                type.isEmpty() ? Beneficiaire.TypeBeneficiaire.PHYSIQUE : Beneficiaire.TypeBeneficiaire.valueOf(type);
+        return new Ligne(numero, nom, prenom.isEmpty() ? null : prenom, rib, typeBeneficiaire);
+    }
+
+    private void rejeter(BeneficiaireImportReport report, long numero, String rib, String motif) {
+        report.setRejetes(report.getRejetes() + 1);
+        if (report.getErreurs().size() < maxErreurs) {
+            report.getErreurs().add(new BeneficiaireImportReport.Erreur(numero, rib, motif));
+        } else {
+            report.setErreursTronquees(true);
+        }
+    }
+
+    private static boolean estEnTete(List<String> champs) {
+        return champs.stream().anyMatch(champ -> champ.equalsIgnoreCase("rib"));
+    }
+
+    private static Map<String, Integer> indexer(List<String> entetes) {
+        Map<String, Integer> colonnes = new HashMap<>();
+        for (int i = 0; i < entetes.size(); i++) {
+            colonnes.put(entetes.get(i).toLowerCase(Locale.ROOT), i);
+        }
+        if (!colonnes.containsKey("nom") || !colonnes.containsKey("rib")) {
+            throw new IllegalArgumentException("En-tête CSV invalide : colonnes nom et rib obligatoires");
+        }
+        return colonnes;
+    }
+
+    private static String champ(List<String> champs, Map<String, Integer> colonnes, String nom) {
+        Integer index = colonnes.get(nom);
+        return index == null || index >= champs.size() ? "" : champs.get(index);
+    }
+
+    // Découpage d'une ligne CSV : champs entre guillemets (séparateur et "" échappé autorisés)
+    static List<String> decouper(String ligne, char separateur) {
+        List<String> champs = new ArrayList<>();
+        StringBuilder courant = new StringBuilder();
+        boolean entreGuillemets = false;
+        for (int i = 0; i < ligne.length(); i++) {
+            char c = ligne.charAt(i);
+            if (entreGuillemets) {
+                if (c == '"' && i + 1 < ligne.length() && ligne.charAt(i + 1) == '"') {
+                    courant.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreGuillemets = false;
+                } else {
+                    courant.append(c);
+                }
+            } else if (c == '"') {
+                entreGuillemets = true;
+            } else if (c == separateur) {
+                champs.add(courant.toString().trim());
+                courant.setLength(0);
+            } else {
+                courant.append(c);
+            }
+        }
+        champs.add(courant.toString().trim());
+        return champs;
+    }
+}
@@ -0,0 +1,191 @@
+package com.enset.beneficiaireservice.service;
+
+import com.enset.beneficiaireservice.dtos.BeneficiaireSearchPage;
+import com.enset.beneficiaireservice.entities.Beneficiaire;
+import com.enset.beneficiaireservice.events.BeneficiaireChangedEvent;
+import com.enset.beneficiaireservice.repo.BeneficiaireRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * Index en mémoire des bénéficiaires : RIB → bénéficiaire et mots de nom, prénom et RIB
+ * triés pour la recherche par préfixe. Reconstruit au démarrage, puis tenu à jour par les
+ * {@link BeneficiaireChangedEvent} publiés par le contrôleur.
+ * <p>
+ * Les lectures ne prennent aucun verrou ; les écritures sont sérialisées.
+ */
+@Component
+public class BeneficiaireIndex {
+
+    private static final Pattern SEPARATEURS = Pattern.compile("[\\s'\\-]+");
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+    private static final Comparator<Beneficiaire> ORDRE = Comparator
+            .comparing((Beneficiaire b) -> normaliser(b.getNom()))
+            .thenComparing(b -> normaliser(b.getPrenom()))
+            .thenComparing(Beneficiaire::getId);
+
+    @Autowired
+    private BeneficiaireRepository beneficiaireRepository;
+
+    private final Map<Long, Beneficiaire> parId = new ConcurrentHashMap<>();
+    private final Map<String, Long> parRib = new ConcurrentHashMap<>();
+    private final NavigableMap<String, Set<Long>> termes = new ConcurrentSkipListMap<>();
+    // Tant que l'index n'est pas construit, les recherches exactes passent par la base
+    private volatile boolean pret;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reconstruire() {
+        parId.clear();
+        parRib.clear();
+        termes.clear();
+        beneficiaireRepository.findAll().forEach(this::indexer);
+        pret = true;
+    }
+
+    // Avant BeneficiaireChangeLog : un service qui relit après invalidation voit l'index à jour
+    @EventListener
+    @Order(0)
+    public synchronized void onBeneficiaireChanged(BeneficiaireChangedEvent event) {
+        if (event.getType() == BeneficiaireChangedEvent.TypeChangement.IMPORT) {
+            for (Beneficiaire beneficiaire : beneficiaireRepository.findByRibIn(event.getRibs())) {
+                desindexer(beneficiaire.getId());
+                indexer(beneficiaire);
+            }
+            return;
+        }
+        desindexer(event.getBeneficiaireId());
+        if (event.getType() != BeneficiaireChangedEvent.TypeChangement.SUPPRESSION) {
+            beneficiaireRepository.findById(event.getBeneficiaireId()).ifPresent(this::indexer);
+        }
+    }
+
+    public Optional<Beneficiaire> findByRib(String rib) {
+        if (!pret) {
+            return beneficiaireRepository.findByRib(rib);
+        }
+        Long id = rib == null ? null : parRib.get(rib);
+        return id == null ? Optional.empty() : Optional.ofNullable(parId.get(id));
+    }
+
+    public boolean existsById(Long id) {
+        if (!pret) {
+            return beneficiaireRepository.existsById(id);
+        }
+        return parId.containsKey(id);
+    }
+
+    /**
+     * Chaque mot de la requête doit être le début d'un mot du nom, du prénom ou du RIB
+     * (sans tenir compte de la casse ni des accents). Résultats triés par nom, prénom.
+     */
+    public BeneficiaireSearchPage search(String query, int page, int size) {
+        List<String> motsRequete = decouper(query);
+        Set<Long> ids = null;
+        for (String mot : motsRequete) {
+            Set<Long> correspondants = new HashSet<>();
+            termes.subMap(mot, true, mot + Character.MAX_VALUE, false)
+                    .values()
+                    .forEach(correspondants::addAll);
+            if (ids == null) {
+                ids = correspondants;
+            } else {
+                ids.retainAll(correspondants);
+            }
+            if (ids.isEmpty()) {
+                break;
+            }
+        }
+
+        List<Beneficiaire> resultats = new ArrayList<>();
+        if (ids != null) {
+            for (Long id : ids) {
+                Beneficiaire beneficiaire = parId.get(id);
+                if (beneficiaire != null) {
+                    resultats.add(beneficiaire);
+                }
+            }
+        }
+        resultats.sort(ORDRE);
+
+        int from = Math.min(page * size, resultats.size());
+        int to = Math.min(from + size, resultats.size());
+        return new BeneficiaireSearchPage(List.copyOf(resultats.subList(from, to)), page, size, resultats.size());
+    }
+
+    private void indexer(Beneficiaire beneficiaire) {
+        // Copie : l'entité gérée par JPA ne doit pas être modifiée à travers l'index, ni l'inverse
+        Beneficiaire copie = Beneficiaire.builder()
+                .id(beneficiaire.getId())
+                .nom(beneficiaire.getNom())
+                .prenom(beneficiaire.getPrenom())
+                .rib(beneficiaire.getRib())
+                .type(beneficiaire.getType())
+                .version(beneficiaire.getVersion())
+                .build();
+        parId.put(copie.getId(), copie);
+        if (copie.getRib() != null) {
+            parRib.put(copie.getRib(), copie.getId());
+        }
+        for (String terme : termesDe(copie)) {
+            termes.computeIfAbsent(terme, t -> ConcurrentHashMap.newKeySet()).add(copie.getId());
+        }
+    }
+
+    private void desindexer(Long id) {
+        Beneficiaire ancien = parId.remove(id);
+        if (ancien == null) {
+            return;
+        }
+        if (ancien.getRib() != null) {
+            parRib.remove(ancien.getRib(), id);
+        }
+        for (String terme : termesDe(ancien)) {
+            termes.computeIfPresent(terme, (t, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    private static Set<String> termesDe(Beneficiaire beneficiaire) {
+        Set<String> result = new HashSet<>(decouper(beneficiaire.getNom()));
+        result.addAll(decouper(beneficiaire.getPrenom()));
+        result.addAll(decouper(beneficiaire.getRib()));
+        return result;
+    }
+
+    private static List<String> decouper(String texte) {
+        List<String> mots = new ArrayList<>();
+        for (String mot : SEPARATEURS.split(normaliser(texte))) {
+            if (!mot.isEmpty()) {
+                mots.add(mot);
+            }
+        }
+        return mots;
+    }
+
+    private static String normaliser(String texte) {
+        if (texte == null) {
+            return "";
+        }
+        String sansAccents = ACCENTS.matcher(Normalizer.normalize(texte, Normalizer.Form.NFD)).replaceAll("");
+        return sansAccents.toLowerCase(Locale.ROOT).trim();
+    }
+}
@@ -0,0 +1,80 @@
+package com.enset.beneficiaireservice;
+
+import com.enset.beneficiaireservice.security.CachingJwtDecoder;
+import com.enset.common.security.InternalIdentity;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Coût de l'authentification à chaque saut : vérification complète d'un JWT RS256 (ce que fait
+ * chaque service sans identité interne), JWT déjà en cache, et en-tête d'identité interne (HMAC).
+ * <p>
+ * Hors build normal : {@code mvn test -Dsurefire.excludedGroups= -Dgroups=benchmark}
+ */
+@Tag("benchmark")
+class AuthentificationParSautBenchmarkTest {
+
+    private static final int ECHAUFFEMENT = 5_000;
+    private static final int ITERATIONS = 50_000;
+
+    @Test
+    void identiteInterneMoinsCouteuseQueLaVerificationDuJwt() throws JOSEException {
+        RSAKey cle = new RSAKeyGenerator(2048).keyID("benchmark").generate();
+        String jeton = jeton(cle);
+        JwtDecoder verificationComplete = NimbusJwtDecoder.withPublicKey(cle.toRSAPublicKey()).build();
+        JwtDecoder enCache = new CachingJwtDecoder(verificationComplete, 1000, Duration.ofMinutes(5));
+        InternalIdentity internalIdentity = new InternalIdentity("secret-de-benchmark-de-trente-deux-car");
+        String enTete = internalIdentity.signer("utilisateur", Instant.now().plusSeconds(3600), List.of("SCOPE_profile"));
+
+        double jwtNs = mesurer("JWT RS256 vérifié", () -> verificationComplete.decode(jeton));
+        double cacheNs = mesurer("JWT en cache", () -> enCache.decode(jeton));
+        double hmacNs = mesurer("Identité interne HMAC", () -> internalIdentity.verifier(enTete).orElseThrow());
+
+        assertThat(hmacNs).isLessThan(jwtNs);
+        assertThat(cacheNs).isLessThan(jwtNs);
+    }
+
+    private static double mesurer(String libelle, Supplier<?> verification) {
+        for (int i = 0; i < ECHAUFFEMENT; i++) {
+            verification.get();
+        }
+        long debut = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            verification.get();
+        }
+        double nsParAppel = (double) (System.nanoTime() - debut) / ITERATIONS;
+        System.out.printf("%-25s %10.0f ns/appel%n", libelle, nsParAppel);
+        return nsParAppel;
+    }
+
+    private static String jeton(RSAKey cle) throws JOSEException {
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .subject("utilisateur")
+                .issuer("http://localhost:8181/realms/spring-microservices-security-realm")
+                .issueTime(new Date())
+                .expirationTime(Date.from(Instant.now().plusSeconds(3600)))
+                .claim("scope", "profile email")
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(cle.getKeyID()).build(), claims);
+        jwt.sign(new RSASSASigner(cle));
+        return jwt.serialize();
+    }
+}
@@ -0,0 +1,87 @@
+package com.enset.beneficiaireservice;
+
+import com.enset.beneficiaireservice.dtos.BeneficiaireChanges;
+import com.enset.beneficiaireservice.events.BeneficiaireChangedEvent;
+import com.enset.beneficiaireservice.events.BeneficiaireChangedEvent.TypeChangement;
+import com.enset.beneficiaireservice.repo.BeneficiaireChangeRepository;
+import com.enset.beneficiaireservice.service.BeneficiaireChangeLog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Deux journaux sur la même base jouent le rôle de deux instances derrière le load balancer.
+ */
+@DataJpaTest(properties = "spring.cloud.config.enabled=false")
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BeneficiaireChangeLogTest {
+
+    @Autowired
+    private BeneficiaireChangeRepository changeRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private BeneficiaireChangeLog instanceA;
+    private BeneficiaireChangeLog instanceB;
+
+    @BeforeEach
+    void setUp() {
+        changeRepository.deleteAll();
+        instanceA = new BeneficiaireChangeLog(changeRepository, jdbcTemplate, 3);
+        instanceB = new BeneficiaireChangeLog(changeRepository, jdbcTemplate, 3);
+    }
+
+    @Test
+    void toutesLesInstancesPartagentEpoqueEtSequence() {
+        instanceA.onBeneficiaireChanged(BeneficiaireChangedEvent.of(1L, TypeChangement.CREATION, "FR01"));
+        // Séquence attribuée par la base (l'identité ne repart pas de zéro entre les tests)
+        long depart = instanceA.currentSequence() - 1;
+        instanceB.onBeneficiaireChanged(BeneficiaireChangedEvent.of(2L, TypeChangement.MODIFICATION, "FR02", "FR03"));
+
+        assertThat(instanceB.getEpoch()).isEqualTo(instanceA.getEpoch());
+        assertThat(instanceB.currentSequence()).isEqualTo(instanceA.currentSequence()).isEqualTo(depart + 2);
+
+        // Un consommateur qui alterne entre les instances suit un seul curseur
+        BeneficiaireChanges depuisA = instanceA.changesSince(depart);
+        BeneficiaireChanges depuisB = instanceB.changesSince(depart + 1);
+        assertThat(depuisA.isReset()).isFalse();
+        assertThat(depuisA.getChanges()).extracting(BeneficiaireChanges.Change::getBeneficiaireId).containsExactly(1L, 2L);
+        assertThat(depuisB.isReset()).isFalse();
+        assertThat(depuisB.getChanges()).singleElement()
+                .satisfies(change -> assertThat(change.getRibs()).isEqualTo(Set.of("FR02", "FR03")));
+    }
+
+    @Test
+    void epoqueConserveeAuRedemarrage() {
+        String epoque = instanceA.getEpoch();
+
+        BeneficiaireChangeLog redemarree = new BeneficiaireChangeLog(changeRepository, jdbcTemplate, 3);
+
+        assertThat(redemarree.getEpoch()).isEqualTo(epoque);
+    }
+
+    @Test
+    void curseurHorsDuJournalDemandeUnePurgeComplete() {
+        instanceA.onBeneficiaireChanged(BeneficiaireChangedEvent.of(1L, TypeChangement.MODIFICATION));
+        long depart = instanceA.currentSequence() - 1;
+        for (long id = 2; id <= 5; id++) {
+            instanceA.onBeneficiaireChanged(BeneficiaireChangedEvent.of(id, TypeChangement.MODIFICATION));
+        }
+
+        // Seuls les 3 derniers changements sont conservés
+        assertThat(instanceB.changesSince(depart + 1).isReset()).isTrue();
+        assertThat(instanceB.changesSince(depart + 2).getChanges()).hasSize(3);
+        assertThat(instanceB.changesSince(depart + 99).isReset()).isTrue();
+    }
+}
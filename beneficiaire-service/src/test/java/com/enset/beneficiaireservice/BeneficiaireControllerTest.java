@@ -1,14 +1,21 @@
 package com.enset.beneficiaireservice;
 
+import com.enset.common.security.InternalIdentity;
 import io.restassured.RestAssured;
+import io.restassured.builder.RequestSpecBuilder;
 import io.restassured.http.ContentType;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.time.Instant;
+import java.util.List;
+
 import static io.restassured.RestAssured.*;
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -18,17 +25,40 @@ public class BeneficiaireControllerTest {
     @LocalServerPort
     private int port;
 
+    @Autowired
+    private InternalIdentity internalIdentity;
+
     @BeforeEach
     public void setUp() {
         RestAssured.port = port;
         RestAssured.baseURI = "http://localhost";
+        // Appels authentifiés comme s'ils venaient de la gateway
+        RestAssured.requestSpecification = new RequestSpecBuilder()
+                .addHeader(InternalIdentity.HEADER,
+                        internalIdentity.signer("test", Instant.now().plusSeconds(300), List.of()))
+                .build();
+    }
+
+    @Test
+    public void testIdentiteInterneFalsifieeRefusee() {
+        String autreSecret = new InternalIdentity("un-autre-secret-de-trente-deux-caracteres")
+                .signer("test", Instant.now().plusSeconds(300), List.of());
+        // Sans l'en-tête valide ajouté par setUp()
+        RestAssured.requestSpecification = null;
+
+        given()
+                .header(InternalIdentity.HEADER, autreSecret)
+                .when()
+                .get("/beneficiaires")
+                .then()
+                .statusCode(401);
     }
 
     @Test
     public void testCreerBeneficiairePhysique() {
         String beneficiaireBody = """
             {
-                "nom": "Sara",
+                "nom": "Dupont",
                 "prenom": "Jean",
                 "rib": "FR7630001007941234567890185",
                 "type": "PHYSIQUE"
@@ -160,4 +190,250 @@ public class BeneficiaireControllerTest {
                 .then()
                 .statusCode(404);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testRechercherBeneficiaireParPrefixe() {
+        String beneficiaireBody = """
+            {
+                "nom": "Élharrak",
+                "prenom": "Yasmine",
+                "rib": "FR7630001007941234567890189",
+                "type": "PHYSIQUE"
+            }
+            """;
+
+        int beneficiaireId = given()
+                .contentType(ContentType.JSON)
+                .body(beneficiaireBody)
+                .when()
+                .post("/beneficiaires")
+                .then()
+                .extract()
+                .path("id");
+
+        // Préfixes du nom (sans accent) et du prénom
+        given()
+                .queryParam("q", "elhar yas")
+                .when()
+                .get("/beneficiaires/search")
+                .then()
+                .statusCode(200)
+                .body("total", equalTo(1))
+                .body("content[0].id", equalTo(beneficiaireId));
+
+        // Plus de résultat après suppression
+        when()
+                .delete("/beneficiaires/{id}", beneficiaireId)
+                .then()
+                .statusCode(200);
+
+        given()
+                .queryParam("q", "elhar")
+                .when()
+                .get("/beneficiaires/search")
+                .then()
+                .statusCode(200)
+                .body("total", equalTo(0));
+    }
+
+    @Test
+    public void testRequeteConditionnelleRenvoie304() {
+        String beneficiaireBody = """
+            {
+                "nom": "Bennani",
+                "prenom": "Omar",
+                "rib": "FR7630001007941234567890190",
+                "type": "MORALE"
+            }
+            """;
+
+        int beneficiaireId = given()
+                .contentType(ContentType.JSON)
+                .body(beneficiaireBody)
+                .when()
+                .post("/beneficiaires")
+                .then()
+                .extract()
+                .path("id");
+
+        String etag = when()
+                .get("/beneficiaires/{id}", beneficiaireId)
+                .then()
+                .statusCode(200)
+                .header("ETag", notNullValue())
+                .extract()
+                .header("ETag");
+
+        given()
+                .header("If-None-Match", etag)
+                .when()
+                .get("/beneficiaires/{id}", beneficiaireId)
+                .then()
+                .statusCode(304);
+
+        // Une modification change la version, donc l'ETag
+        given()
+                .contentType(ContentType.JSON)
+                .body(beneficiaireBody.replace("Omar", "Omar Karim"))
+                .when()
+                .put("/beneficiaires/{id}", beneficiaireId)
+                .then()
+                .statusCode(200);
+
+        given()
+                .header("If-None-Match", etag)
+                .when()
+                .get("/beneficiaires/{id}", beneficiaireId)
+                .then()
+                .statusCode(200)
+                .body("prenom", equalTo("Omar Karim"));
+    }
+
+    @Test
+    public void testListeConditionnelleRenvoie304JusquALaProchaineEcriture() {
+        String etag = when()
+                .get("/beneficiaires")
+                .then()
+                .statusCode(200)
+                .header("ETag", notNullValue())
+                .extract()
+                .header("ETag");
+
+        given()
+                .header("If-None-Match", etag)
+                .when()
+                .get("/beneficiaires")
+                .then()
+                .statusCode(304);
+
+        given()
+                .contentType(ContentType.JSON)
+                .body("""
+                    {
+                        "nom": "Chraibi",
+                        "prenom": "Nadia",
+                        "rib": "FR7630001007941234567890193",
+                        "type": "PHYSIQUE"
+                    }
+                    """)
+                .when()
+                .post("/beneficiaires")
+                .then()
+                .statusCode(200);
+
+        // Le journal des changements a avancé : la liste est relue
+        given()
+                .header("If-None-Match", etag)
+                .when()
+                .get("/beneficiaires")
+                .then()
+                .statusCode(200)
+                .header("ETag", not(equalTo(etag)))
+                .body("nom", hasItem("Chraibi"));
+    }
+
+    @Test
+    public void testEtagDistinctEntreJsonEtSmile() {
+        int beneficiaireId = given()
+                .contentType(ContentType.JSON)
+                .body("""
+                    {
+                        "nom": "Tazi",
+                        "prenom": "Salma",
+                        "rib": "FR7630001007941234567890194",
+                        "type": "PHYSIQUE"
+                    }
+                    """)
+                .when()
+                .post("/beneficiaires")
+                .then()
+                .extract()
+                .path("id");
+
+        for (String chemin : List.of("/beneficiaires/" + beneficiaireId, "/beneficiaires")) {
+            String etagJson = given()
+                    .accept("*/*")
+                    .when()
+                    .get(chemin)
+                    .then()
+                    .statusCode(200)
+                    .contentType(containsString("application/json"))
+                    .header("Vary", containsString("Accept"))
+                    .extract()
+                    .header("ETag");
+            String etagSmile = given()
+                    .accept("application/x-jackson-smile, application/json;q=0.9")
+                    .when()
+                    .get(chemin)
+                    .then()
+                    .statusCode(200)
+                    .contentType(containsString("application/x-jackson-smile"))
+                    .header("Vary", containsString("Accept"))
+                    .extract()
+                    .header("ETag");
+
+            assertThat(etagSmile, not(equalTo(etagJson)));
+            // L'ETag d'une représentation ne valide pas l'autre
+            given()
+                    .accept(ContentType.JSON)
+                    .header("If-None-Match", etagSmile)
+                    .when()
+                    .get(chemin)
+                    .then()
+                    .statusCode(200)
+                    .contentType(containsString("application/json"));
+            given()
+                    .accept("application/x-jackson-smile")
+                    .header("If-None-Match", etagSmile)
+                    .when()
+                    .get(chemin)
+                    .then()
+                    .statusCode(304);
+        }
+    }
+
+    @Test
+    public void testImporterBeneficiairesCsv() {
+        String csv = """
+            nom;prenom;rib;type
+            Tazi;Imane;FR76 3000 1007 9412 3456 7890 191;PHYSIQUE
+            "Société Atlas, SARL";;FR7630001007941234567890192;MORALE
+            Sans RIB;Test;12345;PHYSIQUE
+            """;
+
+        given()
+                .contentType("text/csv")
+                .body(csv)
+                .when()
+                .post("/beneficiaires/import")
+                .then()
+                .statusCode(200)
+                .body("lignes", equalTo(3))
+                .body("crees", equalTo(2))
+                .body("rejetes", equalTo(1))
+                .body("erreurs[0].ligne", equalTo(4));
+
+        // RIB normalisé (espaces retirés) et visible dans l'index
+        when()
+                .get("/beneficiaires/rib/{rib}", "FR7630001007941234567890191")
+                .then()
+                .statusCode(200)
+                .body("nom", equalTo("Tazi"));
+
+        // Un second import du même RIB met à jour le bénéficiaire
+        given()
+                .contentType("text/csv")
+                .body("nom;prenom;rib;type\nTazi;Imane Sara;FR7630001007941234567890191;PHYSIQUE\n")
+                .when()
+                .post("/beneficiaires/import")
+                .then()
+                .statusCode(200)
+                .body("misAJour", equalTo(1));
+
+        when()
+                .get("/beneficiaires/rib/{rib}", "FR7630001007941234567890191")
+                .then()
+                .statusCode(200)
+                .body("prenom", equalTo("Imane Sara"));
+    }
+}
@@ -0,0 +1,88 @@
+package com.enset.beneficiaireservice;
+
+import com.enset.beneficiaireservice.repo.BeneficiaireRepository;
+import com.enset.common.security.InternalIdentity;
+import io.restassured.RestAssured;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * Import CSV de 100 000 lignes par POST /beneficiaires/import (lecture en flux, MERGE par lots),
+ * puis réimport du même fichier (mises à jour).
+ * <p>
+ * Hors build normal : {@code mvn test -Dsurefire.excludedGroups= -Dgroups=benchmark}
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class BeneficiaireImportBenchmarkTest {
+
+    private static final int LIGNES = 100_000;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private InternalIdentity internalIdentity;
+
+    @Autowired
+    private BeneficiaireRepository beneficiaireRepository;
+
+    @Test
+    void importDeCentMilleLignesEnMoinsDUneMinute() {
+        RestAssured.port = port;
+        byte[] csv = csv();
+        long avant = beneficiaireRepository.count();
+
+        Duration creation = importer(csv, "crees");
+        Duration miseAJour = importer(csv, "misAJour");
+
+        System.out.printf("Import de %d lignes (%d Ko) : création %d ms (%.0f lignes/s), mise à jour %d ms (%.0f lignes/s)%n",
+                LIGNES, csv.length / 1024,
+                creation.toMillis(), LIGNES * 1000.0 / creation.toMillis(),
+                miseAJour.toMillis(), LIGNES * 1000.0 / miseAJour.toMillis());
+        assertThat(beneficiaireRepository.count()).isEqualTo(avant + LIGNES);
+        assertThat(creation).isLessThan(Duration.ofMinutes(1));
+        assertThat(miseAJour).isLessThan(Duration.ofMinutes(1));
+    }
+
+    private Duration importer(byte[] csv, String compteur) {
+        long debut = System.nanoTime();
+        given()
+                .header(InternalIdentity.HEADER,
+                        internalIdentity.signer("benchmark", Instant.now().plusSeconds(600), List.of()))
+                .contentType("text/csv")
+                .body(csv)
+                .when()
+                .post("/beneficiaires/import")
+                .then()
+                .statusCode(200)
+                .body("lignes", equalTo(LIGNES))
+                .body("rejetes", equalTo(0))
+                .body(compteur, equalTo(LIGNES));
+        return Duration.ofNanos(System.nanoTime() - debut);
+    }
+
+    private static byte[] csv() {
+        StringBuilder csv = new StringBuilder(LIGNES * 64).append("nom;prenom;rib;type\n");
+        for (int i = 0; i < LIGNES; i++) {
+            csv.append("Nom").append(i).append(";Prenom").append(i)
+                    .append(";FR76").append(String.format("%023d", 900_000_000L + i))
+                    .append(i % 10 == 0 ? ";MORALE\n" : ";PHYSIQUE\n");
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
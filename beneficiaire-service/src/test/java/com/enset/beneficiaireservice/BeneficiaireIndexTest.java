@@ -0,0 +1,95 @@
+package com.enset.beneficiaireservice;
+
+import com.enset.beneficiaireservice.dtos.BeneficiaireSearchPage;
+import com.enset.beneficiaireservice.entities.Beneficiaire;
+import com.enset.beneficiaireservice.events.BeneficiaireChangedEvent;
+import com.enset.beneficiaireservice.events.BeneficiaireChangedEvent.TypeChangement;
+import com.enset.beneficiaireservice.repo.BeneficiaireRepository;
+import com.enset.beneficiaireservice.service.BeneficiaireIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BeneficiaireIndexTest {
+
+    private final BeneficiaireRepository repository = mock(BeneficiaireRepository.class);
+    private final BeneficiaireIndex index = new BeneficiaireIndex();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(index, "beneficiaireRepository", repository);
+        when(repository.findAll()).thenReturn(List.of(
+                beneficiaire(1L, "Élharrak", "Yasmine", "FR7630001007941234567890189"),
+                beneficiaire(2L, "El Amrani", "Youssef", "FR7630004000031234567890143"),
+                beneficiaire(3L, "Dupont", "Jean-Luc", "FR7630001007940000000000001"),
+                beneficiaire(4L, "Dupond", "Anne", "FR7630001007940000000000002")));
+        index.reconstruire();
+    }
+
+    @Test
+    void prefixeSansCasseNiAccent() {
+        assertThat(ids(index.search("ELHAR", 0, 10))).containsExactly(1L);
+        assertThat(ids(index.search("él", 0, 10))).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void chaqueMotDeLaRequeteDoitCorrespondre() {
+        assertThat(ids(index.search("dup jean", 0, 10))).containsExactly(3L);
+        // Prénom composé découpé sur le tiret
+        assertThat(ids(index.search("luc", 0, 10))).containsExactly(3L);
+        assertThat(ids(index.search("dup yasmine", 0, 10))).isEmpty();
+    }
+
+    @Test
+    void prefixeDuRib() {
+        assertThat(ids(index.search("fr763000100794000", 0, 10))).containsExactly(4L, 3L);
+        assertThat(index.findByRib("FR7630004000031234567890143")).map(Beneficiaire::getId).contains(2L);
+    }
+
+    @Test
+    void pagesTrieesParNomPuisPrenom() {
+        BeneficiaireSearchPage premiere = index.search("dup", 0, 1);
+        BeneficiaireSearchPage seconde = index.search("dup", 1, 1);
+
+        assertThat(premiere.getTotal()).isEqualTo(2);
+        assertThat(ids(premiere)).containsExactly(4L);
+        assertThat(ids(seconde)).containsExactly(3L);
+    }
+
+    @Test
+    void modificationEtSuppressionMettentAJourLesTermes() {
+        when(repository.findById(3L)).thenReturn(Optional.of(
+                beneficiaire(3L, "Martin", "Jean-Luc", "FR7630001007940000000000001")));
+        index.onBeneficiaireChanged(BeneficiaireChangedEvent.of(3L, TypeChangement.MODIFICATION));
+
+        assertThat(ids(index.search("dupont", 0, 10))).isEmpty();
+        assertThat(ids(index.search("mart", 0, 10))).containsExactly(3L);
+
+        index.onBeneficiaireChanged(BeneficiaireChangedEvent.of(3L, TypeChangement.SUPPRESSION));
+
+        assertThat(ids(index.search("mart", 0, 10))).isEmpty();
+        assertThat(index.existsById(3L)).isFalse();
+    }
+
+    private static List<Long> ids(BeneficiaireSearchPage page) {
+        return page.getContent().stream().map(Beneficiaire::getId).toList();
+    }
+
+    private static Beneficiaire beneficiaire(Long id, String nom, String prenom, String rib) {
+        return Beneficiaire.builder()
+                .id(id)
+                .nom(nom)
+                .prenom(prenom)
+                .rib(rib)
+                .type(Beneficiaire.TypeBeneficiaire.PHYSIQUE)
+                .version(0L)
+                .build();
+    }
+}
@@ -1,13 +1,15 @@
 package com.enset.chatbotservice;
 
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -16,30 +18,71 @@ import java.util.Map;
 @Service
 public class McpService {
 
+    // Types des réponses JSON du serveur MCP, sans conversion non vérifiée
+    private static final ParameterizedTypeReference<List<Map<String, Object>>> LISTE =
+            new ParameterizedTypeReference<>() {
+            };
+    private static final ParameterizedTypeReference<Map<String, Object>> OBJET =
+            new ParameterizedTypeReference<>() {
+            };
+
     @Value("${mcp.server.url}")
     private String mcpServerUrl;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    // Client partagé (HttpClientConfig) : connexions réutilisées, timeouts, identité interne signée
+    @Autowired
+    @Qualifier("mcpRestTemplate")
+    private RestTemplate restTemplate;
 
     public List<Map<String, Object>> getBeneficiaries() {
         try {
-            // Utiliser List.class au lieu de Map.class puisque la réponse est un tableau
-            List<Map<String, Object>> beneficiaries = restTemplate.getForObject(mcpServerUrl + "/beneficiaries", List.class);
-
-            System.out.println("Bénéficiaires récupérés: " + beneficiaries);
-
-            if (beneficiaries != null && !beneficiaries.isEmpty()) {
-                return beneficiaries;
-            }
-            return new ArrayList<>();
+            return fetchBeneficiaries();
         } catch (Exception e) {
             System.out.println("Erreur lors de la récupération des bénéficiaires: " + e.getMessage());
             return new ArrayList<>();
         }
     }
+
+    /**
+     * Comme {@link #getBeneficiaries()}, mais une erreur est levée au lieu d'être convertie en liste
+     * vide : l'appelant peut conserver les données qu'il a déjà.
+     */
+    public List<Map<String, Object>> fetchBeneficiaries() {
+        List<Map<String, Object>> beneficiaries = restTemplate
+                .exchange(mcpServerUrl + "/beneficiaries", HttpMethod.GET, null, LISTE)
+                .getBody();
+        return beneficiaries != null ? beneficiaries : new ArrayList<>();
+    }
+
+    // Derniers virements d'un bénéficiaire ; une erreur est levée pour que l'agent la signale
+    public List<Map<String, Object>> fetchVirementsOfBeneficiary(long beneficiaryId, int size) {
+        List<Map<String, Object>> virements = restTemplate.exchange(
+                mcpServerUrl + "/beneficiaries/{id}/virements?size={size}", HttpMethod.GET, null, LISTE,
+                beneficiaryId, size).getBody();
+        return virements != null ? virements : new ArrayList<>();
+    }
+
+    // Montant total et nombre de virements sur la période, pour un bénéficiaire ou un RIB source
+    public Map<String, Object> fetchTotal(Long beneficiaryId, String ribSource, LocalDateTime debut, LocalDateTime fin) {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("debut", debut);
+        variables.put("fin", fin);
+        String url = mcpServerUrl + "/virements/total?startDate={debut}&endDate={fin}";
+        if (beneficiaryId != null) {
+            variables.put("beneficiaryId", beneficiaryId);
+            url += "&beneficiaryId={beneficiaryId}";
+        } else {
+            variables.put("ribSource", ribSource);
+            url += "&ribSource={ribSource}";
+        }
+        Map<String, Object> total = restTemplate.exchange(url, HttpMethod.GET, null, OBJET, variables).getBody();
+        return total != null ? total : Map.of("montantTotal", 0, "nombre", 0);
+    }
+
     public String getVirementsOf(String name) {
         try {
-            Map response = restTemplate.getForObject(mcpServerUrl + "/virements?beneficiary=" + name, Map.class);
+            Map<String, Object> response = restTemplate.exchange(
+                    mcpServerUrl + "/virements?beneficiary=" + name, HttpMethod.GET, null, OBJET).getBody();
             if (response != null && response.get("content") != null) {
                 return (String) response.get("content");
             }
@@ -0,0 +1,120 @@
+package com.enset.chatbotservice.agent;
+
+import com.enset.chatbotservice.McpService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Copie en mémoire de la liste des bénéficiaires, chargée au premier message qui en a besoin.
+ * <p>
+ * Passé {@code chatbot.beneficiaires.refresh-interval}, la copie est toujours servie et un
+ * rechargement est lancé en arrière-plan : seul le tout premier accès attend le serveur MCP.
+ * Un rechargement en échec conserve la copie précédente.
+ */
+@Component
+public class BeneficiaireSnapshot {
+
+    private static final Logger log = LoggerFactory.getLogger(BeneficiaireSnapshot.class);
+
+    private final McpService mcpService;
+    private final ExecutorService rechargement = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("beneficiaires-snapshot").daemon().factory());
+    private final AtomicBoolean rechargementEnCours = new AtomicBoolean();
+
+    @Value("${chatbot.beneficiaires.refresh-interval:60s}")
+    private Duration intervalle;
+
+    private volatile Copie copie;
+
+    private record Copie(List<Map<String, Object>> liste, Map<String, Map<String, Object>> parNom, long chargeeLe) {
+    }
+
+    public BeneficiaireSnapshot(McpService mcpService) {
+        this.mcpService = mcpService;
+    }
+
+    @PreDestroy
+    void arreter() {
+        rechargement.shutdownNow();
+    }
+
+    public List<Map<String, Object>> liste() {
+        return copie().liste();
+    }
+
+    /**
+     * Bénéficiaire dont le nom (ou « prénom nom », « nom prénom ») correspond, sans tenir compte
+     * de la casse ni des espaces superflus.
+     */
+    public Optional<Map<String, Object>> parNom(String nom) {
+        return Optional.ofNullable(copie().parNom().get(normaliser(nom)));
+    }
+
+    private Copie copie() {
+        Copie courante = copie;
+        if (courante == null) {
+            return chargerPremiereFois();
+        }
+        if (System.currentTimeMillis() - courante.chargeeLe() > intervalle.toMillis()
+                && rechargementEnCours.compareAndSet(false, true)) {
+            rechargement.execute(() -> {
+                try {
+                    copie = charger();
+                } catch (Exception e) {
+                    log.warn("Rechargement des bénéficiaires impossible, copie conservée", e);
+                } finally {
+                    rechargementEnCours.set(false);
+                }
+            });
+        }
+        return courante;
+    }
+
+    private synchronized Copie chargerPremiereFois() {
+        if (copie == null) {
+            try {
+                copie = charger();
+            } catch (Exception e) {
+                log.warn("Erreur lors de la récupération des bénéficiaires", e);
+                // Pas de copie conservée : le prochain message réessaiera
+                return new Copie(List.of(), Map.of(), System.currentTimeMillis());
+            }
+        }
+        return copie;
+    }
+
+    private Copie charger() {
+        List<Map<String, Object>> liste = List.copyOf(mcpService.fetchBeneficiaries());
+        Map<String, Map<String, Object>> parNom = new HashMap<>();
+        for (Map<String, Object> b : liste) {
+            String nom = normaliser((String) b.get("nom"));
+            String prenom = normaliser((String) b.get("prenom"));
+            // En cas d'homonymes, le premier de la liste l'emporte
+            if (!nom.isEmpty()) {
+                parNom.putIfAbsent(nom, b);
+            }
+            if (!nom.isEmpty() && !prenom.isEmpty()) {
+                parNom.putIfAbsent(prenom + " " + nom, b);
+                parNom.putIfAbsent(nom + " " + prenom, b);
+            }
+        }
+        return new Copie(liste, Map.copyOf(parNom), System.currentTimeMillis());
+    }
+
+    private static String normaliser(String texte) {
+        return texte == null ? "" : texte.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,16 +1,25 @@
 package com.enset.chatbotservice.agent;
 
 import com.enset.chatbotservice.McpService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.util.*;
+import java.util.function.Function;
 
 @Component
 public class EnhancedAiAgent {
 
+    private static final Logger log = LoggerFactory.getLogger(EnhancedAiAgent.class);
+
     @Value("${ollama.api.key}")
     private String apiKey;
 
@@ -20,51 +29,162 @@ public class EnhancedAiAgent {
     @Value("${ollama.api.model}")
     private String model;
 
-    private final McpService mcpService;
+    // Au-delà, la connexion SSE est fermée et l'appel à Ollama annulé
+    @Value("${chatbot.stream.timeout:120s}")
+    private Duration streamTimeout;
 
-    public EnhancedAiAgent(McpService mcpService) {
+    private final McpService mcpService;
+    private final BeneficiaireSnapshot beneficiaireSnapshot;
+    private final OllamaStreamingClient ollamaStreamingClient;
+    private final ResponseCache responseCache;
+    private final RestTemplate ollamaRestTemplate;
+    private final IntentRouter intentRouter;
+
+    public EnhancedAiAgent(McpService mcpService, BeneficiaireSnapshot beneficiaireSnapshot,
+                           OllamaStreamingClient ollamaStreamingClient, ResponseCache responseCache,
+                           @Qualifier("ollamaRestTemplate") RestTemplate ollamaRestTemplate,
+                           IntentRouter intentRouter) {
         this.mcpService = mcpService;
+        this.beneficiaireSnapshot = beneficiaireSnapshot;
+        this.ollamaStreamingClient = ollamaStreamingClient;
+        this.responseCache = responseCache;
+        this.ollamaRestTemplate = ollamaRestTemplate;
+        this.intentRouter = intentRouter;
     }
 
     public String chat(String message) {
         message = message.toLowerCase();
 
-        // Récupérer toutes les données nécessaires
-        List<Map<String, Object>> beneficiaries = mcpService.getBeneficiaries();
-
-        // Analyse du message
-        if (message.contains("lister")) {
-            return formatBeneficiaries(beneficiaries);
-        }
-
-        if (message.contains("rib") || message.contains("rip")) {
-            String name = extractName(message);
-            return findRib(beneficiaries, name);
+        String reponse = repondreLocalement(message);
+        if (reponse != null) {
+            return reponse;
         }
 
-
-
         // Si pas reconnu, laisser Ollama Cloud répondre
         return callOllamaCloud(message);
     }
 
+    /**
+     * Même logique que {@link #chat(String)}, mais la réponse d'Ollama est transmise fragment par
+     * fragment en Server-Sent Events : {@code token} ({@code {"content": ...}}) pour chaque fragment,
+     * puis {@code done} avec le temps jusqu'au premier fragment, ou {@code error}.
+     * Si le client se déconnecte, l'appel à Ollama est annulé.
+     */
+    public SseEmitter chatStream(String message) {
+        String texte = message.toLowerCase();
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+
+        String reponse = repondreLocalement(texte);
+        ResponseCache.Recherche recherche = null;
+        if (reponse == null) {
+            recherche = responseCache.rechercher(texte);
+            reponse = recherche.reponse();
+        }
+        if (reponse != null) {
+            try {
+                emitter.send(SseEmitter.event().name("token").data(Map.of("content", reponse), MediaType.APPLICATION_JSON));
+                emitter.send(SseEmitter.event().name("done").data(Map.of("ttftMs", 0, "durationMs", 0), MediaType.APPLICATION_JSON));
+                emitter.complete();
+            } catch (IOException e) {
+                emitter.completeWithError(e);
+            }
+            return emitter;
+        }
 
+        ResponseCache.Recherche absente = recherche;
+        StringBuilder complete = new StringBuilder();
+        OllamaStreamingClient.Appel appel = ollamaStreamingClient.stream(messages(texte), new OllamaStreamingClient.Ecouteur() {
+            @Override
+            public void fragment(String fragment) throws IOException {
+                complete.append(fragment);
+                emitter.send(SseEmitter.event().name("token").data(Map.of("content", fragment), MediaType.APPLICATION_JSON));
+            }
 
-    private String findRib(List<Map<String, Object>> beneficiaries, String name) {
-        for (Map<String, Object> b : beneficiaries) {
-            if (((String)b.get("nom")).equalsIgnoreCase(name)) {
-                return "Le RIB de " + b.get("nom") + " est : " + b.get("rib");
+            @Override
+            public void termine(Duration premierFragment, Duration total) {
+                log.debug("Réponse Ollama en streaming : premier fragment après {} ms, terminée en {} ms",
+                        premierFragment.toMillis(), total.toMillis());
+                responseCache.enregistrer(absente, complete.toString(), total);
+                try {
+                    emitter.send(SseEmitter.event().name("done").data(Map.of(
+                            "ttftMs", premierFragment.toMillis(),
+                            "durationMs", total.toMillis()), MediaType.APPLICATION_JSON));
+                    emitter.complete();
+                } catch (IOException e) {
+                    emitter.completeWithError(e);
+                }
+            }
+
+            @Override
+            public void erreur(Exception e) {
+                log.warn("Erreur de streaming Ollama : {}", e.getMessage());
+                try {
+                    emitter.send(SseEmitter.event().name("error")
+                            .data(Map.of("message", "Erreur de communication avec Ollama"), MediaType.APPLICATION_JSON));
+                    emitter.complete();
+                } catch (IOException | IllegalStateException ex) {
+                    // Client déjà déconnecté
+                    emitter.completeWithError(e);
+                }
             }
+        });
+        // Déconnexion du client, expiration ou erreur d'écriture : on arrête la génération côté Ollama
+        emitter.onCompletion(appel::annuler);
+        emitter.onTimeout(appel::annuler);
+        emitter.onError(e -> appel.annuler());
+        return emitter;
+    }
+
+    // Intentions traitées sans LLM ; null si le message doit partir vers Ollama
+    private String repondreLocalement(String message) {
+        IntentRouter.Routage routage = intentRouter.router(message);
+        try {
+            return switch (routage.intention()) {
+                case LISTER_BENEFICIAIRES -> formatBeneficiaries(beneficiaireSnapshot.liste());
+                case RIB_BENEFICIAIRE -> avecBeneficiaire(routage,
+                        b -> "Le RIB de " + nomComplet(b) + " est : " + b.get("rib"));
+                case VIREMENTS_BENEFICIAIRE -> avecBeneficiaire(routage,
+                        b -> formatVirements(nomComplet(b), mcpService.fetchVirementsOfBeneficiary(identifiant(b), 10)));
+                case TOTAL_VIREMENTS -> total(routage);
+                case LLM -> null;
+            };
+        } catch (Exception e) {
+            return "Erreur MCP: " + e.getMessage();
         }
-        return "Aucun bénéficiaire trouvé avec ce nom.";
     }
 
+    private String avecBeneficiaire(IntentRouter.Routage routage, Function<Map<String, Object>, String> reponse) {
+        if (routage.beneficiaires().isEmpty()) {
+            return "Aucun bénéficiaire trouvé avec ce nom.";
+        }
+        if (routage.beneficiaires().size() > 1) {
+            StringJoiner candidats = new StringJoiner(", ");
+            routage.beneficiaires().forEach(b -> candidats.add(nomComplet(b)));
+            return "Plusieurs bénéficiaires correspondent : " + candidats + ". Précisez le nom et le prénom.";
+        }
+        return reponse.apply(routage.beneficiaires().get(0));
+    }
 
+    private String total(IntentRouter.Routage routage) {
+        IntentRouter.Periode periode = routage.periode();
+        if (routage.ribSource() != null) {
+            Map<String, Object> total = mcpService.fetchTotal(null, routage.ribSource(), periode.debut(), periode.fin());
+            return formatTotal("depuis le RIB " + routage.ribSource(), periode, total);
+        }
+        if (routage.beneficiaires().isEmpty()) {
+            return "Précisez un bénéficiaire ou un RIB source pour calculer le total des virements.";
+        }
+        return avecBeneficiaire(routage, b -> formatTotal("vers " + nomComplet(b), periode,
+                mcpService.fetchTotal(identifiant(b), null, periode.debut(), periode.fin())));
+    }
 
+    private static String nomComplet(Map<String, Object> beneficiaire) {
+        Object prenom = beneficiaire.get("prenom");
+        return prenom != null ? prenom + " " + beneficiaire.get("nom") : String.valueOf(beneficiaire.get("nom"));
+    }
 
-    private String extractName(String message) {
-        // Exemple simple pour extraire le nom après "virement de"
-        return message.replace("virement de", "").trim();
+    private static long identifiant(Map<String, Object> beneficiaire) {
+        return ((Number) beneficiaire.get("id")).longValue();
     }
 
     private String formatBeneficiaries(List<Map<String, Object>> beneficiaries) {
@@ -81,20 +201,31 @@ public class EnhancedAiAgent {
     }
 
 
-    private String formatVirements(Object response) {
-        if (response instanceof List<?>) {
-            StringBuilder sb = new StringBuilder("Virements:\n");
-            for (Object obj : (List<?>) response) {
-                sb.append(obj.toString()).append("\n");
-            }
-            return sb.toString();
+    private String formatVirements(String beneficiaire, List<Map<String, Object>> virements) {
+        if (virements.isEmpty()) return "Aucun virement trouvé pour " + beneficiaire + ".";
+        StringBuilder sb = new StringBuilder("Derniers virements vers " + beneficiaire + ":\n");
+        for (Map<String, Object> v : virements) {
+            sb.append("Date: ").append(v.get("dateVirement"))
+                    .append(", Montant: ").append(v.get("montant"))
+                    .append(", Statut: ").append(v.get("statut"))
+                    .append(", Description: ").append(v.get("description"))
+                    .append("\n");
         }
-        return "Aucun virement trouvé pour cet utilisateur.";
+        return sb.toString();
+    }
+
+    private String formatTotal(String cible, IntentRouter.Periode periode, Map<String, Object> total) {
+        return "Total des virements " + cible + " " + periode.libelle() + " : " + total.get("montantTotal")
+                + " (" + total.get("nombre") + " virement(s)).";
     }
 
     private String callOllamaCloud(String message) {
+        ResponseCache.Recherche recherche = responseCache.rechercher(message);
+        if (recherche.reponse() != null) {
+            return recherche.reponse();
+        }
+        long debut = System.nanoTime();
         try {
-            RestTemplate restTemplate = new RestTemplate();
             HttpHeaders headers = new HttpHeaders();
             headers.set("Authorization", "Bearer " + apiKey);
             headers.setContentType(MediaType.APPLICATION_JSON);
@@ -102,30 +233,34 @@ public class EnhancedAiAgent {
             Map<String, Object> requestBody = new HashMap<>();
             requestBody.put("model", model);
             requestBody.put("stream", false);
-
-            List<Map<String, String>> messages = new ArrayList<>();
-            Map<String, String> systemMessage = new HashMap<>();
-            systemMessage.put("role", "system");
-            systemMessage.put("content", "Vous êtes un assistant bancaire qui répond uniquement à des questions générales.");
-            messages.add(systemMessage);
-
-            Map<String, String> userMessage = new HashMap<>();
-            userMessage.put("role", "user");
-            userMessage.put("content", message);
-            messages.add(userMessage);
-
-            requestBody.put("messages", messages);
+            requestBody.put("messages", messages(message));
 
             HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-            Map<?, ?> response = restTemplate.postForObject(apiUrl, entity, Map.class);
+            Map<?, ?> response = ollamaRestTemplate.postForObject(apiUrl, entity, Map.class);
 
             if (response != null && response.get("message") != null) {
                 Map<?, ?> messageObj = (Map<?, ?>) response.get("message");
-                return (String) messageObj.get("content");
+                String contenu = (String) messageObj.get("content");
+                responseCache.enregistrer(recherche, contenu, Duration.ofNanos(System.nanoTime() - debut));
+                return contenu;
             }
             return "Je n'ai pas pu obtenir de réponse.";
         } catch (Exception e) {
             return "Erreur de communication avec Ollama: " + e.getMessage();
         }
     }
+
+    private List<Map<String, String>> messages(String message) {
+        List<Map<String, String>> messages = new ArrayList<>();
+        Map<String, String> systemMessage = new HashMap<>();
+        systemMessage.put("role", "system");
+        systemMessage.put("content", "Vous êtes un assistant bancaire qui répond uniquement à des questions générales.");
+        messages.add(systemMessage);
+
+        Map<String, String> userMessage = new HashMap<>();
+        userMessage.put("role", "user");
+        userMessage.put("content", message);
+        messages.add(userMessage);
+        return messages;
+    }
 }
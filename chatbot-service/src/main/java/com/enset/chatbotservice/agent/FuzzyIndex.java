@@ -0,0 +1,110 @@
+package com.enset.chatbotservice.agent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Recherche de mots à une faute près (lettre en trop, manquante, remplacée ou deux lettres
+ * inversées) sans parcourir tout le vocabulaire : chaque terme est aussi indexé sous toutes ses
+ * variantes privées d'une lettre, et deux mots à une faute près partagent toujours une variante.
+ * Les mots plus courts que {@code longueurMinApprochee} ne sont trouvés qu'à l'identique.
+ */
+final class FuzzyIndex<T> {
+
+    private final int longueurMinApprochee;
+    private final Map<String, List<Terme<T>>> exacts = new HashMap<>();
+    private final Map<String, List<Terme<T>>> variantes = new HashMap<>();
+
+    private record Terme<T>(String mot, T valeur) {
+    }
+
+    record Correspondance<T>(T valeur, boolean exacte) {
+    }
+
+    FuzzyIndex(int longueurMinApprochee) {
+        this.longueurMinApprochee = longueurMinApprochee;
+    }
+
+    void ajouter(String mot, T valeur) {
+        Terme<T> terme = new Terme<>(mot, valeur);
+        exacts.computeIfAbsent(mot, k -> new ArrayList<>(1)).add(terme);
+        if (mot.length() >= longueurMinApprochee) {
+            for (String variante : variantes(mot)) {
+                variantes.computeIfAbsent(variante, k -> new ArrayList<>(1)).add(terme);
+            }
+        }
+    }
+
+    /**
+     * Valeurs des termes identiques au mot s'il y en a, sinon de ceux à une faute près.
+     */
+    List<Correspondance<T>> chercher(String mot) {
+        List<Terme<T>> identiques = exacts.get(mot);
+        if (identiques != null) {
+            List<Correspondance<T>> correspondances = new ArrayList<>(identiques.size());
+            for (Terme<T> terme : identiques) {
+                correspondances.add(new Correspondance<>(terme.valeur(), true));
+            }
+            return correspondances;
+        }
+        if (mot.length() < longueurMinApprochee) {
+            return List.of();
+        }
+        Set<Terme<T>> candidats = new LinkedHashSet<>();
+        // Lettre en trop dans le mot
+        candidats.addAll(variantes.getOrDefault(mot, List.of()));
+        for (String variante : variantes(mot)) {
+            // Lettre manquante, puis lettre remplacée ou inversion
+            candidats.addAll(exacts.getOrDefault(variante, List.of()));
+            candidats.addAll(variantes.getOrDefault(variante, List.of()));
+        }
+        List<Correspondance<T>> correspondances = new ArrayList<>();
+        for (Terme<T> terme : candidats) {
+            if (terme.mot().length() >= longueurMinApprochee && uneFauteAuPlus(mot, terme.mot())) {
+                correspondances.add(new Correspondance<>(terme.valeur(), false));
+            }
+        }
+        return correspondances;
+    }
+
+    private static Set<String> variantes(String mot) {
+        Set<String> variantes = new LinkedHashSet<>();
+        for (int i = 0; i < mot.length(); i++) {
+            variantes.add(mot.substring(0, i) + mot.substring(i + 1));
+        }
+        return variantes;
+    }
+
+    // Distance de Damerau-Levenshtein restreinte <= 1, en un seul passage
+    static boolean uneFauteAuPlus(String a, String b) {
+        int ecart = a.length() - b.length();
+        if (ecart > 1 || ecart < -1) {
+            return false;
+        }
+        int debut = 0;
+        int min = Math.min(a.length(), b.length());
+        while (debut < min && a.charAt(debut) == b.charAt(debut)) {
+            debut++;
+        }
+        if (debut == min) {
+            return true;
+        }
+        if (ecart == 1) {
+            return a.substring(debut + 1).equals(b.substring(debut));
+        }
+        if (ecart == -1) {
+            return a.substring(debut).equals(b.substring(debut + 1));
+        }
+        if (a.substring(debut + 1).equals(b.substring(debut + 1))) {
+            return true;
+        }
+        return debut + 1 < a.length()
+                && a.charAt(debut) == b.charAt(debut + 1)
+                && a.charAt(debut + 1) == b.charAt(debut)
+                && a.substring(debut + 2).equals(b.substring(debut + 2));
+    }
+}
@@ -0,0 +1,367 @@
+package com.enset.chatbotservice.agent;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Month;
+import java.time.YearMonth;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reconnaissance déterministe des intentions du chat, avant tout appel au LLM.
+ * <ul>
+ *   <li>Mots-clés : dictionnaire indexé, tolérant une faute de frappe sur les mots longs.</li>
+ *   <li>Bénéficiaire : chaque mot du message est cherché dans un index des noms et prénoms de la
+ *   copie locale ({@link BeneficiaireSnapshot}), à une faute près ; le bénéficiaire qui cumule le
+ *   plus de mots reconnus l'emporte (plusieurs ex aequo : ambiguïté).</li>
+ *   <li>Période et RIB source : expressions régulières compilées une fois.</li>
+ * </ul>
+ * Seuls les messages sans intention reconnue partent vers le LLM.
+ */
+@Component
+public class IntentRouter {
+
+    public enum Intention {
+        LISTER_BENEFICIAIRES, RIB_BENEFICIAIRE, VIREMENTS_BENEFICIAIRE, TOTAL_VIREMENTS, LLM
+    }
+
+    public record Periode(LocalDateTime debut, LocalDateTime fin, String libelle) {
+    }
+
+    /**
+     * @param beneficiaires bénéficiaires reconnus : vide si aucun, plusieurs si ambigu
+     */
+    public record Routage(Intention intention, List<Map<String, Object>> beneficiaires, String ribSource,
+                          Periode periode) {
+
+        public Optional<Map<String, Object>> beneficiaire() {
+            return beneficiaires.size() == 1 ? Optional.of(beneficiaires.get(0)) : Optional.empty();
+        }
+    }
+
+    private enum Signal {
+        VIREMENT, TOTAL, RIB, LISTE, BENEFICIAIRE
+    }
+
+    private record RegleDePeriode(Pattern motif, BiFunction<Matcher, LocalDateTime, Periode> periode) {
+    }
+
+    private record IndexNoms(List<Map<String, Object>> source, FuzzyIndex<Map<String, Object>> index) {
+    }
+
+    private static final FuzzyIndex<Signal> MOTS_CLES = motsCles();
+    private static final Map<String, Month> MOIS = mois();
+    // Mots qui ne peuvent pas être un nom de bénéficiaire
+    private static final Set<String> MOTS_VIDES = Set.of(
+            "le", "la", "les", "de", "du", "des", "un", "une", "au", "aux", "mon", "ma", "mes", "ton", "ta",
+            "tes", "son", "sa", "ses", "pour", "par", "sur", "avec", "sans", "dans", "en", "et", "ou", "est",
+            "sont", "ai", "as", "quel", "quelle", "qui", "que", "quoi", "qu", "donne", "donner", "moi", "je",
+            "tu", "il", "elle", "nous", "vous", "stp", "svp", "merci", "bonjour", "salut", "ce", "cet",
+            "cette", "ces", "mois", "semaine", "annee", "an", "jour", "jours", "derniers", "dernier",
+            "derniere", "dernieres", "passe", "passee", "precedent", "precedente", "hier", "aujourd", "hui",
+            "depuis", "tous", "toutes", "tout", "fait", "faits", "effectue", "effectues", "recu", "recus",
+            "vers", "cours", "ci");
+    // Prépositions après lesquelles un mot inconnu est sans doute un nom mal orthographié
+    private static final Set<String> AVANT_NOM = Set.of("de", "du", "d", "pour", "a", "au", "vers");
+    private static final Pattern RIB = Pattern.compile("\\b([a-z]{2}\\d{2}[a-z0-9]{10,30})\\b");
+    private static final List<RegleDePeriode> PERIODES = periodes();
+
+    private final Supplier<List<Map<String, Object>>> beneficiaires;
+    private final Clock clock;
+    private final Map<Intention, LongAdder> compteurs = new EnumMap<>(Intention.class);
+    private volatile IndexNoms indexNoms;
+
+    @Autowired
+    public IntentRouter(BeneficiaireSnapshot beneficiaireSnapshot) {
+        this(beneficiaireSnapshot::liste, Clock.systemDefaultZone());
+    }
+
+    public IntentRouter(Supplier<List<Map<String, Object>>> beneficiaires, Clock clock) {
+        this.beneficiaires = beneficiaires;
+        this.clock = clock;
+        for (Intention intention : Intention.values()) {
+            compteurs.put(intention, new LongAdder());
+        }
+    }
+
+    public Routage router(String message) {
+        Routage routage = analyser(message);
+        compteurs.get(routage.intention()).increment();
+        return routage;
+    }
+
+    public Map<String, Object> statistiques() {
+        Map<String, Object> statistiques = new LinkedHashMap<>();
+        long total = 0;
+        for (Intention intention : Intention.values()) {
+            long nombre = compteurs.get(intention).sum();
+            statistiques.put(intention.name(), nombre);
+            total += nombre;
+        }
+        long llm = compteurs.get(Intention.LLM).sum();
+        statistiques.put("messages", total);
+        statistiques.put("partVersLlm", total == 0 ? 0.0 : (double) llm / total);
+        return statistiques;
+    }
+
+    private Routage analyser(String message) {
+        String texte = Normalisation.normaliser(message);
+        String[] mots = Normalisation.mots(texte);
+        boolean[] reserves = new boolean[mots.length];
+        Set<Signal> signaux = EnumSet.noneOf(Signal.class);
+        for (int i = 0; i < mots.length; i++) {
+            String mot = mots[i];
+            if (MOTS_VIDES.contains(mot) || MOIS.containsKey(mot) || estNombre(mot)) {
+                reserves[i] = true;
+                continue;
+            }
+            for (FuzzyIndex.Correspondance<Signal> correspondance : MOTS_CLES.chercher(mot)) {
+                signaux.add(correspondance.valeur());
+                reserves[i] = true;
+            }
+        }
+
+        String ribSource = null;
+        Matcher rib = RIB.matcher(texte);
+        if (rib.find()) {
+            ribSource = rib.group(1).toUpperCase(Locale.ROOT);
+            for (int i = 0; i < mots.length; i++) {
+                if (mots[i].equals(rib.group(1))) {
+                    reserves[i] = true;
+                }
+            }
+        }
+        Periode periode = periode(texte);
+
+        // Les bénéficiaires ne sont lus que pour les intentions qui en ont besoin
+        if (signaux.contains(Signal.TOTAL)
+                && (signaux.contains(Signal.VIREMENT) || periode != null || ribSource != null)) {
+            List<Map<String, Object>> trouves = ribSource == null ? beneficiaires(mots, reserves) : List.of();
+            // « combien coûte un virement ? » : ni période, ni RIB, ni bénéficiaire, question générale
+            if (periode != null || ribSource != null || !trouves.isEmpty()) {
+                return new Routage(Intention.TOTAL_VIREMENTS, trouves, ribSource,
+                        periode != null ? periode : anneeEnCours(LocalDateTime.now(clock)));
+            }
+            return llm();
+        }
+        if (signaux.contains(Signal.RIB)) {
+            List<Map<String, Object>> trouves = beneficiaires(mots, reserves);
+            // « qu'est-ce qu'un RIB ? » reste une question générale
+            if (!trouves.isEmpty() || nomAttendu(mots, reserves)) {
+                return new Routage(Intention.RIB_BENEFICIAIRE, trouves, null, null);
+            }
+            return llm();
+        }
+        if (signaux.contains(Signal.VIREMENT)) {
+            List<Map<String, Object>> trouves = beneficiaires(mots, reserves);
+            if (!trouves.isEmpty()) {
+                return new Routage(Intention.VIREMENTS_BENEFICIAIRE, trouves, null, null);
+            }
+            return llm();
+        }
+        if ((signaux.contains(Signal.BENEFICIAIRE) && (signaux.contains(Signal.LISTE) || signaux.contains(Signal.TOTAL)))
+                || texte.contains("lister")) {
+            return new Routage(Intention.LISTER_BENEFICIAIRES, List.of(), null, null);
+        }
+        return llm();
+    }
+
+    private static Routage llm() {
+        return new Routage(Intention.LLM, List.of(), null, null);
+    }
+
+    private List<Map<String, Object>> beneficiaires(String[] mots, boolean[] reserves) {
+        IndexNoms courant = indexNoms();
+        Map<Map<String, Object>, Integer> scores = new IdentityHashMap<>();
+        for (int i = 0; i < mots.length; i++) {
+            if (reserves[i] || mots[i].length() < 3) {
+                continue;
+            }
+            Set<Map<String, Object>> vus = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (FuzzyIndex.Correspondance<Map<String, Object>> correspondance : courant.index().chercher(mots[i])) {
+                if (vus.add(correspondance.valeur())) {
+                    scores.merge(correspondance.valeur(), correspondance.exacte() ? 2 : 1, Integer::sum);
+                }
+            }
+        }
+        if (scores.isEmpty()) {
+            return List.of();
+        }
+        int meilleur = Collections.max(scores.values());
+        List<Map<String, Object>> trouves = new ArrayList<>(1);
+        // Dans l'ordre de la liste, pour une réponse stable en cas d'ambiguïté
+        for (Map<String, Object> beneficiaire : courant.source()) {
+            Integer score = scores.get(beneficiaire);
+            if (score != null && score == meilleur) {
+                trouves.add(beneficiaire);
+            }
+        }
+        return trouves;
+    }
+
+    // Index reconstruit quand la copie locale des bénéficiaires a été rechargée
+    private IndexNoms indexNoms() {
+        List<Map<String, Object>> liste = beneficiaires.get();
+        IndexNoms courant = indexNoms;
+        if (courant == null || courant.source() != liste) {
+            FuzzyIndex<Map<String, Object>> index = new FuzzyIndex<>(4);
+            for (Map<String, Object> beneficiaire : liste) {
+                for (String champ : List.of("nom", "prenom")) {
+                    Object valeur = beneficiaire.get(champ);
+                    if (valeur == null) {
+                        continue;
+                    }
+                    for (String mot : Normalisation.mots(Normalisation.normaliser(valeur.toString()))) {
+                        if (mot.length() >= 3) {
+                            index.ajouter(mot, beneficiaire);
+                        }
+                    }
+                }
+            }
+            courant = new IndexNoms(liste, index);
+            indexNoms = courant;
+        }
+        return courant;
+    }
+
+    private static boolean nomAttendu(String[] mots, boolean[] reserves) {
+        for (int i = 1; i < mots.length; i++) {
+            if (!reserves[i] && mots[i].length() >= 3 && AVANT_NOM.contains(mots[i - 1])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Periode periode(String texte) {
+        LocalDateTime maintenant = LocalDateTime.now(clock);
+        for (RegleDePeriode regle : PERIODES) {
+            Matcher matcher = regle.motif().matcher(texte);
+            if (matcher.find()) {
+                return regle.periode().apply(matcher, maintenant);
+            }
+        }
+        return null;
+    }
+
+    private static boolean estNombre(String mot) {
+        for (int i = 0; i < mot.length(); i++) {
+            if (!Character.isDigit(mot.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static FuzzyIndex<Signal> motsCles() {
+        // Faute de frappe tolérée à partir de 6 lettres : « rib » et « rip » restent distincts des noms courts
+        FuzzyIndex<Signal> index = new FuzzyIndex<>(6);
+        for (String mot : List.of("virement", "virements", "transfert", "transferts", "envoi", "envois",
+                "paiement", "paiements", "versement", "versements", "envoye", "envoyes", "verse")) {
+            index.ajouter(mot, Signal.VIREMENT);
+        }
+        for (String mot : List.of("total", "totaux", "somme", "combien", "cumul", "cumule", "montant")) {
+            index.ajouter(mot, Signal.TOTAL);
+        }
+        for (String mot : List.of("rib", "rip", "iban")) {
+            index.ajouter(mot, Signal.RIB);
+        }
+        for (String mot : List.of("lister", "liste", "listes", "afficher", "affiche", "montrer", "montre",
+                "voir", "quels", "quelles")) {
+            index.ajouter(mot, Signal.LISTE);
+        }
+        for (String mot : List.of("beneficiaire", "beneficiaires", "destinataire", "destinataires", "contacts")) {
+            index.ajouter(mot, Signal.BENEFICIAIRE);
+        }
+        return index;
+    }
+
+    private static Map<String, Month> mois() {
+        Map<String, Month> mois = new LinkedHashMap<>();
+        for (Month m : Month.values()) {
+            mois.put(Normalisation.normaliser(m.getDisplayName(TextStyle.FULL, Locale.FRENCH)), m);
+        }
+        return mois;
+    }
+
+    // Dans l'ordre : « mois dernier » avant « ce mois », un mois nommé avant une année seule
+    private static List<RegleDePeriode> periodes() {
+        List<RegleDePeriode> regles = new ArrayList<>();
+        regles.add(regle("\\baujourd hui\\b",
+                (m, maintenant) -> new Periode(maintenant.toLocalDate().atStartOfDay(), maintenant, "aujourd'hui")));
+        regles.add(regle("\\bhier\\b",
+                (m, maintenant) -> jours(maintenant.toLocalDate().minusDays(1), maintenant.toLocalDate().minusDays(1), "hier")));
+        regles.add(regle("\\b(\\d{1,3}) derniers jours\\b",
+                (m, maintenant) -> new Periode(maintenant.minusDays(Integer.parseInt(m.group(1))), maintenant,
+                        "les " + m.group(1) + " derniers jours")));
+        regles.add(regle("\\bsemaine (?:derniere|passee|precedente)\\b", (m, maintenant) -> {
+            LocalDate lundi = maintenant.toLocalDate().with(DayOfWeek.MONDAY).minusWeeks(1);
+            return jours(lundi, lundi.plusDays(6), "la semaine dernière");
+        }));
+        regles.add(regle("\\bcette semaine\\b",
+                (m, maintenant) -> new Periode(maintenant.toLocalDate().with(DayOfWeek.MONDAY).atStartOfDay(),
+                        maintenant, "cette semaine")));
+        regles.add(regle("\\bmois (?:dernier|passe|precedent)\\b",
+                (m, maintenant) -> mois(YearMonth.from(maintenant).minusMonths(1), "le mois dernier")));
+        regles.add(regle("\\b(?:ce|du) mois\\b|\\bmois en cours\\b",
+                (m, maintenant) -> new Periode(maintenant.toLocalDate().withDayOfMonth(1).atStartOfDay(),
+                        maintenant, "ce mois-ci")));
+        regles.add(regle("\\ban(?:nee)? (?:derniere|dernier|passee|precedente)\\b", (m, maintenant) -> {
+            int annee = maintenant.getYear() - 1;
+            return jours(LocalDate.of(annee, 1, 1), LocalDate.of(annee, 12, 31), "en " + annee);
+        }));
+        regles.add(regle("\\bcette annee\\b|\\bannee en cours\\b", (m, maintenant) -> anneeEnCours(maintenant)));
+        regles.add(regle("\\b(" + String.join("|", MOIS.keySet()) + ")(?: (\\d{4}))?\\b", (m, maintenant) -> {
+            Month mois = MOIS.get(m.group(1));
+            // Sans année : le dernier mois de ce nom, pas un mois à venir
+            int annee = m.group(2) != null ? Integer.parseInt(m.group(2))
+                    : mois.getValue() > maintenant.getMonthValue() ? maintenant.getYear() - 1 : maintenant.getYear();
+            return mois(YearMonth.of(annee, mois),
+                    "en " + mois.getDisplayName(TextStyle.FULL, Locale.FRENCH) + " " + annee);
+        }));
+        // Année seule uniquement après « en » ou « année » : dans « un virement de 2000 euros »,
+        // 2000 est un montant (une année accolée à un mois est traitée par la règle précédente)
+        regles.add(regle("\\b(?:en|annee) (20\\d{2})\\b(?! ?(?:euros?|eur|dirhams?|dh|mad)\\b)", (m, maintenant) -> {
+            int annee = Integer.parseInt(m.group(1));
+            return jours(LocalDate.of(annee, 1, 1), LocalDate.of(annee, 12, 31), "en " + annee);
+        }));
+        return List.copyOf(regles);
+    }
+
+    private static RegleDePeriode regle(String motif, BiFunction<Matcher, LocalDateTime, Periode> periode) {
+        return new RegleDePeriode(Pattern.compile(motif), periode);
+    }
+
+    private static Periode jours(LocalDate premier, LocalDate dernier, String libelle) {
+        return new Periode(premier.atStartOfDay(), dernier.atTime(LocalTime.MAX), libelle);
+    }
+
+    private static Periode mois(YearMonth mois, String libelle) {
+        return jours(mois.atDay(1), mois.atEndOfMonth(), libelle);
+    }
+
+    private static Periode anneeEnCours(LocalDateTime maintenant) {
+        return new Periode(LocalDate.of(maintenant.getYear(), 1, 1).atStartOfDay(), maintenant, "cette année");
+    }
+}
@@ -0,0 +1,26 @@
+package com.enset.chatbotservice.agent;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Forme comparable d'un message : minuscules, sans accents, ponctuation remplacée par des espaces.
+ */
+final class Normalisation {
+
+    private static final Pattern DIACRITIQUES = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATEURS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private Normalisation() {
+    }
+
+    static String normaliser(String texte) {
+        String sansAccents = DIACRITIQUES.matcher(Normalizer.normalize(texte, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARATEURS.matcher(sansAccents.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    static String[] mots(String texteNormalise) {
+        return texteNormalise.isEmpty() ? new String[0] : texteNormalise.split(" ");
+    }
+}
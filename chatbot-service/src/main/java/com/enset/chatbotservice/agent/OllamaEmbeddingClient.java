@@ -0,0 +1,84 @@
+package com.enset.chatbotservice.agent;
+
+import com.enset.common.http.HostConnectionLimiter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Vectorisation des questions par l'API {@code /api/embed} d'Ollama, pour le niveau sémantique
+ * de {@link ResponseCache}. Absent si {@code chatbot.cache.semantic.enabled} n'est pas activé.
+ */
+@Component
+@ConditionalOnProperty(name = "chatbot.cache.semantic.enabled", havingValue = "true")
+public class OllamaEmbeddingClient {
+
+    private final URI url;
+    private final String apiKey;
+    private final String model;
+    private final Duration timeout;
+    private final HttpClient httpClient;
+    private final HostConnectionLimiter hostConnectionLimiter;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public OllamaEmbeddingClient(HttpClient httpClient, HostConnectionLimiter hostConnectionLimiter,
+                                 @Value("${chatbot.cache.semantic.url}") String url,
+                                 @Value("${ollama.api.key}") String apiKey,
+                                 @Value("${chatbot.cache.semantic.model}") String model,
+                                 @Value("${chatbot.cache.semantic.timeout:2s}") Duration timeout) {
+        this.url = URI.create(url);
+        this.apiKey = apiKey;
+        this.model = model;
+        this.timeout = timeout;
+        this.httpClient = httpClient;
+        this.hostConnectionLimiter = hostConnectionLimiter;
+    }
+
+    public float[] vectoriser(String texte) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(url)
+                    .timeout(timeout)
+                    .header("Authorization", "Bearer " + apiKey)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(
+                            objectMapper.writeValueAsBytes(Map.of("model", model, "input", texte))))
+                    .build();
+            // Corps lu en entier par send : la place sur l'hôte est rendue dès la réponse reçue
+            HttpResponse<byte[]> response;
+            HostConnectionLimiter.Permis permis = hostConnectionLimiter.acquerir(url);
+            try {
+                response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            } finally {
+                permis.close();
+            }
+            if (response.statusCode() != 200) {
+                throw new IOException("Ollama a répondu " + response.statusCode());
+            }
+            JsonNode vecteur = objectMapper.readTree(response.body()).path("embeddings").path(0);
+            if (!vecteur.isArray() || vecteur.isEmpty()) {
+                throw new IOException("Réponse d'embedding vide");
+            }
+            float[] valeurs = new float[vecteur.size()];
+            for (int i = 0; i < valeurs.length; i++) {
+                valeurs[i] = (float) vecteur.get(i).asDouble();
+            }
+            return valeurs;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.enset.chatbotservice.agent;
+
+import com.enset.common.http.HostConnectionLimiter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Appel de l'API chat d'Ollama en mode {@code "stream": true} : la réponse arrive en NDJSON,
+ * un fragment de texte par ligne, transmis à l'écouteur dès sa réception.
+ */
+@Component
+public class OllamaStreamingClient {
+
+    private final URI apiUrl;
+    private final String apiKey;
+    private final String model;
+    private final HttpClient httpClient;
+    private final HostConnectionLimiter hostConnectionLimiter;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Un thread virtuel par flux : la lecture bloquante ne retient pas de thread plateforme
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public OllamaStreamingClient(HttpClient httpClient, HostConnectionLimiter hostConnectionLimiter,
+                                 @Value("${ollama.api.url}") String apiUrl,
+                                 @Value("${ollama.api.key}") String apiKey,
+                                 @Value("${ollama.api.model}") String model) {
+        this.httpClient = httpClient;
+        this.hostConnectionLimiter = hostConnectionLimiter;
+        this.apiUrl = URI.create(apiUrl);
+        this.apiKey = apiKey;
+        this.model = model;
+    }
+
+    @PreDestroy
+    void arreter() {
+        executor.shutdownNow();
+    }
+
+    public interface Ecouteur {
+
+        // Une exception (client SSE déconnecté...) interrompt le flux et ferme la connexion à Ollama
+        void fragment(String texte) throws IOException;
+
+        void termine(Duration premierFragment, Duration total);
+
+        void erreur(Exception e);
+    }
+
+    /**
+     * Flux en cours ; {@link #annuler()} ferme la connexion à Ollama, qui arrête la génération.
+     */
+    public static final class Appel {
+
+        private final AtomicReference<Stream<String>> lignes = new AtomicReference<>();
+        private volatile Future<?> tache;
+        private volatile boolean annule;
+
+        public void annuler() {
+            annule = true;
+            Stream<String> courantes = lignes.get();
+            if (courantes != null) {
+                courantes.close();
+            }
+            Future<?> courante = tache;
+            if (courante != null) {
+                courante.cancel(true);
+            }
+        }
+
+        public boolean estAnnule() {
+            return annule;
+        }
+    }
+
+    public Appel stream(List<Map<String, String>> messages, Ecouteur ecouteur) {
+        Appel appel = new Appel();
+        appel.tache = executor.submit(() -> executer(appel, messages, ecouteur));
+        return appel;
+    }
+
+    private void executer(Appel appel, List<Map<String, String>> messages, Ecouteur ecouteur) {
+        long debut = System.nanoTime();
+        long premierFragment = -1;
+        HostConnectionLimiter.Permis permis = null;
+        try {
+            // Le flux occupe une place sur l'hôte jusqu'à la fin de la réponse
+            permis = hostConnectionLimiter.acquerir(apiUrl);
+            byte[] corps = objectMapper.writeValueAsBytes(Map.of("model", model, "stream", true, "messages", messages));
+            HttpRequest request = HttpRequest.newBuilder(apiUrl)
+                    .header("Authorization", "Bearer " + apiKey)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(corps))
+                    .build();
+            HttpResponse<Stream<String>> response = httpClient.send(request, HttpResponse.BodyHandlers.ofLines());
+            try (Stream<String> lignes = response.body()) {
+                appel.lignes.set(lignes);
+                if (appel.annule) {
+                    return;
+                }
+                Iterator<String> iterator = lignes.iterator();
+                if (response.statusCode() != 200) {
+                    throw new IOException("Ollama a répondu " + response.statusCode()
+                            + (iterator.hasNext() ? " : " + iterator.next() : ""));
+                }
+                while (iterator.hasNext()) {
+                    String ligne = iterator.next();
+                    if (ligne.isBlank()) {
+                        continue;
+                    }
+                    JsonNode noeud = objectMapper.readTree(ligne);
+                    if (noeud.hasNonNull("error")) {
+                        throw new IOException("Erreur Ollama : " + noeud.get("error").asText());
+                    }
+                    String texte = noeud.path("message").path("content").asText("");
+                    if (!texte.isEmpty()) {
+                        if (premierFragment < 0) {
+                            premierFragment = System.nanoTime() - debut;
+                        }
+                        ecouteur.fragment(texte);
+                    }
+                    if (noeud.path("done").asBoolean(false)) {
+                        break;
+                    }
+                }
+            }
+            if (!appel.annule) {
+                long total = System.nanoTime() - debut;
+                ecouteur.termine(Duration.ofNanos(premierFragment < 0 ? total : premierFragment), Duration.ofNanos(total));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // Après annulation, l'erreur de lecture est attendue (connexion fermée par nous)
+            if (!appel.annule) {
+                ecouteur.erreur(e);
+            }
+        } finally {
+            if (permis != null) {
+                permis.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.enset.chatbotservice.agent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Cache des réponses d'Ollama aux questions générales, pour ne pas payer un appel LLM à chaque
+ * « quel est le plafond d'un virement instantané ? ».
+ * <ul>
+ *   <li>Niveau exact : clé = message normalisé (casse, accents, ponctuation, espaces), avec TTL.</li>
+ *   <li>Niveau sémantique (optionnel) : si le niveau exact échoue, le message est vectorisé et
+ *   comparé (cosinus) aux questions en cache ; au-delà du seuil, la réponse est réutilisée.</li>
+ * </ul>
+ * Mémoire bornée en nombre d'entrées et en caractères de réponse, éviction LRU.
+ */
+@Component
+public class ResponseCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ResponseCache.class);
+
+    private final int maxEntrees;
+    private final long maxCaracteres;
+    private final long ttlNanos;
+    private final double seuil;
+    private final Function<String, float[]> embeddings;
+
+    // Ordre d'accès : l'entrée la moins récemment utilisée est en tête
+    private final LinkedHashMap<String, Entree> entrees = new LinkedHashMap<>(16, 0.75f, true);
+    private long caracteres;
+
+    private final LongAdder hitsExacts = new LongAdder();
+    private final LongAdder hitsSemantiques = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    // Échecs de vectorisation consécutifs : seul le premier est journalisé, jusqu'au rétablissement
+    private final AtomicLong echecsVectorisation = new AtomicLong();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder latenceEconomiseeMs = new LongAdder();
+
+    private record Entree(String reponse, float[] vecteur, long latenceMs, long expireLe) {
+    }
+
+    /**
+     * Résultat d'une recherche ({@code reponse} null si absente) ; en cas d'absence, à repasser
+     * à {@link #enregistrer} avec la réponse du LLM pour ne pas recalculer la clé ni le vecteur.
+     */
+    public record Recherche(String cle, float[] vecteur, String reponse) {
+    }
+
+    @Autowired
+    public ResponseCache(@Value("${chatbot.cache.max-entries:1000}") int maxEntrees,
+                         @Value("${chatbot.cache.max-chars:2000000}") long maxCaracteres,
+                         @Value("${chatbot.cache.ttl:1h}") Duration ttl,
+                         @Value("${chatbot.cache.semantic.threshold:0.92}") double seuil,
+                         Optional<OllamaEmbeddingClient> embeddingClient) {
+        this(maxEntrees, maxCaracteres, ttl, seuil,
+                embeddingClient.<Function<String, float[]>>map(client -> client::vectoriser).orElse(null));
+    }
+
+    public ResponseCache(int maxEntrees, long maxCaracteres, Duration ttl, double seuil,
+                         Function<String, float[]> embeddings) {
+        this.maxEntrees = maxEntrees;
+        this.maxCaracteres = maxCaracteres;
+        this.ttlNanos = ttl.toNanos();
+        this.seuil = seuil;
+        this.embeddings = embeddings;
+    }
+
+    public Recherche rechercher(String message) {
+        String cle = Normalisation.normaliser(message);
+        long maintenant = System.nanoTime();
+        synchronized (this) {
+            Entree entree = entrees.get(cle);
+            if (entree != null && maintenant - entree.expireLe() < 0) {
+                hitsExacts.increment();
+                latenceEconomiseeMs.add(entree.latenceMs());
+                return new Recherche(cle, entree.vecteur(), entree.reponse());
+            }
+        }
+
+        float[] vecteur = vectoriser(cle);
+        if (vecteur != null) {
+            synchronized (this) {
+                String meilleureCle = null;
+                double meilleurScore = seuil;
+                for (Map.Entry<String, Entree> candidate : entrees.entrySet()) {
+                    Entree entree = candidate.getValue();
+                    if (entree.vecteur() == null || maintenant - entree.expireLe() >= 0) {
+                        continue;
+                    }
+                    double score = produitScalaire(vecteur, entree.vecteur());
+                    if (score >= meilleurScore) {
+                        meilleurScore = score;
+                        meilleureCle = candidate.getKey();
+                    }
+                }
+                if (meilleureCle != null) {
+                    // get() pour remonter l'entrée dans l'ordre LRU
+                    Entree meilleure = entrees.get(meilleureCle);
+                    hitsSemantiques.increment();
+                    latenceEconomiseeMs.add(meilleure.latenceMs());
+                    return new Recherche(cle, vecteur, meilleure.reponse());
+                }
+            }
+        }
+        misses.increment();
+        return new Recherche(cle, vecteur, null);
+    }
+
+    public void enregistrer(Recherche recherche, String reponse, Duration latence) {
+        if (reponse == null || reponse.isEmpty() || reponse.length() > maxCaracteres) {
+            return;
+        }
+        Entree entree = new Entree(reponse, recherche.vecteur(), latence.toMillis(), System.nanoTime() + ttlNanos);
+        synchronized (this) {
+            Entree precedente = entrees.put(recherche.cle(), entree);
+            if (precedente != null) {
+                caracteres -= precedente.reponse().length();
+            }
+            caracteres += reponse.length();
+            Iterator<Entree> lru = entrees.values().iterator();
+            while ((entrees.size() > maxEntrees || caracteres > maxCaracteres) && lru.hasNext()) {
+                caracteres -= lru.next().reponse().length();
+                lru.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    public Map<String, Object> statistiques() {
+        long exacts = hitsExacts.sum();
+        long semantiques = hitsSemantiques.sum();
+        long total = exacts + semantiques + misses.sum();
+        int taille;
+        long occupes;
+        synchronized (this) {
+            taille = entrees.size();
+            occupes = caracteres;
+        }
+        Map<String, Object> statistiques = new LinkedHashMap<>();
+        statistiques.put("requetes", total);
+        statistiques.put("hitsExacts", exacts);
+        statistiques.put("hitsSemantiques", semantiques);
+        statistiques.put("tauxHit", total == 0 ? 0.0 : (double) (exacts + semantiques) / total);
+        statistiques.put("latenceEconomiseeMs", latenceEconomiseeMs.sum());
+        statistiques.put("entrees", taille);
+        statistiques.put("caracteres", occupes);
+        statistiques.put("evictions", evictions.sum());
+        statistiques.put("semantique", embeddings != null);
+        statistiques.put("echecsVectorisation", echecsVectorisation.get());
+        return statistiques;
+    }
+
+    // Vecteur de norme 1 (le cosinus devient un produit scalaire), null si niveau désactivé ou en échec
+    private float[] vectoriser(String texte) {
+        if (embeddings == null || texte.isEmpty()) {
+            return null;
+        }
+        try {
+            float[] vecteur = embeddings.apply(texte);
+            long echecs = echecsVectorisation.getAndSet(0);
+            if (echecs > 0) {
+                log.info("Vectorisation rétablie après {} échec(s) consécutif(s)", echecs);
+            }
+            double norme = 0;
+            for (float v : vecteur) {
+                norme += v * v;
+            }
+            if (norme == 0) {
+                return null;
+            }
+            float inverse = (float) (1 / Math.sqrt(norme));
+            float[] unitaire = new float[vecteur.length];
+            for (int i = 0; i < vecteur.length; i++) {
+                unitaire[i] = vecteur[i] * inverse;
+            }
+            return unitaire;
+        } catch (Exception e) {
+            // Service d'embeddings en panne : un appel par cache miss, on ne journalise que le premier
+            if (echecsVectorisation.getAndIncrement() == 0) {
+                log.warn("Vectorisation impossible, cache exact seulement jusqu'au rétablissement", e);
+            }
+            return null;
+        }
+    }
+
+    private static double produitScalaire(float[] a, float[] b) {
+        if (a.length != b.length) {
+            return 0;
+        }
+        double somme = 0;
+        for (int i = 0; i < a.length; i++) {
+            somme += a[i] * b[i];
+        }
+        return somme;
+    }
+}
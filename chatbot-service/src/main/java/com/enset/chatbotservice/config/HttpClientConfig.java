@@ -0,0 +1,71 @@
+package com.enset.chatbotservice.config;
+
+import com.enset.common.http.HostConnectionLimiter;
+import com.enset.common.security.InternalIdentity;
+import com.enset.common.security.InternalIdentityInterceptor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Un seul client HTTP du JDK pour tous les appels sortants (serveur MCP, Ollama) : connexions
+ * conservées et réutilisées, HTTP/2 quand le serveur le propose (multiplexage sur une connexion TLS).
+ */
+@Configuration
+public class HttpClientConfig {
+
+    @Bean
+    public HttpClient httpClient(@Value("${chatbot.http.connect-timeout:3s}") Duration connectTimeout) {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    @Bean
+    public HostConnectionLimiter hostConnectionLimiter(
+            @Value("${chatbot.http.max-connections-per-host:20}") int maxParHote,
+            @Value("${chatbot.http.acquire-timeout:2s}") Duration attenteMax) {
+        return new HostConnectionLimiter(maxParHote, attenteMax);
+    }
+
+    @Bean
+    public InternalIdentityInterceptor internalIdentityInterceptor(
+            @Value("${internal.identity.secret}") String secret,
+            @Value("${spring.application.name}") String applicationName,
+            @Value("${internal.identity.ttl:60s}") Duration ttl) {
+        return new InternalIdentityInterceptor(new InternalIdentity(secret), applicationName, ttl);
+    }
+
+    // Appels au serveur MCP : identité interne signée
+    @Bean
+    public RestTemplate mcpRestTemplate(HttpClient httpClient, HostConnectionLimiter hostConnectionLimiter,
+                                        InternalIdentityInterceptor internalIdentityInterceptor,
+                                        @Value("${chatbot.http.mcp.read-timeout:5s}") Duration readTimeout) {
+        RestTemplate restTemplate = new RestTemplate(requestFactory(httpClient, readTimeout));
+        restTemplate.setInterceptors(List.of(hostConnectionLimiter, internalIdentityInterceptor));
+        return restTemplate;
+    }
+
+    // Appels à Ollama : service externe, sans l'en-tête d'identité interne
+    @Bean
+    public RestTemplate ollamaRestTemplate(HttpClient httpClient, HostConnectionLimiter hostConnectionLimiter,
+                                           @Value("${chatbot.http.ollama.read-timeout:60s}") Duration readTimeout) {
+        RestTemplate restTemplate = new RestTemplate(requestFactory(httpClient, readTimeout));
+        restTemplate.setInterceptors(List.of(hostConnectionLimiter));
+        return restTemplate;
+    }
+
+    private static JdkClientHttpRequestFactory requestFactory(HttpClient httpClient, Duration readTimeout) {
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(readTimeout);
+        return requestFactory;
+    }
+}
@@ -1,21 +1,56 @@
 package com.enset.chatbotservice.web;
 
 import com.enset.chatbotservice.agent.EnhancedAiAgent;
+import com.enset.chatbotservice.agent.IntentRouter;
+import com.enset.chatbotservice.agent.ResponseCache;
+import com.enset.common.http.HostConnectionLimiter;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
 
 @RestController
 public class ChatController {
 
     private final EnhancedAiAgent aiAgent;
+    private final ResponseCache responseCache;
+    private final HostConnectionLimiter hostConnectionLimiter;
+    private final IntentRouter intentRouter;
 
-    public ChatController(EnhancedAiAgent aiAgent) {
+    public ChatController(EnhancedAiAgent aiAgent, ResponseCache responseCache,
+                          HostConnectionLimiter hostConnectionLimiter, IntentRouter intentRouter) {
         this.aiAgent = aiAgent;
+        this.responseCache = responseCache;
+        this.hostConnectionLimiter = hostConnectionLimiter;
+        this.intentRouter = intentRouter;
     }
 
     @GetMapping("/chat")
     public String chat(@RequestParam String message) {
         return aiAgent.chat(message);
     }
+
+    @GetMapping(value = "/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter chatStream(@RequestParam String message) {
+        return aiAgent.chatStream(message);
+    }
+
+    @GetMapping("/chat/cache/stats")
+    public Map<String, Object> cacheStats() {
+        return responseCache.statistiques();
+    }
+
+    // Messages par intention reconnue, et part envoyée au LLM
+    @GetMapping("/chat/intents/stats")
+    public Map<String, Object> intentStats() {
+        return intentRouter.statistiques();
+    }
+
+    @GetMapping("/chat/http/stats")
+    public Map<String, Map<String, Object>> httpStats() {
+        return hostConnectionLimiter.statistiques();
+    }
 }
@@ -0,0 +1,64 @@
+package com.enset.chatbotservice;
+
+import com.enset.chatbotservice.agent.IntentRouter;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Débit du routage des intentions sur le corpus étiqueté, avec 5 000 bénéficiaires dans la copie
+ * locale (index des noms construit une fois, puis réutilisé).
+ * <p>
+ * Hors build normal : {@code mvn test -Dsurefire.excludedGroups= -Dgroups=benchmark}
+ */
+@Tag("benchmark")
+class IntentRouterBenchmarkTest {
+
+    private static final int BENEFICIAIRES = 5_000;
+    private static final int ECHAUFFEMENT = 200_000;
+    private static final int MESSAGES = 500_000;
+
+    @Test
+    void debitDuRoutage() throws IOException {
+        List<Map<String, Object>> beneficiaires = new ArrayList<>(IntentRouterTest.beneficiaires());
+        Random random = new Random(42);
+        for (int i = 0; i < BENEFICIAIRES; i++) {
+            beneficiaires.add(IntentRouterTest.beneficiaire(100 + i, mot(random, 7), mot(random, 6)));
+        }
+        List<String> messages = new ArrayList<>();
+        for (String[] exemple : IntentRouterTest.corpus()) {
+            messages.add(exemple[2]);
+        }
+        IntentRouter router = new IntentRouter(() -> beneficiaires, Clock.systemDefaultZone());
+
+        for (int i = 0; i < ECHAUFFEMENT; i++) {
+            router.router(messages.get(i % messages.size()));
+        }
+        long debut = System.nanoTime();
+        for (int i = 0; i < MESSAGES; i++) {
+            router.router(messages.get(i % messages.size()));
+        }
+        double secondes = (System.nanoTime() - debut) / 1e9;
+        double debit = MESSAGES / secondes;
+
+        System.out.printf("Routage : %.0f messages/s (%.1f µs/message), part vers le LLM %s%n",
+                debit, secondes * 1e6 / MESSAGES, router.statistiques().get("partVersLlm"));
+        assertThat(debit).isGreaterThan(10_000);
+    }
+
+    private static String mot(Random random, int longueur) {
+        StringBuilder mot = new StringBuilder(longueur);
+        for (int i = 0; i < longueur; i++) {
+            mot.append((char) ('a' + random.nextInt(26)));
+        }
+        return mot.toString();
+    }
+}
@@ -0,0 +1,125 @@
+package com.enset.chatbotservice;
+
+import com.enset.chatbotservice.agent.IntentRouter;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IntentRouterTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2025-03-15T10:00:00Z"), ZoneOffset.UTC);
+
+    private final IntentRouter router = new IntentRouter(IntentRouterTest::beneficiaires, CLOCK);
+
+    @Test
+    void corpusEtiquete() throws IOException {
+        List<String> erreurs = new ArrayList<>();
+        List<String[]> corpus = corpus();
+        for (String[] exemple : corpus) {
+            IntentRouter.Routage routage = router.router(exemple[2]);
+            String trouves = noms(routage.beneficiaires());
+            if (!routage.intention().name().equals(exemple[0]) || !trouves.equals(exemple[1])) {
+                erreurs.add(exemple[2] + " -> " + routage.intention() + " [" + trouves + "], attendu "
+                        + exemple[0] + " [" + exemple[1] + "]");
+            }
+        }
+
+        assertThat(corpus).hasSizeGreaterThan(40);
+        assertThat(erreurs).isEmpty();
+        assertThat(router.statistiques().get("messages")).isEqualTo((long) corpus.size());
+    }
+
+    @Test
+    void periodes() {
+        assertThat(router.router("total des virements vers Dupont le mois dernier").periode())
+                .isEqualTo(new IntentRouter.Periode(LocalDateTime.of(2025, 2, 1, 0, 0),
+                        LocalDateTime.of(2025, 2, 28, 23, 59, 59, 999_999_999), "le mois dernier"));
+        // Un mois à venir désigne celui de l'année précédente
+        assertThat(router.router("total des virements vers Dupont en novembre").periode().debut())
+                .isEqualTo(LocalDateTime.of(2024, 11, 1, 0, 0));
+        assertThat(router.router("total des virements vers Dupont cette semaine").periode().debut())
+                .isEqualTo(LocalDateTime.of(2025, 3, 10, 0, 0));
+        // Sans période : depuis le début de l'année
+        assertThat(router.router("combien ai-je envoyé à Dupont").periode().libelle()).isEqualTo("cette année");
+        // Une année seule n'est reconnue qu'après « en » ou « année », jamais comme montant
+        assertThat(router.router("total des virements vers Dupont sur l'année 2024").periode().libelle())
+                .isEqualTo("en 2024");
+        assertThat(router.router("total des virements de 2024 euros vers Dupont").periode().libelle())
+                .isEqualTo("cette année");
+    }
+
+    @Test
+    void indexReconstruitApresRechargementDesBeneficiaires() {
+        AtomicReference<List<Map<String, Object>>> copie = new AtomicReference<>(beneficiaires());
+        IntentRouter routeur = new IntentRouter(copie::get, CLOCK);
+        assertThat(routeur.router("rib de Lefebvre").beneficiaires()).isEmpty();
+
+        List<Map<String, Object>> rechargee = new ArrayList<>(beneficiaires());
+        rechargee.add(beneficiaire(7, "Lefebvre", "Marc"));
+        copie.set(rechargee);
+
+        assertThat(noms(routeur.router("rib de Lefebvre").beneficiaires())).isEqualTo("Marc Lefebvre");
+    }
+
+    @Test
+    void questionGeneraleNeLitPasLesBeneficiaires() {
+        IntentRouter routeur = new IntentRouter(() -> {
+            throw new AssertionError("bénéficiaires lus inutilement");
+        }, CLOCK);
+
+        assertThat(routeur.router("Bonjour, quels sont vos horaires ?").intention()).isEqualTo(IntentRouter.Intention.LLM);
+    }
+
+    // intention|bénéficiaires attendus|message
+    static List<String[]> corpus() throws IOException {
+        try (InputStream in = IntentRouterTest.class.getResourceAsStream("/intents-corpus.txt")) {
+            List<String[]> corpus = new ArrayList<>();
+            for (String ligne : new String(in.readAllBytes(), StandardCharsets.UTF_8).split("\n")) {
+                if (!ligne.isBlank() && !ligne.startsWith("#")) {
+                    corpus.add(ligne.strip().split("\\|", 3));
+                }
+            }
+            return corpus;
+        }
+    }
+
+    static List<Map<String, Object>> beneficiaires() {
+        return List.of(
+                beneficiaire(1, "Dupont", "Jean"),
+                beneficiaire(2, "Martin", "Sophie"),
+                beneficiaire(3, "Martin", "Paul"),
+                beneficiaire(4, "El Amrani", "Youssef"),
+                beneficiaire(5, "Benali", "Fatima"),
+                beneficiaire(6, "Durand", "Claire"));
+    }
+
+    static Map<String, Object> beneficiaire(long id, String nom, String prenom) {
+        Map<String, Object> beneficiaire = new HashMap<>();
+        beneficiaire.put("id", id);
+        beneficiaire.put("nom", nom);
+        beneficiaire.put("prenom", prenom);
+        beneficiaire.put("rib", String.format("FR76300010079400000000%05d", id));
+        beneficiaire.put("type", "PHYSIQUE");
+        return beneficiaire;
+    }
+
+    private static String noms(List<Map<String, Object>> beneficiaires) {
+        StringJoiner noms = new StringJoiner(";");
+        beneficiaires.forEach(b -> noms.add(b.get("prenom") + " " + b.get("nom")));
+        return noms.toString();
+    }
+}
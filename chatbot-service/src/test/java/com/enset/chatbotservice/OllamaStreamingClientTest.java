@@ -0,0 +1,129 @@
+package com.enset.chatbotservice;
+
+import com.enset.chatbotservice.agent.OllamaStreamingClient;
+import com.enset.common.http.HostConnectionLimiter;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Streaming contre un bouchon local qui imite {@code POST /api/chat} d'Ollama en mode
+ * {@code "stream": true} (NDJSON, une ligne par fragment, réponse chunked).
+ */
+class OllamaStreamingClientTest {
+
+    private static final List<Map<String, String>> MESSAGES = List.of(Map.of("role", "user", "content", "bonjour"));
+
+    private HttpServer ollama;
+    private final List<String> fragments = new CopyOnWriteArrayList<>();
+    private final CountDownLatch premierFragment = new CountDownLatch(1);
+    private final CountDownLatch fin = new CountDownLatch(1);
+    private final CountDownLatch deconnexion = new CountDownLatch(1);
+    private final AtomicReference<Duration> tempsPremierFragment = new AtomicReference<>();
+    private final AtomicReference<Exception> erreur = new AtomicReference<>();
+
+    @BeforeEach
+    void demarrerOllama() throws IOException {
+        ollama = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        ollama.createContext("/api/chat", echange -> {
+            echange.getRequestBody().readAllBytes();
+            echange.getResponseHeaders().add("Content-Type", "application/x-ndjson");
+            echange.sendResponseHeaders(200, 0);
+            boolean infini = echange.getRequestURI().getQuery() != null;
+            try (OutputStream sortie = echange.getResponseBody()) {
+                for (int i = 0; infini || i < 3; i++) {
+                    ecrire(sortie, "{\"model\":\"stub\",\"message\":{\"role\":\"assistant\",\"content\":\"mot" + i
+                            + " \"},\"done\":false}");
+                    Thread.sleep(200);
+                }
+                ecrire(sortie, "{\"model\":\"stub\",\"message\":{\"role\":\"assistant\",\"content\":\"\"},\"done\":true}");
+            } catch (IOException e) {
+                // Le client a fermé la connexion
+                deconnexion.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        ollama.start();
+    }
+
+    @AfterEach
+    void arreterOllama() {
+        ollama.stop(0);
+    }
+
+    @Test
+    void fragmentsTransmisAuFurEtAMesure() throws InterruptedException {
+        client("").stream(MESSAGES, ecouteur());
+
+        assertThat(premierFragment.await(5, TimeUnit.SECONDS)).isTrue();
+        // Le premier fragment arrive avant que le bouchon ait fini d'écrire la réponse
+        assertThat(fin.getCount()).isEqualTo(1);
+
+        assertThat(fin.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(erreur.get()).isNull();
+        assertThat(fragments).containsExactly("mot0 ", "mot1 ", "mot2 ");
+        assertThat(tempsPremierFragment.get()).isLessThan(Duration.ofMillis(500));
+    }
+
+    @Test
+    void annulationFermeLaConnexionVersOllama() throws InterruptedException {
+        OllamaStreamingClient.Appel appel = client("?infini").stream(MESSAGES, ecouteur());
+
+        assertThat(premierFragment.await(5, TimeUnit.SECONDS)).isTrue();
+        appel.annuler();
+
+        assertThat(deconnexion.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(fin.getCount()).isEqualTo(1);
+        assertThat(erreur.get()).isNull();
+    }
+
+    private OllamaStreamingClient client(String query) {
+        return new OllamaStreamingClient(HttpClient.newHttpClient(), new HostConnectionLimiter(4, Duration.ofSeconds(1)),
+                "http://localhost:" + ollama.getAddress().getPort() + "/api/chat" + query,
+                "cle-de-test", "stub");
+    }
+
+    private OllamaStreamingClient.Ecouteur ecouteur() {
+        return new OllamaStreamingClient.Ecouteur() {
+            @Override
+            public void fragment(String texte) {
+                fragments.add(texte);
+                premierFragment.countDown();
+            }
+
+            @Override
+            public void termine(Duration premier, Duration total) {
+                tempsPremierFragment.set(premier);
+                fin.countDown();
+            }
+
+            @Override
+            public void erreur(Exception e) {
+                erreur.set(e);
+                fin.countDown();
+            }
+        };
+    }
+
+    private static void ecrire(OutputStream sortie, String ligne) throws IOException {
+        sortie.write((ligne + "\n").getBytes(StandardCharsets.UTF_8));
+        sortie.flush();
+    }
+}
@@ -0,0 +1,108 @@
+package com.enset.chatbotservice;
+
+import com.enset.chatbotservice.agent.ResponseCache;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCacheTest {
+
+    private static final Duration LATENCE = Duration.ofMillis(800);
+    // Typé : null seul correspondrait aussi au constructeur Spring (Optional<OllamaEmbeddingClient>)
+    private static final Function<String, float[]> SANS_SEMANTIQUE = null;
+
+    @Test
+    void questionNormaliseeServieDepuisLeCache() {
+        ResponseCache cache = new ResponseCache(100, 10_000, Duration.ofHours(1), 0.9, SANS_SEMANTIQUE);
+
+        ResponseCache.Recherche absente = cache.rechercher("Quel est le plafond d'un virement instantané ?");
+        assertThat(absente.reponse()).isNull();
+        cache.enregistrer(absente, "15 000 euros", LATENCE);
+
+        assertThat(cache.rechercher("  quel est le PLAFOND d un virement instantane").reponse()).isEqualTo("15 000 euros");
+        Map<String, Object> statistiques = cache.statistiques();
+        assertThat(statistiques.get("hitsExacts")).isEqualTo(1L);
+        assertThat(statistiques.get("latenceEconomiseeMs")).isEqualTo(800L);
+        assertThat(statistiques.get("tauxHit")).isEqualTo(0.5);
+    }
+
+    @Test
+    void entreeExpireeNonServie() throws InterruptedException {
+        ResponseCache cache = new ResponseCache(100, 10_000, Duration.ofMillis(50), 0.9, SANS_SEMANTIQUE);
+        cache.enregistrer(cache.rechercher("question"), "réponse", LATENCE);
+
+        Thread.sleep(100);
+
+        assertThat(cache.rechercher("question").reponse()).isNull();
+    }
+
+    @Test
+    void evictionDeLEntreeLaMoinsRecemmentUtilisee() {
+        ResponseCache cache = new ResponseCache(2, 10_000, Duration.ofHours(1), 0.9, SANS_SEMANTIQUE);
+        cache.enregistrer(cache.rechercher("a"), "réponse a", LATENCE);
+        cache.enregistrer(cache.rechercher("b"), "réponse b", LATENCE);
+        // « a » redevient la plus récente : « b » est évincée à l'insertion de « c »
+        cache.rechercher("a");
+        cache.enregistrer(cache.rechercher("c"), "réponse c", LATENCE);
+
+        assertThat(cache.rechercher("a").reponse()).isEqualTo("réponse a");
+        assertThat(cache.rechercher("b").reponse()).isNull();
+        assertThat(cache.rechercher("c").reponse()).isEqualTo("réponse c");
+    }
+
+    @Test
+    void memoireBorneeEnCaracteres() {
+        ResponseCache cache = new ResponseCache(100, 20, Duration.ofHours(1), 0.9, SANS_SEMANTIQUE);
+        cache.enregistrer(cache.rechercher("a"), "0123456789", LATENCE);
+        cache.enregistrer(cache.rechercher("b"), "0123456789", LATENCE);
+        cache.enregistrer(cache.rechercher("c"), "0123456789", LATENCE);
+
+        assertThat(cache.statistiques().get("caracteres")).isEqualTo(20L);
+        assertThat(cache.statistiques().get("evictions")).isEqualTo(1L);
+        assertThat(cache.rechercher("a").reponse()).isNull();
+    }
+
+    @Test
+    void questionProcheServieParLeNiveauSemantique() {
+        // Vecteur selon la présence de quelques mots-clés : les paraphrases tombent au même endroit
+        Function<String, float[]> embeddings = texte -> new float[]{
+                texte.contains("plafond") ? 1 : 0,
+                texte.contains("instantane") ? 1 : 0,
+                texte.contains("iban") ? 1 : 0,
+                0.1f};
+        ResponseCache cache = new ResponseCache(100, 10_000, Duration.ofHours(1), 0.95, embeddings);
+        cache.enregistrer(cache.rechercher("Quel est le plafond d'un virement instantané ?"), "15 000 euros", LATENCE);
+
+        assertThat(cache.rechercher("Plafond du virement instantané, svp").reponse()).isEqualTo("15 000 euros");
+        assertThat(cache.rechercher("Comment trouver mon IBAN ?").reponse()).isNull();
+        assertThat(cache.statistiques().get("hitsSemantiques")).isEqualTo(1L);
+    }
+
+    @Test
+    void vectorisationEnPanneRetombeSurLeCacheExact() {
+        AtomicBoolean panne = new AtomicBoolean(true);
+        Function<String, float[]> embeddings = texte -> {
+            if (panne.get()) {
+                throw new IllegalStateException("Ollama injoignable");
+            }
+            return new float[]{1, 0};
+        };
+        ResponseCache cache = new ResponseCache(100, 10_000, Duration.ofHours(1), 0.95, embeddings);
+        cache.enregistrer(cache.rechercher("Quel est le plafond ?"), "15 000 euros", LATENCE);
+
+        assertThat(cache.rechercher("quel est le plafond").reponse()).isEqualTo("15 000 euros");
+        assertThat(cache.rechercher("Comment trouver mon IBAN ?").reponse()).isNull();
+        assertThat(cache.rechercher("Et mon RIB ?").reponse()).isNull();
+        assertThat(cache.statistiques().get("echecsVectorisation")).isEqualTo(3L);
+
+        // Service rétabli : le compteur d'échecs consécutifs repart de zéro
+        panne.set(false);
+        cache.rechercher("Autre question");
+        assertThat(cache.statistiques().get("echecsVectorisation")).isEqualTo(0L);
+    }
+}
@@ -0,0 +1,164 @@
+package com.enset.common.http;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limite le nombre d'appels simultanés par hôte (le client HTTP du JDK n'a pas de limite par hôte) :
+ * au-delà, l'appel attend une place au plus {@code attenteMax}, puis échoue au lieu d'empiler des
+ * threads bloqués sur un service lent. Le permis est rendu à la fermeture de la réponse.
+ * <p>
+ * Occupation et temps d'attente par hôte : {@link #statistiques()}.
+ */
+public class HostConnectionLimiter implements ClientHttpRequestInterceptor {
+
+    private final int maxParHote;
+    private final long attenteMaxNanos;
+    private final Map<String, Hote> hotes = new ConcurrentHashMap<>();
+
+    private static final class Hote {
+
+        private final Semaphore places;
+        private final LongAdder requetes = new LongAdder();
+        private final LongAdder attentes = new LongAdder();
+        private final LongAdder refus = new LongAdder();
+        private final LongAdder attenteTotaleNanos = new LongAdder();
+        private final LongAccumulator attenteMaxNanos = new LongAccumulator(Long::max, 0);
+
+        private Hote(int places) {
+            this.places = new Semaphore(places);
+        }
+    }
+
+    /**
+     * Place occupée sur un hôte ; {@link #close()} la libère (plusieurs appels sans effet).
+     */
+    public interface Permis extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+
+    public HostConnectionLimiter(int maxParHote, Duration attenteMax) {
+        this.maxParHote = maxParHote;
+        this.attenteMaxNanos = attenteMax.toNanos();
+    }
+
+    public Permis acquerir(URI uri) throws IOException {
+        String cle = uri.getHost() + ":" + port(uri);
+        Hote hote = hotes.computeIfAbsent(cle, k -> new Hote(maxParHote));
+        if (!hote.places.tryAcquire()) {
+            long debut = System.nanoTime();
+            boolean obtenue;
+            try {
+                obtenue = hote.places.tryAcquire(attenteMaxNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Attente d'une connexion vers " + cle + " interrompue");
+            }
+            long attente = System.nanoTime() - debut;
+            hote.attentes.increment();
+            hote.attenteTotaleNanos.add(attente);
+            hote.attenteMaxNanos.accumulate(attente);
+            if (!obtenue) {
+                hote.refus.increment();
+                throw new IOException("Trop d'appels simultanés vers " + cle + " (" + maxParHote + " maximum)");
+            }
+        }
+        hote.requetes.increment();
+        AtomicBoolean liberee = new AtomicBoolean();
+        return () -> {
+            if (liberee.compareAndSet(false, true)) {
+                hote.places.release();
+            }
+        };
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        Permis permis = acquerir(request.getURI());
+        try {
+            return new ReponseAvecPermis(execution.execute(request, body), permis);
+        } catch (IOException | RuntimeException e) {
+            permis.close();
+            throw e;
+        }
+    }
+
+    public Map<String, Map<String, Object>> statistiques() {
+        Map<String, Map<String, Object>> statistiques = new TreeMap<>();
+        hotes.forEach((cle, hote) -> {
+            long attentes = hote.attentes.sum();
+            Map<String, Object> parHote = new LinkedHashMap<>();
+            parHote.put("maxConnexions", maxParHote);
+            parHote.put("enCours", maxParHote - hote.places.availablePermits());
+            parHote.put("requetes", hote.requetes.sum());
+            parHote.put("attentes", attentes);
+            parHote.put("attenteMoyenneMs", attentes == 0 ? 0.0 : hote.attenteTotaleNanos.sum() / 1e6 / attentes);
+            parHote.put("attenteMaxMs", hote.attenteMaxNanos.get() / 1e6);
+            parHote.put("refus", hote.refus.sum());
+            statistiques.put(cle, parHote);
+        });
+        return statistiques;
+    }
+
+    private static int port(URI uri) {
+        if (uri.getPort() != -1) {
+            return uri.getPort();
+        }
+        return "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+    }
+
+    // RestTemplate ferme toujours la réponse après lecture du corps : c'est là que la place se libère
+    private record ReponseAvecPermis(ClientHttpResponse reponse, Permis permis) implements ClientHttpResponse {
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return reponse.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return reponse.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return reponse.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return reponse.getBody();
+        }
+
+        @Override
+        public void close() {
+            try {
+                reponse.close();
+            } finally {
+                permis.close();
+            }
+        }
+    }
+}
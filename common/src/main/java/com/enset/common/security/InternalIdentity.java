@@ -0,0 +1,103 @@
+package com.enset.common.security;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * En-tête d'identité interne : la gateway vérifie le JWT une fois et transmet aux services un
+ * en-tête {@code sujet, expiration, rôles} signé par HMAC-SHA256 avec un secret partagé.
+ * Le vérifier coûte un HMAC au lieu d'une vérification de signature RSA.
+ * <p>
+ * Format : {@code base64url(sujet \n expiration \n rôle1,rôle2) . base64url(hmac)}.
+ */
+public final class InternalIdentity {
+
+    public static final String HEADER = "X-Internal-Identity";
+    private static final String ALGORITHME = "HmacSHA256";
+    private static final int LONGUEUR_MIN_SECRET = 32;
+
+    private final SecretKeySpec cle;
+    // Mac n'est pas thread-safe
+    private final ThreadLocal<Mac> mac;
+
+    public record Identite(String sujet, Instant expiration, List<String> roles) {
+    }
+
+    /**
+     * @throws IllegalStateException si le secret est absent ou trop court : aucun secret par défaut,
+     *                               pour qu'un service mal configuré refuse de démarrer
+     */
+    public InternalIdentity(String secret) {
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalStateException(
+                    "Secret d'identité interne absent (internal.identity.secret ou INTERNAL_IDENTITY_SECRET)");
+        }
+        if (secret.length() < LONGUEUR_MIN_SECRET) {
+            throw new IllegalStateException(
+                    "Secret d'identité interne trop court (" + LONGUEUR_MIN_SECRET + " caractères minimum)");
+        }
+        this.cle = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHME);
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac instance = Mac.getInstance(ALGORITHME);
+                instance.init(cle);
+                return instance;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    public String signer(String sujet, Instant expiration, Collection<String> roles) {
+        if (sujet.indexOf('\n') >= 0 || roles.stream().anyMatch(r -> r.indexOf('\n') >= 0 || r.indexOf(',') >= 0)) {
+            throw new IllegalArgumentException("Sujet ou rôle invalide");
+        }
+        byte[] contenu = (sujet + "\n" + expiration.getEpochSecond() + "\n" + String.join(",", roles))
+                .getBytes(StandardCharsets.UTF_8);
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString(contenu) + "." + encoder.encodeToString(mac.get().doFinal(contenu));
+    }
+
+    /**
+     * @return l'identité si la signature est correcte et l'en-tête non expiré, vide sinon
+     */
+    public Optional<Identite> verifier(String valeur) {
+        if (valeur == null) {
+            return Optional.empty();
+        }
+        int point = valeur.indexOf('.');
+        if (point <= 0) {
+            return Optional.empty();
+        }
+        try {
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            byte[] contenu = decoder.decode(valeur.substring(0, point));
+            byte[] signature = decoder.decode(valeur.substring(point + 1));
+            if (!MessageDigest.isEqual(signature, mac.get().doFinal(contenu))) {
+                return Optional.empty();
+            }
+            String[] champs = new String(contenu, StandardCharsets.UTF_8).split("\n", -1);
+            if (champs.length != 3) {
+                return Optional.empty();
+            }
+            Instant expiration = Instant.ofEpochSecond(Long.parseLong(champs[1]));
+            if (!Instant.now().isBefore(expiration)) {
+                return Optional.empty();
+            }
+            List<String> roles = champs[2].isEmpty() ? List.of() : Arrays.asList(champs[2].split(","));
+            return Optional.of(new Identite(champs[0], expiration, roles));
+        } catch (IllegalArgumentException e) {
+            // Base64 ou nombre mal formé
+            return Optional.empty();
+        }
+    }
+}
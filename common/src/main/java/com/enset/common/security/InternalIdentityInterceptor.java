@@ -0,0 +1,52 @@
+package com.enset.common.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Ajoute l'en-tête {@link InternalIdentity#HEADER} aux appels RestTemplate : celui de la requête
+ * en cours s'il est valide (identité de l'utilisateur transmise par la gateway), sinon une identité
+ * de service {@code service:<nom de l'application>}.
+ */
+public class InternalIdentityInterceptor implements ClientHttpRequestInterceptor {
+
+    private final InternalIdentity internalIdentity;
+    private final String sujetService;
+    private final Duration ttl;
+
+    public InternalIdentityInterceptor(InternalIdentity internalIdentity, String applicationName, Duration ttl) {
+        this.internalIdentity = internalIdentity;
+        this.sujetService = "service:" + applicationName;
+        this.ttl = ttl;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        request.getHeaders().set(InternalIdentity.HEADER, identite());
+        return execution.execute(request, body);
+    }
+
+    private String identite() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servlet) {
+            HttpServletRequest entrante = servlet.getRequest();
+            String valeur = entrante.getHeader(InternalIdentity.HEADER);
+            if (internalIdentity.verifier(valeur).isPresent()) {
+                return valeur;
+            }
+        }
+        return internalIdentity.signer(sujetService, Instant.now().plus(ttl), List.of());
+    }
+}
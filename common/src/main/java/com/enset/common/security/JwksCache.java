@@ -0,0 +1,146 @@
+package com.enset.common.security;
+
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Clés publiques de Keycloak (JWKS) gardées en mémoire et relues en tâche de fond.
+ * <p>
+ * Chaque lecture réussie est recopiée dans un fichier local : si Keycloak est injoignable au
+ * démarrage, le service démarre avec les dernières clés connues. Une clé inconnue (rotation)
+ * déclenche une relecture immédiate, au plus une fois par {@code intervalleMin}.
+ * <p>
+ * Chaque service l'adapte à son décodeur : {@code JWKSource} bloquant, ou flux réactif qui
+ * relit hors des threads Netty.
+ */
+public class JwksCache {
+
+    private static final Logger log = LoggerFactory.getLogger(JwksCache.class);
+
+    private final URI jwkSetUri;
+    private final Path fichier;
+    private final Duration intervalle;
+    private final Duration intervalleMin;
+    private final Duration timeout;
+    private final AtomicReference<JWKSet> jwks = new AtomicReference<>(new JWKSet());
+    private HttpClient httpClient;
+    private ScheduledExecutorService planificateur;
+    private long dernierEssai;
+
+    public JwksCache(URI jwkSetUri, Path fichier, Duration intervalle, Duration intervalleMin, Duration timeout) {
+        this.jwkSetUri = jwkSetUri;
+        this.fichier = fichier;
+        this.intervalle = intervalle;
+        this.intervalleMin = intervalleMin;
+        this.timeout = timeout;
+    }
+
+    public void demarrer() {
+        httpClient = HttpClient.newBuilder().connectTimeout(timeout).build();
+        if (!rafraichir()) {
+            chargerFichier();
+        }
+        planificateur = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("jwks-refresh").daemon().factory());
+        planificateur.scheduleWithFixedDelay(this::rafraichir,
+                intervalle.toMillis(), intervalle.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void arreter() {
+        if (planificateur != null) {
+            planificateur.shutdownNow();
+        }
+    }
+
+    /**
+     * Clés en mémoire correspondant au sélecteur, sans jamais appeler Keycloak.
+     */
+    public List<JWK> selectionner(JWKSelector selector) {
+        return selector.select(jwks.get());
+    }
+
+    /**
+     * Comme {@link #selectionner(JWKSelector)}, mais relit le JWKS (appel HTTP bloquant) si aucune
+     * clé ne correspond et que la dernière lecture date d'au moins {@code intervalleMin}.
+     */
+    public List<JWK> selectionnerOuRelire(JWKSelector selector) {
+        List<JWK> cles = selectionner(selector);
+        if (cles.isEmpty() && rafraichirSiPermis()) {
+            cles = selectionner(selector);
+        }
+        return cles;
+    }
+
+    private synchronized boolean rafraichirSiPermis() {
+        if (System.nanoTime() - dernierEssai < intervalleMin.toNanos()) {
+            return false;
+        }
+        return rafraichir();
+    }
+
+    synchronized boolean rafraichir() {
+        dernierEssai = System.nanoTime();
+        try {
+            HttpRequest request = HttpRequest.newBuilder(jwkSetUri).timeout(timeout).GET().build();
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IOException("HTTP " + response.statusCode());
+            }
+            JWKSet nouvelles = JWKSet.parse(response.body());
+            jwks.set(nouvelles);
+            sauvegarder(nouvelles);
+            return true;
+        } catch (IOException | ParseException e) {
+            log.warn("JWKS indisponible sur {} ({}), clés en mémoire conservées", jwkSetUri, e.getMessage());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void chargerFichier() {
+        if (!Files.exists(fichier)) {
+            log.warn("Aucune copie locale du JWKS ({}) : les jetons seront refusés jusqu'à la prochaine lecture", fichier);
+            return;
+        }
+        try {
+            jwks.set(JWKSet.parse(Files.readString(fichier)));
+            log.info("JWKS chargé depuis la copie locale {}", fichier);
+        } catch (IOException | ParseException e) {
+            log.warn("Copie locale du JWKS illisible ({})", e.getMessage());
+        }
+    }
+
+    private void sauvegarder(JWKSet cles) {
+        try {
+            Path parent = fichier.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temporaire = Files.createTempFile(parent, "jwks", ".tmp");
+            // toString() ne sérialise que les clés publiques
+            Files.writeString(temporaire, cles.toString());
+            Files.move(temporaire, fichier, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Impossible d'écrire la copie locale du JWKS ({})", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.enset.common;
+
+import com.enset.common.http.HostConnectionLimiter;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HostConnectionLimiterTest {
+
+    private static final URI MCP = URI.create("http://localhost:8084/api/mcp/beneficiaries");
+    private static final URI OLLAMA = URI.create("https://ollama.com/api/chat");
+
+    @Test
+    void appelRefuseQuandLHoteEstSature() throws IOException {
+        HostConnectionLimiter limiter = new HostConnectionLimiter(1, Duration.ofMillis(100));
+        HostConnectionLimiter.Permis occupe = limiter.acquerir(MCP);
+
+        assertThatThrownBy(() -> limiter.acquerir(MCP)).isInstanceOf(IOException.class);
+        // Les places sont comptées par hôte
+        limiter.acquerir(OLLAMA).close();
+
+        occupe.close();
+        occupe.close();
+        limiter.acquerir(MCP).close();
+
+        Map<String, Object> mcp = limiter.statistiques().get("localhost:8084");
+        assertThat(mcp.get("requetes")).isEqualTo(2L);
+        assertThat(mcp.get("refus")).isEqualTo(1L);
+        assertThat(mcp.get("enCours")).isEqualTo(0);
+        assertThat(limiter.statistiques()).containsKey("ollama.com:443");
+    }
+
+    @Test
+    void attenteMesureeQuandUnePlaceSeLibere() throws Exception {
+        HostConnectionLimiter limiter = new HostConnectionLimiter(1, Duration.ofSeconds(2));
+        HostConnectionLimiter.Permis occupe = limiter.acquerir(MCP);
+        CompletableFuture.delayedExecutor(150, TimeUnit.MILLISECONDS).execute(occupe::close);
+
+        limiter.acquerir(MCP).close();
+
+        Map<String, Object> mcp = limiter.statistiques().get("localhost:8084");
+        assertThat(mcp.get("attentes")).isEqualTo(1L);
+        assertThat((double) mcp.get("attenteMaxMs")).isGreaterThanOrEqualTo(100.0);
+        assertThat(mcp.get("refus")).isEqualTo(0L);
+    }
+}
@@ -0,0 +1,42 @@
+package com.enset.common;
+
+import com.enset.common.security.InternalIdentity;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InternalIdentityTest {
+
+    private final InternalIdentity internalIdentity = new InternalIdentity("secret-de-test-de-trente-deux-caracteres");
+
+    @Test
+    void enTeteSigneEstRelu() {
+        String enTete = internalIdentity.signer("alice", Instant.now().plusSeconds(60), List.of("SCOPE_profile"));
+
+        InternalIdentity.Identite identite = internalIdentity.verifier(enTete).orElseThrow();
+        assertThat(identite.sujet()).isEqualTo("alice");
+        assertThat(identite.roles()).containsExactly("SCOPE_profile");
+    }
+
+    @Test
+    void enTeteFalsifieOuExpireRefuse() {
+        String autreSecret = new InternalIdentity("un-autre-secret-de-trente-deux-caracteres")
+                .signer("alice", Instant.now().plusSeconds(60), List.of());
+        String expire = internalIdentity.signer("alice", Instant.now().minusSeconds(1), List.of());
+
+        assertThat(internalIdentity.verifier(autreSecret)).isEmpty();
+        assertThat(internalIdentity.verifier(expire)).isEmpty();
+        assertThat(internalIdentity.verifier("pas-un-en-tete")).isEmpty();
+    }
+
+    @Test
+    void secretAbsentOuCourtEmpecheLeDemarrage() {
+        assertThatThrownBy(() -> new InternalIdentity(null)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> new InternalIdentity("")).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> new InternalIdentity("trop-court")).isInstanceOf(IllegalStateException.class);
+    }
+}
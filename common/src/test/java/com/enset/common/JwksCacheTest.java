@@ -0,0 +1,102 @@
+package com.enset.common;
+
+import com.enset.common.security.JwksCache;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwksCacheTest {
+
+    @TempDir
+    Path dossier;
+
+    private final AtomicReference<JWKSet> publiees = new AtomicReference<>();
+    private final AtomicInteger lectures = new AtomicInteger();
+    private HttpServer keycloak;
+    private URI jwkSetUri;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        keycloak = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        keycloak.createContext("/certs", exchange -> {
+            lectures.incrementAndGet();
+            byte[] corps = publiees.get().toString().getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, corps.length);
+            exchange.getResponseBody().write(corps);
+            exchange.close();
+        });
+        keycloak.start();
+        jwkSetUri = URI.create("http://127.0.0.1:" + keycloak.getAddress().getPort() + "/certs");
+    }
+
+    @AfterEach
+    void tearDown() {
+        keycloak.stop(0);
+    }
+
+    @Test
+    void copieLocaleRepriseQuandKeycloakEstInjoignable() throws Exception {
+        RSAKey cle = new RSAKeyGenerator(2048).keyID("k1").generate();
+        publiees.set(new JWKSet(cle));
+        Path fichier = dossier.resolve("jwks.json");
+
+        JwksCache premier = cache(jwkSetUri, fichier, Duration.ofSeconds(30));
+        premier.demarrer();
+        premier.arreter();
+        keycloak.stop(0);
+
+        JwksCache apresRedemarrage = cache(jwkSetUri, fichier, Duration.ofSeconds(30));
+        apresRedemarrage.demarrer();
+        assertThat(apresRedemarrage.selectionner(selecteur("k1")))
+                .singleElement()
+                .satisfies(jwk -> assertThat(jwk.isPrivate()).isFalse());
+        apresRedemarrage.arreter();
+    }
+
+    @Test
+    void cleInconnueRelitLeJwksAuPlusUneFoisParIntervalle() throws Exception {
+        RSAKey k1 = new RSAKeyGenerator(2048).keyID("k1").generate();
+        RSAKey k2 = new RSAKeyGenerator(2048).keyID("k2").generate();
+        publiees.set(new JWKSet(k1));
+        JwksCache jwksCache = cache(jwkSetUri, dossier.resolve("jwks.json"), Duration.ofSeconds(1));
+        jwksCache.demarrer();
+        assertThat(lectures.get()).isEqualTo(1);
+
+        // Rotation côté Keycloak : la nouvelle clé n'est connue qu'après relecture
+        publiees.set(new JWKSet(k2));
+        assertThat(jwksCache.selectionner(selecteur("k2"))).isEmpty();
+        assertThat(jwksCache.selectionnerOuRelire(selecteur("k2"))).isEmpty();
+        assertThat(lectures.get()).isEqualTo(1);
+
+        Thread.sleep(1100);
+        assertThat(jwksCache.selectionnerOuRelire(selecteur("k2"))).hasSize(1);
+        assertThat(jwksCache.selectionnerOuRelire(selecteur("inconnue"))).isEmpty();
+        assertThat(lectures.get()).isEqualTo(2);
+        jwksCache.arreter();
+    }
+
+    private static JwksCache cache(URI jwkSetUri, Path fichier, Duration intervalleMin) {
+        return new JwksCache(jwkSetUri, fichier, Duration.ofMinutes(5), intervalleMin, Duration.ofSeconds(1));
+    }
+
+    private static JWKSelector selecteur(String kid) {
+        return new JWKSelector(new JWKMatcher.Builder().keyID(kid).build());
+    }
+}
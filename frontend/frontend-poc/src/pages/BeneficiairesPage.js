@@ -4,22 +4,37 @@ import { useBeneficiaire } from '../context/BeneficiaireContext';
 import LoadingSpinner from '../components/LoadingSpinner';
 import Modal from '../components/Modal';
 import BeneficiaireForm from '../components/BeneficiaireForm';
+import { beneficiaireService } from '../services/api';
 
 const BeneficiairesPage = () => {
   const { beneficiaires, loading, error, fetchBeneficiaires, deleteBeneficiaire } = useBeneficiaire();
   const [isModalOpen, setIsModalOpen] = useState(false);
   const [editingBeneficiaire, setEditingBeneficiaire] = useState(null);
   const [searchTerm, setSearchTerm] = useState('');
+  const [searchResults, setSearchResults] = useState(null);
 
   useEffect(() => {
     fetchBeneficiaires();
   }, [fetchBeneficiaires]);
 
-  const filteredBeneficiaires = beneficiaires.filter(beneficiaire =>
-    beneficiaire.nom.toLowerCase().includes(searchTerm.toLowerCase()) ||
-    beneficiaire.prenom.toLowerCase().includes(searchTerm.toLowerCase()) ||
-    beneficiaire.rib.includes(searchTerm)
-  );
+  // Recherche côté serveur (index en mémoire du service bénéficiaire), déclenchée après la saisie
+  useEffect(() => {
+    if (!searchTerm.trim()) {
+      setSearchResults(null);
+      return undefined;
+    }
+    const timer = setTimeout(async () => {
+      try {
+        const response = await beneficiaireService.search(searchTerm.trim(), 0, 50);
+        setSearchResults(response.data.content);
+      } catch (err) {
+        setSearchResults([]);
+      }
+    }, 250);
+    return () => clearTimeout(timer);
+  }, [searchTerm, beneficiaires]);
+
+  const filteredBeneficiaires = searchResults ?? beneficiaires;
 
   const handleEdit = (beneficiaire) => {
     setEditingBeneficiaire(beneficiaire);
@@ -56,6 +56,8 @@ export const beneficiaireService = {
   delete: (id) => api.delete(`beneficiaire-service/beneficiaires/${id}`),
   checkExists: (id) => api.get(`beneficiaire-service/beneficiaires/${id}/exists`),
   getByRib: (rib) => api.get(`beneficiaire-service/beneficiaires/rib/${rib}`),
+  search: (q, page = 0, size = 20) =>
+    api.get('beneficiaire-service/beneficiaires/search', { params: { q, page, size } }),
 };
 
 // Service Virements
@@ -0,0 +1,24 @@
+package com.enset.gatewayservice.config;
+
+import com.enset.gatewayservice.filter.InMemoryRateLimitStore;
+import com.enset.gatewayservice.filter.RateLimitStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class RateLimitConfig {
+
+    // Une seule gateway ; pour plusieurs instances, déclarer un RateLimitStore partagé
+    // avec gateway.rate-limit.store=<autre valeur>
+    @Bean
+    @ConditionalOnProperty(name = "gateway.rate-limit.store", havingValue = "memory", matchIfMissing = true)
+    public RateLimitStore inMemoryRateLimitStore(
+            @Value("${gateway.rate-limit.max-clients:100000}") long maxClients,
+            @Value("${gateway.rate-limit.idle-expiry:10m}") Duration inactivite) {
+        return new InMemoryRateLimitStore(maxClients, inactivite);
+    }
+}
@@ -1,10 +1,31 @@
 package com.enset.gatewayservice.config;
 
+import com.enset.gatewayservice.security.CachingReactiveJwtDecoder;
+import com.enset.common.security.InternalIdentity;
+import com.enset.common.security.JwksCache;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
 import org.springframework.security.web.server.SecurityWebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
 
 @Configuration
 public class SecurityConfig {
@@ -32,4 +53,46 @@ public class SecurityConfig {
 
         return http.build();
     }
+
+    @Bean
+    public InternalIdentity internalIdentity(@Value("${internal.identity.secret}") String secret) {
+        return new InternalIdentity(secret);
+    }
+
+    // Clés de Keycloak en mémoire, relues en tâche de fond, avec copie locale de secours
+    @Bean(initMethod = "demarrer", destroyMethod = "arreter")
+    public JwksCache jwksCache(@Value("${spring.security.oauth2.resourceserver.jwt.jwk-set-uri}") URI jwkSetUri,
+                               @Value("${security.jwks.cache-file}") Path fichier,
+                               @Value("${security.jwks.refresh-interval:5m}") Duration intervalle,
+                               @Value("${security.jwks.min-refresh-interval:30s}") Duration intervalleMin,
+                               @Value("${security.jwks.timeout:3s}") Duration timeout) {
+        return new JwksCache(jwkSetUri, fichier, intervalle, intervalleMin, timeout);
+    }
+
+    // Signature vérifiée avec le JWKS en mémoire, puis jeton conservé jusqu'à son expiration
+    @Bean
+    public ReactiveJwtDecoder reactiveJwtDecoder(JwksCache jwksCache, MeterRegistry meterRegistry,
+                                                 @Value("${spring.security.oauth2.resourceserver.jwt.issuer-uri}") String issuer,
+                                                 @Value("${security.jwt.cache.max-size:10000}") long maxSize,
+                                                 @Value("${security.jwt.cache.max-ttl:5m}") Duration maxTtl) {
+        NimbusReactiveJwtDecoder decoder = NimbusReactiveJwtDecoder
+                .withJwkSource(jwt -> cles(jwksCache, jwt.getHeader()))
+                .jwsAlgorithm(SignatureAlgorithm.RS256)
+                .build();
+        decoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(issuer));
+        return new CachingReactiveJwtDecoder(decoder, maxSize, maxTtl, meterRegistry);
+    }
+
+    // Clés en mémoire sur le thread appelant ; la relecture éventuelle (appel HTTP bloquant)
+    // se fait hors des threads Netty
+    private static Flux<JWK> cles(JwksCache jwksCache, JWSHeader header) {
+        JWKSelector selector = new JWKSelector(JWKMatcher.forJWSHeader(header));
+        List<JWK> cles = jwksCache.selectionner(selector);
+        if (!cles.isEmpty()) {
+            return Flux.fromIterable(cles);
+        }
+        return Mono.fromCallable(() -> jwksCache.selectionnerOuRelire(selector))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMapIterable(liste -> liste);
+    }
 }
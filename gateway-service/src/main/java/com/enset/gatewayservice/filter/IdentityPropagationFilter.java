@@ -0,0 +1,76 @@
+package com.enset.gatewayservice.filter;
+
+import com.enset.common.security.InternalIdentity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.security.Principal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Transmet aux services l'identité déjà vérifiée par la gateway dans l'en-tête signé
+ * {@link InternalIdentity#HEADER} : les services n'ont plus à revérifier la signature du JWT.
+ * L'en-tête expire avec le jeton, et au plus tard après {@code internal.identity.ttl}.
+ */
+@Component
+public class IdentityPropagationFilter implements GlobalFilter, Ordered {
+
+    public static final int ORDER = RateLimitFilter.ORDER - 1;
+
+    @Value("${internal.identity.enabled:true}")
+    private boolean enabled;
+
+    @Value("${internal.identity.ttl:60s}")
+    private Duration ttl;
+
+    @Autowired
+    private InternalIdentity internalIdentity;
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Mono<String> identite = enabled
+                ? exchange.getPrincipal().map(this::signer).defaultIfEmpty("")
+                : Mono.just("");
+        return identite.flatMap(valeur -> {
+            ServerHttpRequest request = exchange.getRequest().mutate()
+                    .headers(headers -> {
+                        // Un en-tête d'identité envoyé par le client n'est jamais transmis
+                        headers.remove(InternalIdentity.HEADER);
+                        if (!valeur.isEmpty()) {
+                            headers.set(InternalIdentity.HEADER, valeur);
+                        }
+                    })
+                    .build();
+            return chain.filter(exchange.mutate().request(request).build());
+        });
+    }
+
+    private String signer(Principal principal) {
+        Instant expiration = Instant.now().plus(ttl);
+        if (principal instanceof JwtAuthenticationToken jwt && jwt.getToken().getExpiresAt() != null
+                && jwt.getToken().getExpiresAt().isBefore(expiration)) {
+            expiration = jwt.getToken().getExpiresAt();
+        }
+        List<String> roles = principal instanceof Authentication authentication
+                ? authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList()
+                : List.of();
+        return internalIdentity.signer(principal.getName(), expiration, roles);
+    }
+}
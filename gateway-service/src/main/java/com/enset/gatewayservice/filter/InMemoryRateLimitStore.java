@@ -0,0 +1,51 @@
+package com.enset.gatewayservice.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Seaux de jetons locaux à la gateway. Un seau inutilisé pendant {@code inactivite} est oublié
+ * (il serait de toute façon plein), ce qui borne la mémoire au nombre de clients actifs.
+ */
+public class InMemoryRateLimitStore implements RateLimitStore {
+
+    private final Cache<String, Seau> seaux;
+
+    public InMemoryRateLimitStore(long maxSeaux, Duration inactivite) {
+        this.seaux = Caffeine.newBuilder()
+                .maximumSize(maxSeaux)
+                .expireAfterAccess(inactivite)
+                .build();
+    }
+
+    @Override
+    public Mono<Decision> consommer(String cle, long capacite, double jetonsParSeconde) {
+        Seau seau = seaux.get(cle, k -> new Seau(capacite));
+        return Mono.just(seau.consommer(capacite, jetonsParSeconde));
+    }
+
+    private static final class Seau {
+
+        private double jetons;
+        private long dernierRemplissage = System.nanoTime();
+
+        private Seau(long capacite) {
+            this.jetons = capacite;
+        }
+
+        synchronized Decision consommer(long capacite, double jetonsParSeconde) {
+            long maintenant = System.nanoTime();
+            jetons = Math.min(capacite, jetons + (maintenant - dernierRemplissage) / 1e9 * jetonsParSeconde);
+            dernierRemplissage = maintenant;
+            if (jetons >= 1) {
+                jetons -= 1;
+                return new Decision(true, (long) jetons, Duration.ZERO);
+            }
+            long attenteNanos = (long) Math.ceil((1 - jetons) / jetonsParSeconde * 1e9);
+            return new Decision(false, 0, Duration.ofNanos(attenteNanos));
+        }
+    }
+}
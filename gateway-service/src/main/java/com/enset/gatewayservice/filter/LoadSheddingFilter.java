@@ -0,0 +1,151 @@
+package com.enset.gatewayservice.filter;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Délestage par service : répond 503 immédiatement quand le backend a trop de requêtes en cours,
+ * ou une partie des requêtes quand sa latence moyenne (EWMA, jusqu'aux en-têtes de la réponse)
+ * dépasse le seuil. La part rejetée croît avec le dépassement mais reste sous
+ * {@code max-shed-ratio}, pour que les requêtes acceptées continuent de mesurer la latence et que
+ * le délestage cesse dès qu'elle redescend.
+ * <p>
+ * Placé après le cache de réponses : les lectures servies par la gateway ne sont jamais délestées.
+ */
+@Component
+public class LoadSheddingFilter implements GlobalFilter, Ordered {
+
+    public static final int ORDER = 0;
+
+    @Value("${gateway.shedding.enabled:true}")
+    private boolean enabled;
+
+    @Value("${gateway.shedding.max-in-flight:200}")
+    private int maxEnCours;
+
+    @Value("${gateway.shedding.latency-threshold:2s}")
+    private Duration seuilLatence;
+
+    @Value("${gateway.shedding.ewma-alpha:0.2}")
+    private double alpha;
+
+    @Value("${gateway.shedding.max-shed-ratio:0.9}")
+    private double partMaxRejetee;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Sources du temps (nanosecondes) et du tirage de délestage, remplacées dans les tests
+    private LongSupplier horloge = System::nanoTime;
+    private DoubleSupplier tirage = () -> ThreadLocalRandom.current().nextDouble();
+
+    private final Map<String, EtatService> etats = new ConcurrentHashMap<>();
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!enabled) {
+            return chain.filter(exchange);
+        }
+        String service = Routes.service(exchange);
+        EtatService etat = etats.computeIfAbsent(service, this::enregistrer);
+
+        int limite = environment.getProperty(
+                "gateway.shedding.services." + service + ".max-in-flight", Integer.class, maxEnCours);
+        if (etat.enCours.incrementAndGet() > limite) {
+            etat.enCours.decrementAndGet();
+            return rejeter(exchange, service, "en-cours");
+        }
+        double partRejetee = etat.partARejeter(seuilLatence.toNanos(), partMaxRejetee);
+        if (partRejetee > 0 && tirage.getAsDouble() < partRejetee) {
+            etat.enCours.decrementAndGet();
+            return rejeter(exchange, service, "latence");
+        }
+
+        long debut = horloge.getAsLong();
+        AtomicBoolean mesuree = new AtomicBoolean();
+        // Latence mesurée jusqu'à l'envoi des en-têtes : un export ou un flux SSE reste ouvert
+        // longtemps sans que le backend soit lent
+        exchange.getResponse().beforeCommit(() -> {
+            if (mesuree.compareAndSet(false, true)) {
+                etat.mesurer(horloge.getAsLong() - debut, alpha);
+            }
+            return Mono.empty();
+        });
+        return chain.filter(exchange).doFinally(signal -> {
+            etat.enCours.decrementAndGet();
+            // Erreur avant toute réponse : durée totale. Une annulation (client parti) ne dit rien
+            // de la latence du backend
+            if (signal != SignalType.CANCEL && mesuree.compareAndSet(false, true)) {
+                etat.mesurer(horloge.getAsLong() - debut, alpha);
+            }
+        });
+    }
+
+    private Mono<Void> rejeter(ServerWebExchange exchange, String service, String raison) {
+        meterRegistry.counter("gateway.requests.rejected", "service", service, "raison", raison).increment();
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+        return response.setComplete();
+    }
+
+    private EtatService enregistrer(String service) {
+        EtatService etat = new EtatService();
+        Gauge.builder("gateway.backend.in-flight", etat.enCours, AtomicInteger::get)
+                .tag("service", service)
+                .register(meterRegistry);
+        Gauge.builder("gateway.backend.latency.ewma", etat, e -> e.latenceNanos / 1e9)
+                .tag("service", service)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        return etat;
+    }
+
+    private static final class EtatService {
+
+        private final AtomicInteger enCours = new AtomicInteger();
+        private volatile double latenceNanos;
+
+        synchronized void mesurer(long dureeNanos, double alpha) {
+            latenceNanos = latenceNanos == 0 ? dureeNanos : alpha * dureeNanos + (1 - alpha) * latenceNanos;
+        }
+
+        double partARejeter(long seuilNanos, double partMax) {
+            double latence = latenceNanos;
+            if (latence <= seuilNanos) {
+                return 0;
+            }
+            return Math.min(partMax, (latence - seuilNanos) / seuilNanos);
+        }
+    }
+}
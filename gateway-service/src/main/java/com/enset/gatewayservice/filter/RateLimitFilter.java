@@ -0,0 +1,96 @@
+package com.enset.gatewayservice.filter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.security.Principal;
+import java.time.Duration;
+
+/**
+ * Limite le débit de chaque client (sujet du JWT, adresse IP à défaut) sur chaque service par
+ * seau de jetons. Au-delà, la gateway répond 429 sans contacter le backend.
+ * <p>
+ * Capacité et débit par défaut surchargeables par service :
+ * {@code gateway.rate-limit.services.<service>.capacity} et {@code ...refill-per-second}.
+ */
+@Component
+public class RateLimitFilter implements GlobalFilter, Ordered {
+
+    // Avant le cache : un client trop bavard est limité même si ses lectures sont en cache
+    public static final int ORDER = ResponseCacheFilter.ORDER - 1;
+
+    @Value("${gateway.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${gateway.rate-limit.capacity:100}")
+    private long capacite;
+
+    @Value("${gateway.rate-limit.refill-per-second:20}")
+    private double jetonsParSeconde;
+
+    @Autowired
+    private RateLimitStore rateLimitStore;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!enabled) {
+            return chain.filter(exchange);
+        }
+        String service = Routes.service(exchange);
+        long capaciteService = environment.getProperty(
+                "gateway.rate-limit.services." + service + ".capacity", Long.class, capacite);
+        double debitService = environment.getProperty(
+                "gateway.rate-limit.services." + service + ".refill-per-second", Double.class, jetonsParSeconde);
+
+        return exchange.getPrincipal()
+                .map(Principal::getName)
+                .switchIfEmpty(Mono.fromSupplier(() -> "ip:" + adresse(exchange)))
+                .flatMap(client -> rateLimitStore.consommer(client + "|" + service, capaciteService, debitService)
+                        // Stockage partagé indisponible : on laisse passer plutôt que de tout bloquer
+                        .onErrorReturn(new RateLimitStore.Decision(true, -1, Duration.ZERO)))
+                .flatMap(decision -> {
+                    ServerHttpResponse response = exchange.getResponse();
+                    if (decision.restants() >= 0) {
+                        response.getHeaders().set("X-RateLimit-Limit", String.valueOf(capaciteService));
+                        response.getHeaders().set("X-RateLimit-Remaining", String.valueOf(decision.restants()));
+                    }
+                    if (decision.acceptee()) {
+                        return chain.filter(exchange);
+                    }
+                    meterRegistry.counter("gateway.requests.rejected", "service", service, "raison", "rate-limit")
+                            .increment();
+                    response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+                    response.getHeaders().set(HttpHeaders.RETRY_AFTER,
+                            String.valueOf(Math.max(1, (decision.reessayer().toMillis() + 999) / 1000)));
+                    return response.setComplete();
+                });
+    }
+
+    private static String adresse(ServerWebExchange exchange) {
+        InetSocketAddress adresse = exchange.getRequest().getRemoteAddress();
+        return adresse == null || adresse.getAddress() == null ? "inconnue" : adresse.getAddress().getHostAddress();
+    }
+}
@@ -0,0 +1,28 @@
+package com.enset.gatewayservice.filter;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Stockage des seaux de jetons de {@link RateLimitFilter}. L'implémentation en mémoire suffit
+ * pour une seule gateway ; derrière plusieurs instances, fournir une implémentation partagée
+ * (Redis, Hazelcast...) et la sélectionner avec {@code gateway.rate-limit.store}.
+ */
+public interface RateLimitStore {
+
+    /**
+     * Retire un jeton du seau {@code cle}, créé plein s'il n'existe pas encore.
+     *
+     * @param capacite        nombre maximal de jetons (taille des rafales autorisées)
+     * @param jetonsParSeconde débit de remplissage
+     */
+    Mono<Decision> consommer(String cle, long capacite, double jetonsParSeconde);
+
+    /**
+     * @param restants  jetons restant après la requête
+     * @param reessayer délai avant qu'un jeton soit disponible (zéro si la requête est acceptée)
+     */
+    record Decision(boolean acceptee, long restants, Duration reessayer) {
+    }
+}
@@ -0,0 +1,418 @@
+package com.enset.gatewayservice.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.io.ByteArrayOutputStream;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache en mémoire des réponses GET, borné en octets (chaque instance de la gateway a le sien).
+ * <p>
+ * Seules les réponses 200 que le backend déclare réutilisables sont conservées
+ * ({@code s-maxage} ou {@code max-age}, sans {@code no-store} ni {@code no-cache}). La clé contient
+ * l'utilisateur authentifié, une réponse n'est donc jamais servie à un autre utilisateur.
+ * Une entrée périmée qui porte un ETag est revalidée par une requête conditionnelle plutôt que
+ * relue. Les requêtes identiques qui arrivent pendant un défaut de cache attendent la première au
+ * lieu d'appeler le backend.
+ */
+@Component
+public class ResponseCacheFilter implements GlobalFilter, Ordered {
+
+    // Avant NettyWriteResponseFilter (-1), qui écrit le corps dans la réponse décorée
+    public static final int ORDER = -2;
+
+    // En-têtes rejoués depuis le cache ; les autres (CORS, sécurité) sont ceux de la requête courante
+    private static final List<String> ENTETES_CONSERVES = List.of(
+            HttpHeaders.CONTENT_TYPE, HttpHeaders.CONTENT_ENCODING, HttpHeaders.CONTENT_LANGUAGE,
+            HttpHeaders.ETAG, HttpHeaders.LAST_MODIFIED, HttpHeaders.CACHE_CONTROL, HttpHeaders.VARY);
+    private static final Set<HttpMethod> METHODES_SURES = Set.of(HttpMethod.GET, HttpMethod.HEAD,
+            HttpMethod.OPTIONS, HttpMethod.TRACE);
+
+    @Value("${gateway.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${gateway.cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    @Value("${gateway.cache.max-entry-bytes:1048576}")
+    private int maxEntryBytes;
+
+    @Value("${gateway.cache.max-ttl:5m}")
+    private Duration maxTtl;
+
+    // Durée de conservation d'une entrée périmée avec ETag, en vue d'une revalidation
+    @Value("${gateway.cache.revalidation-window:10m}")
+    private Duration revalidationWindow;
+
+    @Value("${gateway.cache.coalescing-timeout:5s}")
+    private Duration coalescingTimeout;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache<String, CachedResponse> cache;
+    private final Map<String, Sinks.One<Optional<CachedResponse>>> enCours = new ConcurrentHashMap<>();
+    private final Map<String, RouteStats> statsParRoute = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String cle, CachedResponse reponse) -> cle.length() + reponse.body().length)
+                .expireAfter(Expiry.writing((String cle, CachedResponse reponse) -> reponse.retention()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "gatewayResponses");
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!enabled || request.getMethod() == HttpMethod.HEAD || request.getMethod() == HttpMethod.OPTIONS) {
+            return chain.filter(exchange);
+        }
+        String routeId = Routes.service(exchange);
+        if (!METHODES_SURES.contains(request.getMethod())) {
+            // Écriture : les lectures conservées pour cette route peuvent être obsolètes
+            invalider(routeId);
+            return chain.filter(exchange).doFinally(signal -> invalider(routeId));
+        }
+        if (request.getMethod() != HttpMethod.GET || request.getHeaders().containsKey(HttpHeaders.RANGE)) {
+            return chain.filter(exchange);
+        }
+        return exchange.getPrincipal()
+                .map(Principal::getName)
+                .defaultIfEmpty("anonyme")
+                .flatMap(principal -> servir(exchange, chain, routeId, cle(routeId, request, principal)));
+    }
+
+    private Mono<Void> servir(ServerWebExchange exchange, GatewayFilterChain chain, String routeId, String cle) {
+        HttpHeaders headers = exchange.getRequest().getHeaders();
+        boolean sansCache = contientDirective(headers.getCacheControl(), "no-cache")
+                || contientDirective(headers.getPragma(), "no-cache");
+        CachedResponse cached = sansCache ? null : cache.getIfPresent(cle);
+
+        if (cached != null && cached.estFraiche()) {
+            compter(routeId, "hit");
+            return ecrire(exchange.getRequest(), exchange.getResponse(), cached, "HIT");
+        }
+        if (cached != null && cached.etag() != null) {
+            return transmettre(exchange, chain, routeId, cle, cached);
+        }
+        if (!headers.getIfNoneMatch().isEmpty() || headers.getIfModifiedSince() != -1) {
+            // Requête déjà conditionnelle : le backend peut répondre 304, inutile de regrouper
+            compter(routeId, "miss");
+            return transmettre(exchange, chain, routeId, cle, null);
+        }
+
+        Sinks.One<Optional<CachedResponse>> sink = Sinks.one();
+        Sinks.One<Optional<CachedResponse>> premier = enCours.putIfAbsent(cle, sink);
+        if (premier != null) {
+            // Même requête déjà en route vers le backend : on attend sa réponse
+            return premier.asMono()
+                    .timeout(coalescingTimeout, Mono.just(Optional.empty()))
+                    .flatMap(resultat -> {
+                        if (resultat.isPresent()) {
+                            compter(routeId, "coalesced");
+                            return ecrire(exchange.getRequest(), exchange.getResponse(), resultat.get(), "COALESCED");
+                        }
+                        // Réponse non réutilisable (erreur, no-store...) : chacun interroge le backend
+                        compter(routeId, "miss");
+                        return chain.filter(exchange);
+                    });
+        }
+        compter(routeId, "miss");
+        return transmettre(exchange, chain, routeId, cle, null)
+                .doFinally(signal -> {
+                    enCours.remove(cle, sink);
+                    sink.tryEmitValue(Optional.ofNullable(cache.getIfPresent(cle)).filter(CachedResponse::estFraiche));
+                });
+    }
+
+    private Mono<Void> transmettre(ServerWebExchange exchange, GatewayFilterChain chain, String routeId,
+                                   String cle, CachedResponse perimee) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (perimee != null) {
+            request = request.mutate()
+                    .headers(h -> {
+                        h.setIfNoneMatch(perimee.etag());
+                        h.remove(HttpHeaders.IF_MODIFIED_SINCE);
+                    })
+                    .build();
+        }
+        CapturingResponse response = new CapturingResponse(exchange.getRequest(), exchange.getResponse(),
+                routeId, cle, perimee);
+        return chain.filter(exchange.mutate().request(request).response(response).build());
+    }
+
+    private Mono<Void> ecrire(ServerHttpRequest request, ServerHttpResponse response, CachedResponse cached,
+                              String resultat) {
+        HttpHeaders headers = response.getHeaders();
+        cached.headers().forEach((nom, valeurs) -> headers.put(nom, new ArrayList<>(valeurs)));
+        headers.set("X-Cache", resultat);
+        headers.set(HttpHeaders.AGE, String.valueOf(cached.age().toSeconds()));
+        if (cached.etag() != null && correspond(request.getHeaders().getIfNoneMatch(), cached.etag())) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+        response.setStatusCode(HttpStatus.valueOf(cached.status()));
+        headers.setContentLength(cached.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+    }
+
+    /**
+     * Durée de fraîcheur annoncée par le backend, vide si la réponse ne doit pas être conservée.
+     * {@code private} est accepté : l'entrée n'est servie qu'à l'utilisateur de la clé.
+     */
+    private Optional<Duration> fraicheur(HttpHeaders headers) {
+        String cacheControl = headers.getCacheControl();
+        if (cacheControl == null || headers.containsKey(HttpHeaders.SET_COOKIE)
+                || contientDirective(String.join(",", headers.getVary()), "*")) {
+            return Optional.empty();
+        }
+        Long maxAge = null;
+        Long sMaxAge = null;
+        for (String directive : cacheControl.toLowerCase(Locale.ROOT).split(",")) {
+            String d = directive.trim();
+            if (d.equals("no-store") || d.equals("no-cache")) {
+                return Optional.empty();
+            }
+            if (d.startsWith("s-maxage=")) {
+                sMaxAge = secondes(d.substring("s-maxage=".length()));
+            } else if (d.startsWith("max-age=")) {
+                maxAge = secondes(d.substring("max-age=".length()));
+            }
+        }
+        Long ttl = sMaxAge != null ? sMaxAge : maxAge;
+        if (ttl == null) {
+            return Optional.empty();
+        }
+        Duration duree = Duration.ofSeconds(Math.max(ttl, 0));
+        return Optional.of(duree.compareTo(maxTtl) > 0 ? maxTtl : duree);
+    }
+
+    private void invalider(String routeId) {
+        String prefixe = routeId + "|";
+        cache.asMap().keySet().removeIf(cle -> cle.startsWith(prefixe));
+    }
+
+    private void compter(String routeId, String resultat) {
+        meterRegistry.counter("gateway.cache.requests", "route", routeId, "resultat", resultat).increment();
+        statsParRoute.computeIfAbsent(routeId, id -> {
+            RouteStats stats = new RouteStats();
+            Gauge.builder("gateway.cache.hit.ratio", stats, RouteStats::ratio)
+                    .description("Part des GET servis sans relire le corps depuis le backend")
+                    .tag("route", id)
+                    .register(meterRegistry);
+            return stats;
+        }).enregistrer(!resultat.equals("miss"));
+    }
+
+    private static String cle(String routeId, ServerHttpRequest request, String principal) {
+        HttpHeaders headers = request.getHeaders();
+        return routeId + "|" + request.getURI().getRawPath() + "?" + Optional.ofNullable(request.getURI().getRawQuery()).orElse("")
+                + "|" + principal
+                + "|" + Optional.ofNullable(headers.getFirst(HttpHeaders.ACCEPT)).orElse("")
+                + "|" + Optional.ofNullable(headers.getFirst(HttpHeaders.ACCEPT_ENCODING)).orElse("");
+    }
+
+    private static boolean correspond(List<String> ifNoneMatch, String etag) {
+        String attendu = sansFaible(etag);
+        return ifNoneMatch.stream().anyMatch(valeur -> valeur.equals("*") || sansFaible(valeur).equals(attendu));
+    }
+
+    private static String sansFaible(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    private static boolean contientDirective(String valeur, String directive) {
+        if (valeur == null) {
+            return false;
+        }
+        for (String d : valeur.split(",")) {
+            if (d.trim().equalsIgnoreCase(directive)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Long secondes(String valeur) {
+        try {
+            return Long.parseLong(valeur.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private record CachedResponse(int status, HttpHeaders headers, byte[] body, String etag,
+                                  long storedAt, Duration fresh, Duration retention) {
+
+        boolean estFraiche() {
+            return age().compareTo(fresh) < 0;
+        }
+
+        Duration age() {
+            return Duration.ofMillis(System.currentTimeMillis() - storedAt);
+        }
+    }
+
+    private static final class RouteStats {
+
+        private final LongAdder servis = new LongAdder();
+        private final LongAdder total = new LongAdder();
+
+        void enregistrer(boolean depuisLeCache) {
+            total.increment();
+            if (depuisLeCache) {
+                servis.increment();
+            }
+        }
+
+        double ratio() {
+            long n = total.sum();
+            return n == 0 ? 0 : (double) servis.sum() / n;
+        }
+    }
+
+    /**
+     * Recopie le corps au fil de l'eau (sans retarder la réponse) et le conserve si le backend
+     * l'autorise. Sur un 304 en réponse à une revalidation, sert le corps déjà en cache.
+     */
+    private final class CapturingResponse extends ServerHttpResponseDecorator {
+
+        private final ServerHttpRequest requeteClient;
+        private final String routeId;
+        private final String cle;
+        private final CachedResponse perimee;
+
+        private CapturingResponse(ServerHttpRequest requeteClient, ServerHttpResponse delegate, String routeId,
+                                  String cle, CachedResponse perimee) {
+            super(delegate);
+            this.requeteClient = requeteClient;
+            this.routeId = routeId;
+            this.cle = cle;
+            this.perimee = perimee;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            if (perimee != null && getStatusCode() == HttpStatus.NOT_MODIFIED) {
+                compter(routeId, "revalidated");
+                CachedResponse rafraichie = rafraichir(perimee);
+                return Flux.from(body)
+                        .doOnNext(DataBufferUtils::release)
+                        .then(ecrire(requeteClient, getDelegate(), rafraichie, "REVALIDATED"));
+            }
+            if (perimee != null) {
+                compter(routeId, "miss");
+            }
+
+            Optional<Duration> fraicheur = getStatusCode() == HttpStatus.OK ? fraicheur(getHeaders()) : Optional.empty();
+            String etag = getHeaders().getETag();
+            MediaType contentType = getHeaders().getContentType();
+            boolean flux = contentType != null && MediaType.TEXT_EVENT_STREAM.isCompatibleWith(contentType);
+            if (fraicheur.isEmpty() || flux || getHeaders().getContentLength() > maxEntryBytes
+                    || (fraicheur.get().isZero() && etag == null)) {
+                cache.invalidate(cle);
+                return super.writeWith(body);
+            }
+
+            ByteArrayOutputStream copie = new ByteArrayOutputStream();
+            boolean[] tropGros = {false};
+            Flux<DataBuffer> corps = Flux.<DataBuffer>from(body)
+                    .doOnNext(buffer -> {
+                        if (tropGros[0]) {
+                            return;
+                        }
+                        int position = buffer.readPosition();
+                        byte[] octets = new byte[buffer.readableByteCount()];
+                        buffer.read(octets);
+                        buffer.readPosition(position);
+                        copie.writeBytes(octets);
+                        tropGros[0] = copie.size() > maxEntryBytes;
+                    })
+                    .doOnComplete(() -> {
+                        if (!tropGros[0]) {
+                            cache.put(cle, new CachedResponse(HttpStatus.OK.value(), conserves(getHeaders()),
+                                    copie.toByteArray(), etag, System.currentTimeMillis(), fraicheur.get(),
+                                    retention(fraicheur.get(), etag)));
+                        }
+                    });
+            return super.writeWith(corps);
+        }
+
+        private CachedResponse rafraichir(CachedResponse ancienne) {
+            HttpHeaders headers = new HttpHeaders();
+            headers.putAll(ancienne.headers());
+            // Un 304 peut mettre à jour les métadonnées (Cache-Control, ETag...), jamais le corps
+            for (String nom : ENTETES_CONSERVES) {
+                List<String> valeurs = getHeaders().get(nom);
+                if (valeurs != null && !nom.equals(HttpHeaders.CONTENT_TYPE)) {
+                    headers.put(nom, List.copyOf(valeurs));
+                }
+            }
+            Duration fresh = fraicheur(headers).orElse(Duration.ZERO);
+            String etag = Optional.ofNullable(headers.getETag()).orElse(ancienne.etag());
+            CachedResponse rafraichie = new CachedResponse(ancienne.status(), headers, ancienne.body(), etag,
+                    System.currentTimeMillis(), fresh, retention(fresh, etag));
+            cache.put(cle, rafraichie);
+            return rafraichie;
+        }
+
+        private Duration retention(Duration fresh, String etag) {
+            return etag == null ? fresh : fresh.plus(revalidationWindow);
+        }
+
+        private HttpHeaders conserves(HttpHeaders source) {
+            HttpHeaders headers = new HttpHeaders();
+            for (String nom : ENTETES_CONSERVES) {
+                List<String> valeurs = source.get(nom);
+                if (valeurs != null) {
+                    headers.put(nom, List.copyOf(valeurs));
+                }
+            }
+            return headers;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.enset.gatewayservice.filter;
+
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.web.server.ServerWebExchange;
+
+final class Routes {
+
+    private Routes() {
+    }
+
+    /**
+     * Nom du service cible (hôte de l'URI {@code lb://...}), utilisé comme clé de configuration
+     * et tag de métriques ; « inconnue » si aucune route n'a été résolue.
+     */
+    static String service(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (route == null) {
+            return "inconnue";
+        }
+        String host = route.getUri().getHost();
+        return host != null ? host.toLowerCase() : route.getId();
+    }
+}
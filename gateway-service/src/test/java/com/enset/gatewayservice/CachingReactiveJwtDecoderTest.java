@@ -0,0 +1,69 @@
+package com.enset.gatewayservice;
+
+import com.enset.gatewayservice.security.CachingReactiveJwtDecoder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CachingReactiveJwtDecoderTest {
+
+    private final AtomicInteger verifications = new AtomicInteger();
+
+    @Test
+    void signatureVerifieeUneSeuleFoisParJeton() {
+        ReactiveJwtDecoder decoder = decoder(Instant.now().plusSeconds(300));
+
+        decoder.decode("jeton-a").block();
+        decoder.decode("jeton-a").block();
+        decoder.decode("jeton-b").block();
+
+        assertThat(verifications.get()).isEqualTo(2);
+    }
+
+    @Test
+    void jetonExpireEstReverifie() {
+        ReactiveJwtDecoder decoder = decoder(Instant.now().minusSeconds(1));
+
+        decoder.decode("jeton-a").block();
+        decoder.decode("jeton-a").block();
+
+        assertThat(verifications.get()).isEqualTo(2);
+    }
+
+    @Test
+    void jetonRefuseNEstPasConserve() {
+        ReactiveJwtDecoder refus = token -> {
+            verifications.incrementAndGet();
+            return Mono.error(new BadJwtException("signature invalide"));
+        };
+        ReactiveJwtDecoder decoder = new CachingReactiveJwtDecoder(refus, 100, Duration.ofMinutes(5),
+                new SimpleMeterRegistry());
+
+        assertThatThrownBy(() -> decoder.decode("jeton-a").block()).isInstanceOf(BadJwtException.class);
+        assertThatThrownBy(() -> decoder.decode("jeton-a").block()).isInstanceOf(BadJwtException.class);
+        assertThat(verifications.get()).isEqualTo(2);
+    }
+
+    private ReactiveJwtDecoder decoder(Instant expiration) {
+        ReactiveJwtDecoder verificateur = token -> {
+            verifications.incrementAndGet();
+            return Mono.just(Jwt.withTokenValue(token)
+                    .header("alg", "RS256")
+                    .subject("client")
+                    .issuedAt(expiration.minusSeconds(600))
+                    .expiresAt(expiration)
+                    .build());
+        };
+        return new CachingReactiveJwtDecoder(verificateur, 100, Duration.ofMinutes(5), new SimpleMeterRegistry());
+    }
+}
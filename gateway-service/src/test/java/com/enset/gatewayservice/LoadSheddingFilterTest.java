@@ -0,0 +1,165 @@
+package com.enset.gatewayservice;
+
+import com.enset.gatewayservice.filter.LoadSheddingFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoadSheddingFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MockEnvironment environment = new MockEnvironment();
+    private final AtomicInteger appelsBackend = new AtomicInteger();
+    // Horloge et tirages contrôlés : les latences mesurées sont celles que le backend simulé déclare
+    private final AtomicLong horloge = new AtomicLong();
+    private final AtomicInteger tirages = new AtomicInteger();
+    private LoadSheddingFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new LoadSheddingFilter();
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "maxEnCours", 100);
+        ReflectionTestUtils.setField(filter, "seuilLatence", Duration.ofMillis(20));
+        ReflectionTestUtils.setField(filter, "alpha", 0.5);
+        ReflectionTestUtils.setField(filter, "partMaxRejetee", 0.5);
+        ReflectionTestUtils.setField(filter, "environment", environment);
+        ReflectionTestUtils.setField(filter, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(filter, "horloge", (LongSupplier) horloge::get);
+        // Tirages alternés 0.25 / 0.75 : avec une part à rejeter de 0.5, une requête sur deux
+        ReflectionTestUtils.setField(filter, "tirage",
+                (DoubleSupplier) () -> tirages.getAndIncrement() % 2 == 0 ? 0.25 : 0.75);
+    }
+
+    @Test
+    void auDelaDesRequetesEnCoursRenvoie503() {
+        environment.setProperty("gateway.shedding.services.virement-service.max-in-flight", "2");
+        Sinks.Empty<Void> finBackend = Sinks.empty();
+        GatewayFilterChain backendBloque = exchange -> {
+            appelsBackend.incrementAndGet();
+            return finBackend.asMono();
+        };
+
+        filter.filter(requete(), backendBloque).subscribe();
+        filter.filter(requete(), backendBloque).subscribe();
+        MockServerWebExchange rejetee = requete();
+        filter.filter(rejetee, backendBloque).block();
+
+        assertThat(appelsBackend.get()).isEqualTo(2);
+        assertThat(rejetee.getResponse().getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(rejetee.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(meterRegistry.get("gateway.requests.rejected").tag("raison", "en-cours").counter().count())
+                .isEqualTo(1.0);
+
+        // Les requêtes terminées libèrent leur place
+        finBackend.tryEmitEmpty();
+        MockServerWebExchange acceptee = requete();
+        filter.filter(acceptee, backendBloque).subscribe();
+        assertThat(appelsBackend.get()).isEqualTo(3);
+        assertThat(acceptee.getResponse().getStatusCode()).isNotEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @Test
+    void backendLentEstDelestePartiellement() {
+        GatewayFilterChain backendLent = exchange -> {
+            appelsBackend.incrementAndGet();
+            return Mono.fromRunnable(() -> avancer(Duration.ofMillis(60))).then(exchange.getResponse().setComplete());
+        };
+
+        int rejetees = 0;
+        for (int i = 0; i < 31; i++) {
+            MockServerWebExchange exchange = requete();
+            filter.filter(exchange, backendLent).block();
+            if (exchange.getResponse().getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE) {
+                rejetees++;
+            }
+        }
+
+        // Latence triple du seuil : part rejetée plafonnée à max-shed-ratio (0.5), jamais tout.
+        // La première requête mesure la latence, puis une sur deux est rejetée
+        assertThat(rejetees).isEqualTo(15);
+        assertThat(appelsBackend.get()).isEqualTo(16);
+        assertThat(meterRegistry.get("gateway.backend.latency.ewma").gauge().value()).isEqualTo(0.06);
+    }
+
+    @Test
+    void latenceRevenueSousLeSeuilArreteLeDelestage() {
+        AtomicLong latenceBackend = new AtomicLong(Duration.ofMillis(60).toNanos());
+        GatewayFilterChain backend = exchange -> {
+            appelsBackend.incrementAndGet();
+            return Mono.fromRunnable(() -> horloge.addAndGet(latenceBackend.get()))
+                    .then(exchange.getResponse().setComplete());
+        };
+        filter.filter(requete(), backend).block();
+
+        latenceBackend.set(Duration.ofMillis(1).toNanos());
+        for (int i = 0; i < 20; i++) {
+            filter.filter(requete(), backend).block();
+        }
+        MockServerWebExchange derniere = requete();
+        filter.filter(derniere, backend).block();
+
+        assertThat(derniere.getResponse().getStatusCode()).isNotEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(meterRegistry.get("gateway.backend.latency.ewma").gauge().value()).isLessThan(0.02);
+    }
+
+    @Test
+    void fluxLongNeCompteQueJusquAuxEnTetes() {
+        // Export en flux : en-têtes après 5 ms, corps étalé sur 100 ms de plus
+        GatewayFilterChain export = exchange -> {
+            appelsBackend.incrementAndGet();
+            avancer(Duration.ofMillis(5));
+            Flux<DataBuffer> corps = Flux.concat(Mono.just("debut"), Mono.fromCallable(() -> {
+                        avancer(Duration.ofMillis(100));
+                        return "fin";
+                    }))
+                    .map(ligne -> exchange.getResponse().bufferFactory().wrap(ligne.getBytes(StandardCharsets.UTF_8)));
+            return exchange.getResponse().writeWith(corps);
+        };
+
+        for (int i = 0; i < 10; i++) {
+            MockServerWebExchange exchange = requete();
+            filter.filter(exchange, export).block();
+            assertThat(exchange.getResponse().getStatusCode()).isNotEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+
+        assertThat(appelsBackend.get()).isEqualTo(10);
+        assertThat(meterRegistry.get("gateway.backend.latency.ewma").gauge().value()).isEqualTo(0.005);
+    }
+
+    private void avancer(Duration duree) {
+        horloge.addAndGet(duree.toNanos());
+    }
+
+    private static MockServerWebExchange requete() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/virements"));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, Route.async()
+                .id("virement-service")
+                .uri("lb://virement-service")
+                .predicate(e -> true)
+                .build());
+        return exchange;
+    }
+}
@@ -0,0 +1,66 @@
+package com.enset.gatewayservice;
+
+import com.enset.gatewayservice.filter.InMemoryRateLimitStore;
+import com.enset.gatewayservice.filter.RateLimitFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTest {
+
+    private final AtomicInteger appelsBackend = new AtomicInteger();
+    private final GatewayFilterChain backend = exchange -> {
+        appelsBackend.incrementAndGet();
+        return Mono.empty();
+    };
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new RateLimitFilter();
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "capacite", 3L);
+        ReflectionTestUtils.setField(filter, "jetonsParSeconde", 0.5);
+        ReflectionTestUtils.setField(filter, "rateLimitStore", new InMemoryRateLimitStore(1000, Duration.ofMinutes(1)));
+        ReflectionTestUtils.setField(filter, "environment", new MockEnvironment());
+        ReflectionTestUtils.setField(filter, "meterRegistry", new SimpleMeterRegistry());
+    }
+
+    @Test
+    void auDelaDeLaCapaciteRenvoie429AvecRetryAfter() {
+        for (int i = 0; i < 3; i++) {
+            filter.filter(requete("10.0.0.1"), backend).block();
+        }
+        MockServerWebExchange refusee = requete("10.0.0.1");
+        filter.filter(refusee, backend).block();
+
+        assertThat(appelsBackend.get()).isEqualTo(3);
+        assertThat(refusee.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(refusee.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+
+        // Un autre client garde son propre seau
+        MockServerWebExchange autre = requete("10.0.0.2");
+        filter.filter(autre, backend).block();
+        assertThat(appelsBackend.get()).isEqualTo(4);
+        assertThat(autre.getResponse().getHeaders().getFirst("X-RateLimit-Remaining")).isEqualTo("2");
+    }
+
+    private static MockServerWebExchange requete(String ip) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/virements")
+                .remoteAddress(new InetSocketAddress(ip, 40000)));
+    }
+}
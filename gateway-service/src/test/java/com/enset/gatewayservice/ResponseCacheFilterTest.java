@@ -0,0 +1,119 @@
+package com.enset.gatewayservice;
+
+import com.enset.gatewayservice.filter.ResponseCacheFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCacheFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger appelsBackend = new AtomicInteger();
+    private ResponseCacheFilter filter;
+    private volatile String cacheControl;
+    private volatile String etag;
+
+    @BeforeEach
+    void setUp() {
+        filter = new ResponseCacheFilter();
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "maxBytes", 1_000_000L);
+        ReflectionTestUtils.setField(filter, "maxEntryBytes", 10_000);
+        ReflectionTestUtils.setField(filter, "maxTtl", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(filter, "revalidationWindow", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(filter, "coalescingTimeout", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(filter, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.invokeMethod(filter, "init");
+        cacheControl = "max-age=0, s-maxage=60";
+        etag = "\"1.0\"";
+    }
+
+    @Test
+    void requetesSimultaneesNAppellentLeBackendQuUneFois() {
+        MockServerWebExchange premier = get("/beneficiaires/1");
+        MockServerWebExchange second = get("/beneficiaires/1");
+
+        Mono.when(filter.filter(premier, backendLent()), filter.filter(second, backendLent())).block();
+
+        assertThat(appelsBackend.get()).isEqualTo(1);
+        assertThat(premier.getResponse().getBodyAsString().block()).isEqualTo("{\"id\":1}");
+        assertThat(second.getResponse().getBodyAsString().block()).isEqualTo("{\"id\":1}");
+
+        MockServerWebExchange troisieme = get("/beneficiaires/1");
+        filter.filter(troisieme, backendLent()).block();
+        assertThat(appelsBackend.get()).isEqualTo(1);
+        assertThat(troisieme.getResponse().getHeaders().getFirst("X-Cache")).isEqualTo("HIT");
+        assertThat(meterRegistry.get("gateway.cache.hit.ratio").gauge().value()).isGreaterThan(0.5);
+    }
+
+    @Test
+    void ifNoneMatchSurEntreeFraicheRenvoie304() {
+        filter.filter(get("/beneficiaires/1"), backendLent()).block();
+
+        // Même Accept que la lecture en cache : il fait partie de la clé (JSON ou Smile)
+        MockServerWebExchange conditionnelle = MockServerWebExchange.from(MockServerHttpRequest
+                .get("/beneficiaires/1")
+                .header(HttpHeaders.ACCEPT, "application/json")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"1.0\""));
+        filter.filter(conditionnelle, backendLent()).block();
+
+        assertThat(appelsBackend.get()).isEqualTo(1);
+        assertThat(conditionnelle.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+
+        // Autre représentation demandée : pas servie depuis l'entrée JSON
+        MockServerWebExchange smile = MockServerWebExchange.from(MockServerHttpRequest
+                .get("/beneficiaires/1").header(HttpHeaders.ACCEPT, "application/x-jackson-smile"));
+        filter.filter(smile, backendLent()).block();
+        assertThat(appelsBackend.get()).isEqualTo(2);
+    }
+
+    @Test
+    void reponseNoStoreNEstPasConservee() {
+        cacheControl = "no-cache, no-store, max-age=0, must-revalidate";
+
+        filter.filter(get("/virements"), backendLent()).block();
+        filter.filter(get("/virements"), backendLent()).block();
+
+        assertThat(appelsBackend.get()).isEqualTo(2);
+    }
+
+    @Test
+    void ecritureInvalideLesLecturesDeLaRoute() {
+        filter.filter(get("/beneficiaires"), backendLent()).block();
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.post("/beneficiaires")), backendLent()).block();
+        filter.filter(get("/beneficiaires"), backendLent()).block();
+
+        // GET, POST, puis GET relu depuis le backend
+        assertThat(appelsBackend.get()).isEqualTo(3);
+    }
+
+    private static MockServerWebExchange get(String path) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get(path).header(HttpHeaders.ACCEPT, "application/json"));
+    }
+
+    private GatewayFilterChain backendLent() {
+        return exchange -> Mono.delay(Duration.ofMillis(100)).then(Mono.defer(() -> {
+            appelsBackend.incrementAndGet();
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.OK);
+            response.getHeaders().setCacheControl(cacheControl);
+            response.getHeaders().setETag(etag);
+            byte[] body = "{\"id\":1}".getBytes(StandardCharsets.UTF_8);
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+        }));
+    }
+}
@@ -0,0 +1,57 @@
+package com.enset.mcpserver.config;
+
+import com.enset.common.http.HostConnectionLimiter;
+import com.enset.common.security.InternalIdentity;
+import com.enset.common.security.InternalIdentityInterceptor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Client HTTP partagé pour les appels aux services bénéficiaire et virement : connexions conservées
+ * et réutilisées, HTTP/2 si le service le propose, timeouts explicites.
+ */
+@Configuration
+public class HttpClientConfig {
+
+    @Bean
+    public HttpClient httpClient(@Value("${mcp.http.connect-timeout:3s}") Duration connectTimeout) {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .build();
+    }
+
+    @Bean
+    public HostConnectionLimiter hostConnectionLimiter(
+            @Value("${mcp.http.max-connections-per-host:20}") int maxParHote,
+            @Value("${mcp.http.acquire-timeout:2s}") Duration attenteMax) {
+        return new HostConnectionLimiter(maxParHote, attenteMax);
+    }
+
+    @Bean
+    public InternalIdentityInterceptor internalIdentityInterceptor(
+            @Value("${internal.identity.secret}") String secret,
+            @Value("${spring.application.name}") String applicationName,
+            @Value("${internal.identity.ttl:60s}") Duration ttl) {
+        return new InternalIdentityInterceptor(new InternalIdentity(secret), applicationName, ttl);
+    }
+
+    // Identité signée sur chaque appel, vérifiée par un HMAC côté service appelé
+    @Bean
+    public RestTemplate restTemplate(HttpClient httpClient, HostConnectionLimiter hostConnectionLimiter,
+                                     InternalIdentityInterceptor internalIdentityInterceptor,
+                                     @Value("${mcp.http.read-timeout:5s}") Duration readTimeout) {
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(readTimeout);
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        restTemplate.setInterceptors(List.of(hostConnectionLimiter, internalIdentityInterceptor));
+        return restTemplate;
+    }
+}
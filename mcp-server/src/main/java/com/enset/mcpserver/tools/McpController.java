@@ -1,6 +1,10 @@
 package com.enset.mcpserver.tools;
+import com.enset.common.http.HostConnectionLimiter;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -9,9 +13,11 @@ import java.util.Map;
 public class McpController {
 
     private final McpService mcpService;
+    private final HostConnectionLimiter hostConnectionLimiter;
 
-    public McpController(McpService mcpService) {
+    public McpController(McpService mcpService, HostConnectionLimiter hostConnectionLimiter) {
         this.mcpService = mcpService;
+        this.hostConnectionLimiter = hostConnectionLimiter;
     }
 
     @GetMapping("/beneficiaries")
@@ -23,4 +29,32 @@ public class McpController {
     public List<Map<String, Object>> listVirements(@RequestParam String beneficiary) {
         return mcpService.getVirements(beneficiary);
     }
+
+    @GetMapping("/beneficiaries/{id}/virements")
+    public List<Map<String, Object>> listVirementsOfBeneficiary(@PathVariable Long id,
+                                                                @RequestParam(defaultValue = "10") int size) {
+        return mcpService.getVirementsByBeneficiaire(id, size);
+    }
+
+    // Total sur une période, pour un bénéficiaire ou pour un RIB source
+    @GetMapping("/virements/total")
+    public ResponseEntity<Map<String, Object>> totalVirements(
+            @RequestParam(required = false) Long beneficiaryId,
+            @RequestParam(required = false) String ribSource,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+        if (beneficiaryId != null) {
+            return ResponseEntity.ok(mcpService.getTotalByBeneficiaire(beneficiaryId, startDate, endDate));
+        }
+        if (ribSource != null) {
+            return ResponseEntity.ok(mcpService.getTotalByRibSource(ribSource, startDate, endDate));
+        }
+        return ResponseEntity.badRequest().build();
+    }
+
+    // Appels en cours et attentes par service appelé
+    @GetMapping("/http/stats")
+    public Map<String, Map<String, Object>> httpStats() {
+        return hostConnectionLimiter.statistiques();
+    }
 }
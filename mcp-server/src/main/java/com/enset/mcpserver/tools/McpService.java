@@ -1,5 +1,6 @@
 package com.enset.mcpserver.tools;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpMethod;
@@ -7,19 +8,28 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 @Service
 public class McpService {
 
+    // Taille des pages lues pour calculer un total par bénéficiaire
+    private static final int PAGE_TOTAL = 200;
+
     @Value("${beneficiaire.service.url}")
     private String beneficiaireUrl;
 
     @Value("${virement.service.url}")
     private String virementUrl;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    // Client partagé (HttpClientConfig) : connexions réutilisées, timeouts, identité interne signée
+    @Autowired
+    private RestTemplate restTemplate;
 
     // Récupérer tous les bénéficiaires
     public List<Map<String, Object>> getBeneficiaries() {
@@ -32,15 +42,86 @@ public class McpService {
         return response.getBody();
     }
 
-    // Récupérer les virements d'un bénéficiaire
+    // Récupérer les virements d'un bénéficiaire (première page, le service virement pagine ses listes)
     public List<Map<String, Object>> getVirements(String beneficiaryName) {
         String url = virementUrl + "?beneficiary=" + beneficiaryName;
-        ResponseEntity<List<Map<String, Object>>> response = restTemplate.exchange(
+        ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
                 url,
                 HttpMethod.GET,
                 null,
-                new ParameterizedTypeReference<List<Map<String, Object>>>() {}
+                new ParameterizedTypeReference<Map<String, Object>>() {}
+        );
+        return contentOf(response.getBody());
+    }
+
+    // Virements d'un bénéficiaire, du plus récent au plus ancien
+    public List<Map<String, Object>> getVirementsByBeneficiaire(long beneficiaireId, int size) {
+        return contentOf(pageBeneficiaire(beneficiaireId, size, null));
+    }
+
+    // Montant total et nombre des virements d'un bénéficiaire sur [debut, fin] ; les pages arrivent
+    // du plus récent au plus ancien, le parcours s'arrête au premier virement antérieur à debut
+    public Map<String, Object> getTotalByBeneficiaire(long beneficiaireId, LocalDateTime debut, LocalDateTime fin) {
+        BigDecimal total = BigDecimal.ZERO;
+        long nombre = 0;
+        String cursor = null;
+        do {
+            Map<String, Object> page = pageBeneficiaire(beneficiaireId, PAGE_TOTAL, cursor);
+            for (Map<String, Object> virement : contentOf(page)) {
+                LocalDateTime date = LocalDateTime.parse(String.valueOf(virement.get("dateVirement")));
+                if (date.isBefore(debut)) {
+                    return total(total, nombre);
+                }
+                if (!date.isAfter(fin)) {
+                    total = total.add(new BigDecimal(String.valueOf(virement.get("montant"))));
+                    nombre++;
+                }
+            }
+            cursor = page == null ? null : (String) page.get("nextCursor");
+        } while (cursor != null);
+        return total(total, nombre);
+    }
+
+    // Montant total et nombre des virements émis depuis un RIB sur [debut, fin] (cumuls du service virement)
+    public Map<String, Object> getTotalByRibSource(String ribSource, LocalDateTime debut, LocalDateTime fin) {
+        Map<String, Object> variables = Map.of("ribSource", ribSource, "debut", debut, "fin", fin);
+        String periode = "?ribSource={ribSource}&startDate={debut}&endDate={fin}";
+        BigDecimal total = restTemplate.getForObject(virementUrl + "/stats/total" + periode, BigDecimal.class, variables);
+        Long nombre = restTemplate.getForObject(virementUrl + "/stats/count" + periode, Long.class, variables);
+        return total(total != null ? total : BigDecimal.ZERO, nombre != null ? nombre : 0);
+    }
+
+    private Map<String, Object> pageBeneficiaire(long beneficiaireId, int size, String cursor) {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("id", beneficiaireId);
+        variables.put("size", size);
+        String url = virementUrl + "/beneficiaire/{id}?size={size}";
+        if (cursor != null) {
+            variables.put("cursor", cursor);
+            url += "&cursor={cursor}";
+        }
+        ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
+                url,
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<Map<String, Object>>() {},
+                variables
         );
         return response.getBody();
     }
+
+    private static Map<String, Object> total(BigDecimal montant, long nombre) {
+        Map<String, Object> total = new LinkedHashMap<>();
+        total.put("montantTotal", montant);
+        total.put("nombre", nombre);
+        return total;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> contentOf(Map<String, Object> page) {
+        if (page == null || page.get("content") == null) {
+            return List.of();
+        }
+        return (List<Map<String, Object>>) page.get("content");
+    }
 }
\ No newline at end of file
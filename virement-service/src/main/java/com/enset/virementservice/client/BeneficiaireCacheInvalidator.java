@@ -0,0 +1,83 @@
+package com.enset.virementservice.client;
+
+import com.enset.virementservice.dtos.BeneficiaireChangesResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Suit le journal des changements du service bénéficiaire et purge les entrées
+ * correspondantes de {@link CachedBeneficiaireClient}.
+ * <p>
+ * Le journal est commun à toutes les instances du service bénéficiaire (séquence attribuée par
+ * la base). Une séquence peut être validée après une séquence plus grande : chaque lecture repart
+ * donc de {@code overlap} positions avant le curseur, et seules les entrées pas encore vues sont
+ * appliquées.
+ */
+@Component
+public class BeneficiaireCacheInvalidator {
+
+    @Autowired
+    private BeneficiaireClient beneficiaireClient;
+
+    @Autowired
+    private CachedBeneficiaireClient cachedBeneficiaireClient;
+
+    @Value("${virement.beneficiaire-cache.invalidation-overlap:100}")
+    private long overlap;
+
+    private String epoch;
+    private long sequence;
+    // Séquences déjà appliquées dans la fenêtre relue
+    private final NavigableSet<Long> vues = new TreeSet<>();
+    // Changements validés après le passage du curseur, appliqués lors d'une relecture
+    private long tardives;
+
+    @Scheduled(fixedDelayString = "${virement.beneficiaire-cache.invalidation-interval:5000}")
+    public synchronized void poll() {
+        BeneficiaireChangesResponse response;
+        try {
+            response = beneficiaireClient.getChanges(epoch == null ? 0 : Math.max(0, sequence - overlap));
+        } catch (Exception e) {
+            // Service indisponible : le TTL du cache borne l'obsolescence en attendant
+            return;
+        }
+
+        List<BeneficiaireChangesResponse.Change> nouvelles = response.getChanges() == null
+                ? List.of()
+                : response.getChanges().stream().filter(change -> !vues.contains(change.getSequence())).toList();
+        // Un changement sans identifiant correspond à un import en masse
+        boolean importEnMasse = nouvelles.stream().anyMatch(change -> change.getBeneficiaireId() == null);
+        if (!response.getEpoch().equals(epoch) || response.isReset() || importEnMasse) {
+            // Base du journal recréée, retard trop important ou import : on repart de zéro
+            cachedBeneficiaireClient.evictAll();
+            vues.clear();
+        } else {
+            for (BeneficiaireChangesResponse.Change change : nouvelles) {
+                cachedBeneficiaireClient.evict(change.getBeneficiaireId(), change.getRibs());
+            }
+        }
+        for (BeneficiaireChangesResponse.Change change : nouvelles) {
+            if (epoch != null && change.getSequence() <= sequence) {
+                tardives++;
+            }
+            vues.add(change.getSequence());
+        }
+        epoch = response.getEpoch();
+        sequence = Math.max(response.getSequence(), vues.isEmpty() ? 0 : vues.last());
+        vues.headSet(sequence - overlap, true).clear();
+    }
+
+    /**
+     * Position dans le journal du service bénéficiaire : change dès qu'un bénéficiaire
+     * mis en cache a pu changer (utilisée dans les ETag des réponses enrichies).
+     */
+    public synchronized String getVersion() {
+        return epoch == null ? "initial" : epoch + ":" + sequence + ":" + tardives;
+    }
+}
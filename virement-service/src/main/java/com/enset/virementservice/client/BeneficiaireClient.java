@@ -1,24 +1,43 @@
 package com.enset.virementservice.client;
 
+import com.enset.virementservice.dtos.BeneficiaireChangesResponse;
 import com.enset.virementservice.dtos.BeneficiaireResponse;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+// Les services injectent ResilientBeneficiaireClient (@Primary) qui enveloppe ce client
 @FeignClient(
         name = "beneficiaire-service",
-        path = "/beneficiaires"
+        path = "/beneficiaires",
+        primary = false,
+        qualifiers = "beneficiaireFeignClient"
 )
 public interface BeneficiaireClient {
 
     @GetMapping("/{id}")
     BeneficiaireResponse getBeneficiaireById(@PathVariable("id") Long id);
 
+    @GetMapping
+    List<BeneficiaireResponse> getBeneficiairesByIds(@RequestParam("ids") Collection<Long> ids);
+
     @GetMapping("/{id}/exists")
     Boolean checkBeneficiaireExists(@PathVariable("id") Long id);
 
+    @PostMapping("/exists")
+    Map<Long, Boolean> checkBeneficiairesExist(@RequestBody Collection<Long> ids);
+
     @GetMapping("/rib/{rib}")
     BeneficiaireResponse getBeneficiaireByRib(@PathVariable("rib") String rib);
 
+    @GetMapping("/changes")
+    BeneficiaireChangesResponse getChanges(@RequestParam("after") long after);
 
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.enset.virementservice.client;
+
+import feign.RequestInterceptor;
+import feign.RequestTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+/**
+ * Demande au service bénéficiaire des réponses en Smile (JSON binaire, plus compact et plus rapide à
+ * décoder) ; le JSON reste accepté si le service ne sait pas produire ce format. Le décodeur Feign
+ * choisit le convertisseur d'après le Content-Type reçu.
+ */
+@Component
+public class BeneficiaireClientEncodingInterceptor implements RequestInterceptor {
+
+    private static final String SMILE = "application/x-jackson-smile";
+
+    @Value("${virement.beneficiaire-client.encoding:json}")
+    private String encoding;
+
+    @Override
+    public void apply(RequestTemplate template) {
+        if (!"smile".equalsIgnoreCase(encoding)
+                || template.feignTarget() == null
+                || !"beneficiaire-service".equals(template.feignTarget().name())) {
+            return;
+        }
+        template.removeHeader(HttpHeaders.ACCEPT);
+        template.header(HttpHeaders.ACCEPT, SMILE, "application/json;q=0.9");
+    }
+}
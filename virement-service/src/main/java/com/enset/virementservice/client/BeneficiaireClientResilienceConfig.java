@@ -0,0 +1,73 @@
+package com.enset.virementservice.client;
+
+import feign.FeignException;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedTimeLimiterMetrics;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Registres Resilience4j utilisés par {@link ResilientBeneficiaireClient}. Leurs métriques
+ * (état du circuit, appels rejetés, délais dépassés) sont publiées sous resilience4j.* dans
+ * /actuator/metrics.
+ */
+@Configuration
+public class BeneficiaireClientResilienceConfig {
+
+    @Bean
+    public CircuitBreakerRegistry circuitBreakerRegistry(
+            MeterRegistry meterRegistry,
+            @Value("${virement.beneficiaire-client.circuit-breaker.failure-rate-threshold:50}") float failureRateThreshold,
+            @Value("${virement.beneficiaire-client.circuit-breaker.sliding-window-size:20}") int slidingWindowSize,
+            @Value("${virement.beneficiaire-client.circuit-breaker.minimum-number-of-calls:10}") int minimumNumberOfCalls,
+            @Value("${virement.beneficiaire-client.circuit-breaker.wait-duration-in-open-state:10s}") Duration waitDurationInOpenState,
+            @Value("${virement.beneficiaire-client.circuit-breaker.slow-call-duration-threshold:1s}") Duration slowCallDurationThreshold) {
+        CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallRateThreshold(failureRateThreshold)
+                .slowCallDurationThreshold(slowCallDurationThreshold)
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(minimumNumberOfCalls)
+                .waitDurationInOpenState(waitDurationInOpenState)
+                // Un 404 ou un 400 est une réponse normale du service, pas une panne ; un bulkhead
+                // plein signale une surcharge de ce service-ci
+                .ignoreException(e -> e instanceof FeignException.FeignClientException
+                        || e instanceof BulkheadFullException)
+                .build();
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(config);
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+        return registry;
+    }
+
+    @Bean
+    public BulkheadRegistry bulkheadRegistry(
+            MeterRegistry meterRegistry,
+            @Value("${virement.beneficiaire-client.bulkhead.max-concurrent-calls:50}") int maxConcurrentCalls,
+            @Value("${virement.beneficiaire-client.bulkhead.max-wait:0ms}") Duration maxWait) {
+        BulkheadRegistry registry = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWaitDuration(maxWait)
+                .build());
+        TaggedBulkheadMetrics.ofBulkheadRegistry(registry).bindTo(meterRegistry);
+        return registry;
+    }
+
+    @Bean
+    public TimeLimiterRegistry timeLimiterRegistry(MeterRegistry meterRegistry) {
+        // Les délais sont définis par méthode dans ResilientBeneficiaireClient
+        TimeLimiterRegistry registry = TimeLimiterRegistry.ofDefaults();
+        TaggedTimeLimiterMetrics.ofTimeLimiterRegistry(registry).bindTo(meterRegistry);
+        return registry;
+    }
+}
@@ -0,0 +1,12 @@
+package com.enset.virementservice.client;
+
+/**
+ * Le service bénéficiaire n'a pas pu être interrogé : délai dépassé, circuit ouvert ou
+ * trop d'appels simultanés. Les contrôleurs la traduisent en 503.
+ */
+public class BeneficiaireServiceUnavailableException extends RuntimeException {
+
+    public BeneficiaireServiceUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,175 @@
+package com.enset.virementservice.client;
+
+import com.enset.virementservice.dtos.BeneficiaireResponse;
+import feign.FeignException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Cache local devant {@link BeneficiaireClient}. Les bénéficiaires changent rarement :
+ * les réponses (y compris « introuvable ») sont gardées jusqu'à expiration ou jusqu'à
+ * réception d'un changement par {@link BeneficiaireCacheInvalidator}.
+ */
+@Component
+public class CachedBeneficiaireClient {
+
+    public static final String CACHE_BENEFICIAIRES = "beneficiaires";
+    public static final String CACHE_EXISTENCE = "beneficiaires-existence";
+    public static final String CACHE_RIB = "beneficiaires-rib";
+
+    @Autowired
+    private BeneficiaireClient beneficiaireClient;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private AsyncTaskExecutor taskExecutor;
+
+    @Value("${virement.batch.exists-chunk-size:1000}")
+    private int existsChunkSize;
+
+    // Les IDs passent dans l'URL (GET /beneficiaires?ids=) : morceaux plus petits
+    @Value("${virement.beneficiaire-client.ids-chunk-size:200}")
+    private int idsChunkSize;
+
+    /**
+     * @return le bénéficiaire, ou {@code null} s'il n'existe pas (résultat également mis en cache)
+     */
+    @Cacheable(cacheNames = CACHE_BENEFICIAIRES, key = "#id")
+    public BeneficiaireResponse getBeneficiaireById(Long id) {
+        try {
+            return beneficiaireClient.getBeneficiaireById(id);
+        } catch (FeignException.NotFound e) {
+            return null;
+        }
+    }
+
+    @Cacheable(cacheNames = CACHE_EXISTENCE, key = "#id")
+    public Boolean checkBeneficiaireExists(Long id) {
+        return beneficiaireClient.checkBeneficiaireExists(id);
+    }
+
+    /**
+     * @return le bénéficiaire, ou {@code null} si aucun ne porte ce RIB (résultat également mis en cache)
+     */
+    @Cacheable(cacheNames = CACHE_RIB, key = "#rib")
+    public BeneficiaireResponse getBeneficiaireByRib(String rib) {
+        try {
+            return beneficiaireClient.getBeneficiaireByRib(rib);
+        } catch (FeignException.NotFound e) {
+            return null;
+        }
+    }
+
+    /**
+     * Résout plusieurs bénéficiaires : seuls les identifiants absents du cache sont demandés,
+     * en un seul appel, au service bénéficiaire. Les identifiants inconnus n'apparaissent pas
+     * dans le résultat.
+     */
+    public Map<Long, BeneficiaireResponse> getBeneficiairesByIds(Collection<Long> ids) {
+        Cache cache = cacheManager.getCache(CACHE_BENEFICIAIRES);
+        Map<Long, BeneficiaireResponse> result = new HashMap<>();
+        Set<Long> missing = new HashSet<>();
+        for (Long id : ids) {
+            if (id == null) {
+                continue;
+            }
+            Cache.ValueWrapper cached = cache.get(id);
+            if (cached == null) {
+                missing.add(id);
+            } else if (cached.get() != null) {
+                result.put(id, (BeneficiaireResponse) cached.get());
+            }
+        }
+        if (!missing.isEmpty()) {
+            Map<Long, BeneficiaireResponse> fetched = new HashMap<>();
+            fetchInChunks(new ArrayList<>(missing), idsChunkSize, beneficiaireClient::getBeneficiairesByIds)
+                    .forEach(chunk -> chunk.forEach(beneficiaire -> fetched.put(beneficiaire.getId(), beneficiaire)));
+            for (Long id : missing) {
+                BeneficiaireResponse beneficiaire = fetched.get(id);
+                cache.put(id, beneficiaire);
+                if (beneficiaire != null) {
+                    result.put(id, beneficiaire);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Vérifie l'existence de plusieurs bénéficiaires : seuls les identifiants absents du
+     * cache sont envoyés, en un seul appel, au service bénéficiaire.
+     */
+    public Map<Long, Boolean> checkBeneficiairesExist(Collection<Long> ids) {
+        Cache cache = cacheManager.getCache(CACHE_EXISTENCE);
+        Map<Long, Boolean> result = new HashMap<>();
+        Set<Long> missing = new HashSet<>();
+        for (Long id : ids) {
+            Boolean cached = cache.get(id, Boolean.class);
+            if (cached != null) {
+                result.put(id, cached);
+            } else {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            Map<Long, Boolean> fetched = new HashMap<>();
+            fetchInChunks(new ArrayList<>(missing), existsChunkSize, beneficiaireClient::checkBeneficiairesExist)
+                    .forEach(fetched::putAll);
+            for (Long id : missing) {
+                boolean exists = Boolean.TRUE.equals(fetched.get(id));
+                cache.put(id, exists);
+                result.put(id, exists);
+            }
+        }
+        return result;
+    }
+
+    // Les gros lots sont découpés et les morceaux interrogés en parallèle
+    private <T> List<T> fetchInChunks(List<Long> ids, int chunkSize, Function<List<Long>, T> call) {
+        if (ids.size() <= chunkSize) {
+            return List.of(call.apply(ids));
+        }
+        List<CompletableFuture<T>> futures = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+            futures.add(CompletableFuture.supplyAsync(() -> call.apply(chunk), taskExecutor));
+        }
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+
+    public void evict(Long beneficiaireId, Collection<String> ribs) {
+        if (beneficiaireId != null) {
+            cacheManager.getCache(CACHE_BENEFICIAIRES).evict(beneficiaireId);
+            cacheManager.getCache(CACHE_EXISTENCE).evict(beneficiaireId);
+        }
+        if (ribs != null) {
+            Cache ribCache = cacheManager.getCache(CACHE_RIB);
+            ribs.forEach(ribCache::evict);
+        }
+    }
+
+    public void evictAll() {
+        cacheManager.getCache(CACHE_BENEFICIAIRES).clear();
+        cacheManager.getCache(CACHE_EXISTENCE).clear();
+        cacheManager.getCache(CACHE_RIB).clear();
+    }
+}
@@ -0,0 +1,268 @@
+package com.enset.virementservice.client;
+
+import com.enset.virementservice.dtos.BeneficiaireChangesResponse;
+import com.enset.virementservice.dtos.BeneficiaireResponse;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * {@link BeneficiaireClient} protégé : délai par méthode, bulkhead (appels sortants simultanés bornés)
+ * et disjoncteur devant le client Feign, pour qu'un service bénéficiaire lent ne bloque pas
+ * les threads de ce service.
+ * <p>
+ * Toutes les méthodes du client sont des lectures ; elles peuvent donc être doublées
+ * (requêtes « hedgées ») : si la réponse tarde au-delà de {@code hedging.delay} et que plusieurs
+ * instances sont enregistrées, un second appel part (le load balancer round-robin le dirige
+ * vers une autre instance) et la première réponse reçue l'emporte.
+ */
+@Component
+@Primary
+public class ResilientBeneficiaireClient implements BeneficiaireClient {
+
+    private static final String SERVICE_ID = "beneficiaire-service";
+
+    @Autowired
+    @Qualifier("beneficiaireFeignClient")
+    private BeneficiaireClient delegate;
+
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @Autowired
+    private BulkheadRegistry bulkheadRegistry;
+
+    @Autowired
+    private TimeLimiterRegistry timeLimiterRegistry;
+
+    @Autowired
+    private DiscoveryClient discoveryClient;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${virement.beneficiaire-client.default-timeout:2s}")
+    private Duration defaultTimeout;
+
+    @Value("${virement.beneficiaire-client.hedging.enabled:false}")
+    private boolean hedgingEnabled;
+
+    @Value("${virement.beneficiaire-client.hedging.delay:150ms}")
+    private Duration hedgingDelay;
+
+    // Les appels Feign sont bloquants : un thread virtuel par appel, le bulkhead borne leur nombre.
+    // Interrompre un thread virtuel bloqué sur une socket ferme celle-ci : l'appel s'arrête vraiment
+    private final ThreadFactory threadFactory = Thread.ofVirtual().name("beneficiaire-client-", 0).factory();
+    private final ScheduledExecutorService hedgeScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "beneficiaire-hedge");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private CircuitBreaker circuitBreaker;
+    private Bulkhead bulkhead;
+    private Counter hedgesLances;
+    private Counter hedgesGagnants;
+
+    @PostConstruct
+    void init() {
+        circuitBreaker = circuitBreakerRegistry.circuitBreaker(SERVICE_ID);
+        bulkhead = bulkheadRegistry.bulkhead(SERVICE_ID);
+        hedgesLances = Counter.builder("beneficiaire.client.hedges")
+                .description("Seconds appels lancés faute de réponse dans le délai de hedging")
+                .tag("resultat", "lance")
+                .register(meterRegistry);
+        hedgesGagnants = Counter.builder("beneficiaire.client.hedges")
+                .description("Seconds appels ayant répondu avant l'appel initial")
+                .tag("resultat", "gagne")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        hedgeScheduler.shutdownNow();
+    }
+
+    @Override
+    public BeneficiaireResponse getBeneficiaireById(Long id) {
+        return call("getBeneficiaireById", () -> delegate.getBeneficiaireById(id));
+    }
+
+    @Override
+    public List<BeneficiaireResponse> getBeneficiairesByIds(Collection<Long> ids) {
+        return call("getBeneficiairesByIds", () -> delegate.getBeneficiairesByIds(ids));
+    }
+
+    @Override
+    public Boolean checkBeneficiaireExists(Long id) {
+        return call("checkBeneficiaireExists", () -> delegate.checkBeneficiaireExists(id));
+    }
+
+    @Override
+    public Map<Long, Boolean> checkBeneficiairesExist(Collection<Long> ids) {
+        return call("checkBeneficiairesExist", () -> delegate.checkBeneficiairesExist(ids));
+    }
+
+    @Override
+    public BeneficiaireResponse getBeneficiaireByRib(String rib) {
+        return call("getBeneficiaireByRib", () -> delegate.getBeneficiaireByRib(rib));
+    }
+
+    @Override
+    public BeneficiaireChangesResponse getChanges(long after) {
+        return call("getChanges", () -> delegate.getChanges(after));
+    }
+
+    private <T> T call(String method, Supplier<T> feignCall) {
+        TimeLimiter timeLimiter = timeLimiter(method);
+        try {
+            return circuitBreaker.executeCallable(() -> attendre(timeLimiter, launch(feignCall)));
+        } catch (CallNotPermittedException | BulkheadFullException | TimeoutException e) {
+            throw new BeneficiaireServiceUnavailableException(
+                    "Service bénéficiaire indisponible (" + method + ") : " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            // Exceptions Feign (404, 500...) propagées telles quelles aux appelants
+            throw e;
+        } catch (Exception e) {
+            throw new BeneficiaireServiceUnavailableException("Erreur d'appel au service bénéficiaire (" + method + ")", e);
+        }
+    }
+
+    // virement.beneficiaire-client.timeouts.<méthode> surcharge le délai par défaut
+    private TimeLimiter timeLimiter(String method) {
+        return timeLimiterRegistry.timeLimiter(SERVICE_ID + "." + method, () -> TimeLimiterConfig.custom()
+                .timeoutDuration(environment.getProperty(
+                        "virement.beneficiaire-client.timeouts." + method, Duration.class, defaultTimeout))
+                .build());
+    }
+
+    // Attend le premier succès dans le délai de la méthode, puis interrompt les appels encore en cours
+    private <T> T attendre(TimeLimiter timeLimiter, Tentatives<T> tentatives) throws Exception {
+        try {
+            T value = tentatives.resultat.get(
+                    timeLimiter.getTimeLimiterConfig().getTimeoutDuration().toMillis(), TimeUnit.MILLISECONDS);
+            timeLimiter.onSuccess();
+            return value;
+        } catch (TimeoutException e) {
+            timeLimiter.onError(e);
+            throw e;
+        } catch (ExecutionException e) {
+            timeLimiter.onError(e.getCause());
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        } finally {
+            tentatives.annuler();
+        }
+    }
+
+    private <T> Tentatives<T> launch(Supplier<T> feignCall) {
+        Tentatives<T> tentatives = new Tentatives<>(feignCall);
+        // Bulkhead plein : BulkheadFullException, aucun appel ne part
+        bulkhead.acquirePermission();
+        tentatives.lancer(false);
+        if (!hedgingEnabled || discoveryClient.getInstances(SERVICE_ID).size() < 2) {
+            return tentatives;
+        }
+
+        ScheduledFuture<?> hedge = hedgeScheduler.schedule(() -> {
+            // Le second appel occupe lui aussi une place du bulkhead ; sans place libre, il n'est pas lancé
+            if (!tentatives.resultat.isDone() && bulkhead.tryAcquirePermission()) {
+                hedgesLances.increment();
+                tentatives.lancer(true);
+            }
+        }, hedgingDelay.toMillis(), TimeUnit.MILLISECONDS);
+
+        tentatives.resultat.whenComplete((value, error) -> hedge.cancel(false));
+        return tentatives;
+    }
+
+    /**
+     * Appels lancés pour une même lecture, chacun sur son thread virtuel. Le premier succès
+     * l'emporte ; l'échec n'est retenu que si plus aucun appel n'est en cours. Chaque appel
+     * détient une place du bulkhead jusqu'à sa fin réelle : un appel abandonné (délai dépassé,
+     * hedge perdant) est interrompu, ce qui ferme sa socket, et ne rend sa place qu'ensuite.
+     */
+    private final class Tentatives<T> {
+
+        private final Supplier<T> feignCall;
+        private final CompletableFuture<T> resultat = new CompletableFuture<>();
+        private final List<Thread> threads = new ArrayList<>();
+        private int enCours;
+
+        private Tentatives(Supplier<T> feignCall) {
+            this.feignCall = feignCall;
+        }
+
+        // Appelé avec une place du bulkhead déjà acquise
+        private synchronized void lancer(boolean isHedge) {
+            if (resultat.isDone()) {
+                bulkhead.onComplete();
+                return;
+            }
+            enCours++;
+            threads.add(threadFactory.newThread(() -> executer(isHedge)));
+            threads.get(threads.size() - 1).start();
+        }
+
+        private void executer(boolean isHedge) {
+            try {
+                T value = feignCall.get();
+                if (resultat.complete(value) && isHedge) {
+                    hedgesGagnants.increment();
+                }
+            } catch (Throwable error) {
+                echec(error);
+            } finally {
+                bulkhead.onComplete();
+            }
+        }
+
+        private synchronized void echec(Throwable error) {
+            if (--enCours == 0) {
+                resultat.completeExceptionally(error);
+            }
+        }
+
+        private synchronized void annuler() {
+            resultat.cancel(false);
+            threads.forEach(Thread::interrupt);
+        }
+    }
+}
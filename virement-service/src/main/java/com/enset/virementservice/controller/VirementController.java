@@ -1,15 +1,30 @@
 package com.enset.virementservice.controller;
 
+import com.enset.virementservice.client.BeneficiaireCacheInvalidator;
+import com.enset.virementservice.client.BeneficiaireServiceUnavailableException;
+import com.enset.virementservice.dtos.VirementBatchResult;
+import com.enset.virementservice.dtos.VirementEventFeed;
+import com.enset.virementservice.dtos.VirementPage;
 import com.enset.virementservice.dtos.VirementRequest;
 import com.enset.virementservice.dtos.VirementResponse;
 import com.enset.virementservice.entities.Virement;
+import com.enset.virementservice.service.IdempotentVirementService;
+import com.enset.virementservice.service.VirementEventService;
+import com.enset.virementservice.service.VirementExportService;
 import com.enset.virementservice.service.VirementService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -24,30 +39,120 @@ public class VirementController {
     @Autowired
     private VirementService virementService;
 
+    @Autowired
+    private VirementExportService virementExportService;
+
+    @Autowired
+    private IdempotentVirementService idempotentVirementService;
+
+    @Autowired
+    private VirementEventService virementEventService;
+
+    @Autowired
+    private BeneficiaireCacheInvalidator beneficiaireCacheInvalidator;
+
+    @Value("${virement.batch.max-size:10000}")
+    private int batchMaxSize;
+
     @PostMapping
-   @Operation(summary = "Créer un nouveau virement", description = "Crée un nouveau virement après validation du bénéficiaire")
-    public ResponseEntity<VirementResponse> createVirement(@RequestBody VirementRequest virementRequest) {
+   @Operation(summary = "Créer un nouveau virement",
+           description = "Crée un nouveau virement après validation du bénéficiaire. Avec l'en-tête Idempotency-Key, " +
+                   "une requête rejouée renvoie la réponse d'origine sans créer de nouveau virement")
+    public ResponseEntity<VirementResponse> createVirement(
+            @RequestBody VirementRequest virementRequest,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         try {
-            VirementResponse createdVirement = virementService.createVirement(virementRequest);
-            return ResponseEntity.ok(createdVirement);
+            if (idempotencyKey == null) {
+                VirementResponse createdVirement = virementService.createVirement(virementRequest);
+                return ResponseEntity.ok(createdVirement);
+            }
+            IdempotentVirementService.Resultat resultat =
+                    idempotentVirementService.createVirement(idempotencyKey, virementRequest);
+            return ResponseEntity.ok()
+                    .header("Idempotent-Replayed", String.valueOf(resultat.rejoue()))
+                    .body(resultat.response());
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            // Clé déjà associée à une requête différente
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (BeneficiaireServiceUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    @PostMapping("/batch")
+    @Operation(summary = "Créer des virements en lot",
+            description = "Valide tous les bénéficiaires en un seul appel et retourne un résultat par virement")
+    public ResponseEntity<List<VirementBatchResult>> createVirementsBatch(@RequestBody List<VirementRequest> virementRequests) {
+        if (virementRequests.isEmpty() || virementRequests.size() > batchMaxSize) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(virementService.createVirementsBatch(virementRequests));
+        } catch (BeneficiaireServiceUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         }
     }
 
     @GetMapping
-    @Operation(summary = "Lister tous les virements")
-    public List<VirementResponse> getAllVirements() {
-        // Dans une vraie application, ajouter la pagination
-        return virementService.getVirementsByRibSource("ALL"); // Modifier selon les besoins
+    @Operation(summary = "Lister tous les virements",
+            description = "Du plus récent au plus ancien, paginé par curseur ; details=true ajoute nom, prénom et RIB du bénéficiaire")
+    public ResponseEntity<VirementPage> getAllVirements(@RequestParam(required = false) String cursor,
+                                                        @RequestParam(required = false) Integer size,
+                                                        @RequestParam(defaultValue = "false") boolean details,
+                                                        WebRequest request) {
+        if (checkNotModified(request, details)) {
+            return null;
+        }
+        try {
+            return ResponseEntity.ok(virementService.getVirements(cursor, size, details));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
+    // JSON uniquement : le virement embarqué est du JSON brut (@JsonRawValue), non transcodable en Smile
+    @GetMapping(value = "/events", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Suivre les changements de virements",
+            description = "Événements dans l'ordre de publication ; repasser la valeur \"after\" retournée pour obtenir la suite")
+    public VirementEventFeed getEvents(@RequestParam(defaultValue = "0") long after,
+                                       @RequestParam(required = false) Integer limit) {
+        return virementEventService.getEvents(after, limit);
+    }
+
+    @GetMapping("/export")
+    @Operation(summary = "Exporter les virements en NDJSON ou CSV",
+            description = "Filtre par RIB source et/ou période ; les lignes sont streamées sans être chargées en mémoire")
+    public ResponseEntity<StreamingResponseBody> exportVirements(
+            @RequestParam(required = false) String ribSource,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        VirementExportService.Format exportFormat;
+        try {
+            exportFormat = VirementExportService.Format.parse(format);
+            virementExportService.validateCriteria(ribSource, startDate, endDate);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        StreamingResponseBody body = out ->
+                virementExportService.export(ribSource, startDate, endDate, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"virements." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
+    // Si If-None-Match correspond, Spring répond 304 sans sérialiser le corps
     @GetMapping("/{id}")
     @Operation(summary = "Trouver un virement par ID")
     public ResponseEntity<VirementResponse> getVirementById(@PathVariable Long id) {
         try {
             VirementResponse virement = virementService.getVirementWithDetails(id);
-            return ResponseEntity.ok(virement);
+            return ResponseEntity.ok().eTag(etag(virement)).body(virement);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.notFound().build();
         }
@@ -58,7 +163,7 @@ public class VirementController {
     public ResponseEntity<VirementResponse> getVirementWithDetails(@PathVariable Long id) {
         try {
             VirementResponse virement = virementService.getVirementWithDetails(id);
-            return ResponseEntity.ok(virement);
+            return ResponseEntity.ok().eTag(etag(virement)).body(virement);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.notFound().build();
         }
@@ -66,20 +171,53 @@ public class VirementController {
 
     @GetMapping("/beneficiaire/{beneficiaireId}")
     @Operation(summary = "Lister les virements par bénéficiaire")
-    public List<VirementResponse> getVirementsByBeneficiaire(@PathVariable Long beneficiaireId) {
-        return virementService.getVirementsByBeneficiaire(beneficiaireId);
+    public ResponseEntity<VirementPage> getVirementsByBeneficiaire(@PathVariable Long beneficiaireId,
+                                                                   @RequestParam(required = false) String cursor,
+                                                                   @RequestParam(required = false) Integer size,
+                                                                   @RequestParam(defaultValue = "false") boolean details,
+                                                                   WebRequest request) {
+        if (checkNotModified(request, details)) {
+            return null;
+        }
+        try {
+            return ResponseEntity.ok(virementService.getVirementsByBeneficiaire(beneficiaireId, cursor, size, details));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/source/{ribSource}")
     @Operation(summary = "Lister les virements par RIB source")
-    public List<VirementResponse> getVirementsByRibSource(@PathVariable String ribSource) {
-        return virementService.getVirementsByRibSource(ribSource);
+    public ResponseEntity<VirementPage> getVirementsByRibSource(@PathVariable String ribSource,
+                                                                @RequestParam(required = false) String cursor,
+                                                                @RequestParam(required = false) Integer size,
+                                                                @RequestParam(defaultValue = "false") boolean details,
+                                                                WebRequest request) {
+        if (checkNotModified(request, details)) {
+            return null;
+        }
+        try {
+            return ResponseEntity.ok(virementService.getVirementsByRibSource(ribSource, cursor, size, details));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/statut/{statut}")
     @Operation(summary = "Lister les virements par statut")
-    public List<VirementResponse> getVirementsByStatut(@PathVariable Virement.StatutVirement statut) {
-        return virementService.getVirementsByStatut(statut);
+    public ResponseEntity<VirementPage> getVirementsByStatut(@PathVariable Virement.StatutVirement statut,
+                                                             @RequestParam(required = false) String cursor,
+                                                             @RequestParam(required = false) Integer size,
+                                                             @RequestParam(defaultValue = "false") boolean details,
+                                                             WebRequest request) {
+        if (checkNotModified(request, details)) {
+            return null;
+        }
+        try {
+            return ResponseEntity.ok(virementService.getVirementsByStatut(statut, cursor, size, details));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @PutMapping("/{id}/statut")
@@ -92,6 +230,9 @@ public class VirementController {
             return ResponseEntity.ok(updatedVirement);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.notFound().build();
+        } catch (OptimisticLockingFailureException e) {
+            // Modifié entre-temps (exécution ou annulation concurrente)
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         }
     }
 
@@ -103,6 +244,8 @@ public class VirementController {
             return ResponseEntity.ok().build();
         } catch (IllegalArgumentException | IllegalStateException e) {
             return ResponseEntity.badRequest().build();
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         }
     }
 
@@ -115,6 +258,15 @@ public class VirementController {
         return virementService.getTotalVirementsPeriod(ribSource, startDate, endDate);
     }
 
+    @GetMapping("/stats/count")
+    @Operation(summary = "Obtenir le nombre de virements pour une période")
+    public Long countVirementsPeriod(
+            @RequestParam String ribSource,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+        return virementService.countVirementsPeriod(ribSource, startDate, endDate);
+    }
+
     @DeleteMapping("/{id}")
     @Operation(summary = "Supprimer un virement")
     public ResponseEntity<Void> deleteVirement(@PathVariable Long id) {
@@ -127,4 +279,23 @@ public class VirementController {
             return ResponseEntity.notFound().build();
         }
     }
+
+    private static String etag(VirementResponse virement) {
+        String beneficiaire = virement.getBeneficiaireVersion() == null
+                ? "x"
+                : virement.getBeneficiaireId() + "." + virement.getBeneficiaireVersion();
+        return virement.getId() + "." + virement.getVersion() + "-" + beneficiaire;
+    }
+
+    /**
+     * ETag des listes dérivé du dernier événement de l'outbox, sans exécuter la requête de
+     * la page. Si le client a déjà cette version, la réponse 304 est envoyée et le contrôleur
+     * retourne {@code null}.
+     */
+    private boolean checkNotModified(WebRequest request, boolean details) {
+        return virementEventService.versionStable()
+                .map(version -> details ? version + "-" + beneficiaireCacheInvalidator.getVersion() : "e" + version)
+                .map(request::checkNotModified)
+                .orElse(false);
+    }
 }
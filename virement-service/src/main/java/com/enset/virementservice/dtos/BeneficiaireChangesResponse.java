@@ -0,0 +1,23 @@
+package com.enset.virementservice.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Set;
+
+@Data @AllArgsConstructor @NoArgsConstructor
+public class BeneficiaireChangesResponse {
+    private String epoch;
+    private long sequence;
+    private boolean reset;
+    private List<Change> changes;
+
+    @Data @AllArgsConstructor @NoArgsConstructor
+    public static class Change {
+        private long sequence;
+        private Long beneficiaireId;
+        private Set<String> ribs;
+    }
+}
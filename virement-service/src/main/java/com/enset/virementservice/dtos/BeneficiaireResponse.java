@@ -11,4 +11,5 @@ public class BeneficiaireResponse {
     private String prenom;
     private String rib;
     private String type;
+    private Long version;
 }
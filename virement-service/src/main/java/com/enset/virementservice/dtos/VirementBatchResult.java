@@ -0,0 +1,28 @@
+package com.enset.virementservice.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data @AllArgsConstructor @NoArgsConstructor @Builder
+public class VirementBatchResult {
+
+    // Position de la demande dans le lot reçu (à partir de 0)
+    private int index;
+    private StatutTraitement statut;
+    private Long virementId;
+    private String motif;
+
+    public enum StatutTraitement {
+        ACCEPTE, REJETE
+    }
+
+    public static VirementBatchResult accepte(int index, Long virementId) {
+        return new VirementBatchResult(index, StatutTraitement.ACCEPTE, virementId, null);
+    }
+
+    public static VirementBatchResult rejete(int index, String motif) {
+        return new VirementBatchResult(index, StatutTraitement.REJETE, null, motif);
+    }
+}
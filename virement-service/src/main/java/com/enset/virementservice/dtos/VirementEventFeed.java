@@ -0,0 +1,14 @@
+package com.enset.virementservice.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data @AllArgsConstructor @NoArgsConstructor
+public class VirementEventFeed {
+    private List<VirementEventResponse> events;
+    // Valeur à repasser dans "after" pour obtenir la suite
+    private long after;
+}
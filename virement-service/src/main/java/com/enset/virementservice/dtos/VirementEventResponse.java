@@ -0,0 +1,31 @@
+package com.enset.virementservice.dtos;
+
+import com.enset.virementservice.entities.Virement;
+import com.enset.virementservice.entities.VirementEvent;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data @AllArgsConstructor @NoArgsConstructor @Builder
+public class VirementEventResponse {
+    private Long id;
+    // Position dans le flux, dans l'ordre de publication
+    private Long ordrePublication;
+    private Long virementId;
+    private VirementEvent.TypeEvenement type;
+    private Virement.StatutVirement ancienStatut;
+    private Virement.StatutVirement statut;
+    private LocalDateTime createdAt;
+    // Déjà sérialisé à l'écriture de l'événement : recopié tel quel dans la réponse
+    @JsonRawValue
+    private String virement;
+
+    public static VirementEventResponse from(VirementEvent event) {
+        return new VirementEventResponse(event.getId(), event.getOrdrePublication(), event.getVirementId(), event.getType(),
+                event.getAncienStatut(), event.getStatut(), event.getCreatedAt(), event.getPayload());
+    }
+}
@@ -0,0 +1,15 @@
+package com.enset.virementservice.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data @AllArgsConstructor @NoArgsConstructor
+public class VirementPage {
+    private List<VirementResponse> content;
+    // Jeton opaque à renvoyer dans le paramètre "cursor" ; null s'il n'y a plus de page
+    private String nextCursor;
+    private int size;
+}
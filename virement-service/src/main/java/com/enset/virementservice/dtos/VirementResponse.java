@@ -1,6 +1,7 @@
 package com.enset.virementservice.dtos;
 
 import com.enset.virementservice.entities.Virement;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.*;
 
 import java.math.BigDecimal;
@@ -18,5 +19,9 @@ public class VirementResponse {
     private String beneficiaireNom;
     private String beneficiairePrenom;
     private String beneficiaireRib;
+    private Long version;
+    // Version du bénéficiaire ayant servi à l'enrichissement : entre dans l'ETag, pas dans le JSON
+    @JsonIgnore
+    private Long beneficiaireVersion;
 
 }
\ No newline at end of file
@@ -0,0 +1,49 @@
+package com.enset.virementservice.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "idempotency_keys")
+@Data @NoArgsConstructor
+public class IdempotencyKey implements Persistable<String> {
+
+    @Id
+    @Column(name = "idempotency_key")
+    private String cle;
+
+    private String requestHash;
+
+    private Long virementId;
+
+    @Lob
+    private String responseBody;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime expiresAt;
+
+    // Identifiant fourni par le client : force un INSERT (et donc la contrainte d'unicité) au lieu d'un merge
+    @Transient
+    private boolean nouveau = true;
+
+    @Override
+    public String getId() {
+        return cle;
+    }
+
+    @Override
+    public boolean isNew() {
+        return nouveau;
+    }
+
+    @PostLoad
+    @PostPersist
+    void marquerPersiste() {
+        nouveau = false;
+    }
+}
@@ -34,6 +34,9 @@ public class Virement {
     @Enumerated(EnumType.STRING)
     private StatutVirement statut;
 
+    @Version
+    private Long version;
+
     public enum TypeVirement {
         NORMAL, INSTANTANE
     }
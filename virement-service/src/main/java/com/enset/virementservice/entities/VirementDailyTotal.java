@@ -0,0 +1,43 @@
+package com.enset.virementservice.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Cumul journalier des virements par RIB source et par statut, maintenu dans la même
+ * transaction que chaque écriture sur {@link Virement}.
+ */
+@Entity
+@Table(name = "virement_daily_totals")
+@IdClass(VirementDailyTotal.Key.class)
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class VirementDailyTotal {
+
+    @Id
+    private String ribSource;
+
+    @Id
+    private LocalDate jour;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    private Virement.StatutVirement statut;
+
+    private BigDecimal montantTotal;
+
+    private Long nombre;
+
+    @Data @NoArgsConstructor @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String ribSource;
+        private LocalDate jour;
+        private Virement.StatutVirement statut;
+    }
+}
@@ -0,0 +1,45 @@
+package com.enset.virementservice.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "virement_events")
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class VirementEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long virementId;
+
+    @Enumerated(EnumType.STRING)
+    private TypeEvenement type;
+
+    @Enumerated(EnumType.STRING)
+    private Virement.StatutVirement ancienStatut;
+
+    @Enumerated(EnumType.STRING)
+    private Virement.StatutVirement statut;
+
+    // Instantané du virement (VirementResponse) au moment de l'événement, en JSON
+    @Lob
+    private String payload;
+
+    private LocalDateTime createdAt;
+
+    private boolean publie;
+
+    // Attribué à la publication, dans l'ordre des commits : curseur du flux GET /virements/events
+    private Long ordrePublication;
+
+    public enum TypeEvenement {
+        CREE, STATUT_MODIFIE, ANNULE
+    }
+}
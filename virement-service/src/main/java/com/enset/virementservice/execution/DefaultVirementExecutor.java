@@ -0,0 +1,23 @@
+package com.enset.virementservice.execution;
+
+import com.enset.virementservice.client.CachedBeneficiaireClient;
+import com.enset.virementservice.entities.Virement;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Exécution par défaut du POC : revérifie que le bénéficiaire existe toujours au moment
+ * du règlement. Un connecteur vers le système de paiement remplacerait ce bean.
+ */
+@Component
+public class DefaultVirementExecutor implements VirementExecutor {
+
+    @Autowired
+    private CachedBeneficiaireClient beneficiaireClient;
+
+    @Override
+    public Virement.StatutVirement executer(Virement virement) {
+        Boolean exists = beneficiaireClient.checkBeneficiaireExists(virement.getBeneficiaireId());
+        return Boolean.TRUE.equals(exists) ? Virement.StatutVirement.EXECUTE : Virement.StatutVirement.REJETE;
+    }
+}
@@ -0,0 +1,131 @@
+package com.enset.virementservice.execution;
+
+import com.enset.virementservice.entities.Virement;
+import com.enset.virementservice.repo.VirementExecutionRepository;
+import com.enset.virementservice.repo.VirementRepository;
+import com.enset.virementservice.service.VirementService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Réserve les virements en attente par lots et les exécute sur des threads virtuels.
+ * Le nombre d'exécutions simultanées est borné par {@code virement.execution.workers} ;
+ * plusieurs instances du service peuvent tourner en parallèle sur la même file.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "virement.execution.enabled", havingValue = "true", matchIfMissing = true)
+public class VirementExecutionWorker {
+
+    private final String owner = UUID.randomUUID().toString();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore permits;
+
+    @Autowired
+    private VirementExecutionRepository executionRepository;
+
+    @Autowired
+    private VirementRepository virementRepository;
+
+    @Autowired
+    private VirementService virementService;
+
+    @Autowired
+    private VirementExecutor virementExecutor;
+
+    @Value("${virement.execution.batch-size:100}")
+    private int batchSize;
+
+    @Value("${virement.execution.lease:60s}")
+    private Duration lease;
+
+    @Value("${virement.execution.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${virement.execution.backoff-initial:1s}")
+    private Duration backoffInitial;
+
+    @Value("${virement.execution.backoff-max:5m}")
+    private Duration backoffMax;
+
+    public VirementExecutionWorker(@Value("${virement.execution.workers:32}") int workers) {
+        this.permits = new Semaphore(workers);
+    }
+
+    @Scheduled(fixedDelayString = "${virement.execution.poll-interval:200}")
+    public void poll() {
+        int claimed;
+        do {
+            int available = Math.min(permits.availablePermits(), batchSize);
+            if (available == 0) {
+                return;
+            }
+            List<Long> ids = executionRepository.claim(owner, available, lease);
+            claimed = ids.size();
+            for (Long id : ids) {
+                permits.acquireUninterruptibly();
+                executor.submit(() -> {
+                    try {
+                        traiter(id);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+            // Lot complet : il reste probablement du travail, on enchaîne sans attendre le prochain tick
+        } while (claimed == batchSize);
+    }
+
+    private void traiter(Long virementId) {
+        Virement virement = virementRepository.findById(virementId).orElse(null);
+        if (virement == null || virement.getStatut() != Virement.StatutVirement.INITIE) {
+            // Annulé ou modifié entre-temps : il n'y a plus rien à exécuter
+            virementService.finaliserExecution(virementId, null, owner);
+            return;
+        }
+
+        try {
+            virementService.finaliserExecution(virementId, virementExecutor.executer(virement), owner);
+        } catch (Exception e) {
+            OptionalInt echec = executionRepository.echec(virementId, owner);
+            if (echec.isEmpty()) {
+                // Bail expiré et repris : la ligne appartient à un autre worker, on ne la touche plus
+                log.warn("Bail du virement {} perdu par {} : échec ignoré ({})", virementId, owner, e.getMessage());
+                return;
+            }
+            int tentatives = echec.getAsInt();
+            if (tentatives >= maxAttempts) {
+                log.warn("Virement {} rejeté après {} tentatives : {}", virementId, tentatives, e.getMessage());
+                virementService.finaliserExecution(virementId, Virement.StatutVirement.REJETE, owner);
+            } else if (!executionRepository.reschedule(virementId, owner,
+                    LocalDateTime.now().plus(backoff(tentatives)), e.getMessage())) {
+                log.warn("Bail du virement {} perdu par {} avant sa reprogrammation", virementId, owner);
+            }
+        }
+    }
+
+    // Attente exponentielle : initial, 2x, 4x... plafonnée à backoffMax
+    private Duration backoff(int tentatives) {
+        Duration delay = backoffInitial.multipliedBy(1L << Math.min(tentatives - 1, 20));
+        return delay.compareTo(backoffMax) > 0 ? backoffMax : delay;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
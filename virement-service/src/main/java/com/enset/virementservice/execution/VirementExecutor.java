@@ -0,0 +1,12 @@
+package com.enset.virementservice.execution;
+
+import com.enset.virementservice.entities.Virement;
+
+/**
+ * Exécute un virement accepté. Retourne {@code EXECUTE} ou {@code REJETE} ; toute exception
+ * est considérée comme transitoire et le virement est retenté plus tard.
+ */
+public interface VirementExecutor {
+
+    Virement.StatutVirement executer(Virement virement);
+}
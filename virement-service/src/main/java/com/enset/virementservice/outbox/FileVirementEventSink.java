@@ -0,0 +1,44 @@
+package com.enset.virementservice.outbox;
+
+import com.enset.virementservice.dtos.VirementEventResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Ajoute les événements, un par ligne (NDJSON), à la fin d'un fichier local.
+ */
+@Component
+@ConditionalOnProperty(name = "virement.outbox.sink", havingValue = "file")
+public class FileVirementEventSink implements VirementEventSink {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${virement.outbox.file:virement-events.ndjson}")
+    private Path file;
+
+    @Override
+    public synchronized void publier(List<VirementEventResponse> events) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE)) {
+            for (VirementEventResponse event : events) {
+                writer.write(objectMapper.writeValueAsString(event));
+                writer.newLine();
+            }
+        }
+    }
+}
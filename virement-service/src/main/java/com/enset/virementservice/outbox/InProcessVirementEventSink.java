@@ -0,0 +1,26 @@
+package com.enset.virementservice.outbox;
+
+import com.enset.virementservice.dtos.VirementEventResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Diffuse les événements en ApplicationEvent Spring, pour les consommateurs du même processus
+ * (exécutions locales, tests).
+ */
+@Component
+@ConditionalOnProperty(name = "virement.outbox.sink", havingValue = "in-process", matchIfMissing = true)
+public class InProcessVirementEventSink implements VirementEventSink {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public void publier(List<VirementEventResponse> events) {
+        events.forEach(eventPublisher::publishEvent);
+    }
+}
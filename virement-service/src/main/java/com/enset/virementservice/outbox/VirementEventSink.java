@@ -0,0 +1,20 @@
+package com.enset.virementservice.outbox;
+
+import com.enset.virementservice.dtos.VirementEventResponse;
+
+import java.util.List;
+
+/**
+ * Destination des événements relayés depuis l'outbox. Les événements arrivent dans l'ordre de
+ * {@code ordrePublication}, attribué sous le verrou du compteur
+ * {@code virement_events_ordre} : cet ordre suit celui des commits, pas celui des identifiants,
+ * et un identifiant plus petit peut arriver après un plus grand.
+ * <p>
+ * Un lot n'est marqué publié que si {@link #publier} se termine sans erreur ; sinon il est
+ * republié au passage suivant (livraison au moins une fois), et l'ordre de publication déjà
+ * transmis peut alors être réattribué : le dédoublonnage se fait sur l'identifiant.
+ */
+public interface VirementEventSink {
+
+    void publier(List<VirementEventResponse> events) throws Exception;
+}
@@ -0,0 +1,69 @@
+package com.enset.virementservice.outbox;
+
+import com.enset.virementservice.dtos.VirementEventResponse;
+import com.enset.virementservice.entities.VirementEvent;
+import com.enset.virementservice.repo.VirementEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Vide l'outbox vers le {@link VirementEventSink} configuré, par lots ordonnés.
+ * Le lot reste verrouillé jusqu'au marquage : un relais concurrent attend au lieu de republier.
+ * Chaque événement publié reçoit un ordre de publication croissant : le relais ne voit que des
+ * transactions validées, cet ordre suit donc celui des commits, contrairement à l'identifiant.
+ */
+@Slf4j
+@Component
+public class VirementOutboxRelay {
+
+    @Autowired
+    private VirementEventRepository virementEventRepository;
+
+    @Autowired
+    private VirementEventSink sink;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${virement.outbox.relay-batch-size:200}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${virement.outbox.relay-interval:1000}")
+    public void relayer() {
+        try {
+            Integer relayes;
+            do {
+                relayes = transactionTemplate.execute(status -> relayerLot());
+            } while (relayes != null && relayes == batchSize);
+        } catch (Exception e) {
+            // Le lot n'est pas marqué : il sera republié au prochain passage (livraison au moins une fois)
+            log.warn("Échec du relais des événements de virement : {}", e.getMessage());
+        }
+    }
+
+    private int relayerLot() {
+        long dernier = virementEventRepository.verrouillerDernierOrdre();
+        List<VirementEvent> events = virementEventRepository.findNonPubliesForUpdate(Limit.of(batchSize));
+        if (events.isEmpty()) {
+            return 0;
+        }
+        for (VirementEvent event : events) {
+            event.setOrdrePublication(++dernier);
+            event.setPublie(true);
+        }
+        try {
+            sink.publier(events.stream().map(VirementEventResponse::from).toList());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        virementEventRepository.enregistrerDernierOrdre(dernier);
+        return events.size();
+    }
+}
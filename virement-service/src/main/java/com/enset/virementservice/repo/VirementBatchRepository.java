@@ -0,0 +1,85 @@
+package com.enset.virementservice.repo;
+
+import com.enset.virementservice.entities.Virement;
+import com.enset.virementservice.entities.VirementEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Insertions JDBC par lots : avec une clé IDENTITY, Hibernate ne sait pas regrouper
+ * les INSERT, on passe donc directement par le driver pour les traitements de masse.
+ */
+@Repository
+public class VirementBatchRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO virements (beneficiaire_id, rib_source, montant, description, date_virement, type, statut, version) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, 0)";
+
+    private static final String INSERT_EVENT_SQL =
+            "INSERT INTO virement_events (virement_id, type, ancien_statut, statut, payload, created_at, publie) " +
+            "VALUES (?, ?, ?, ?, ?, ?, FALSE)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Insère les virements par paquets de {@code batchSize} et renseigne l'identifiant
+     * généré sur chaque entité.
+     */
+    public void insertAll(List<Virement> virements, int batchSize) {
+        for (int from = 0; from < virements.size(); from += batchSize) {
+            List<Virement> chunk = virements.subList(from, Math.min(from + batchSize, virements.size()));
+            KeyHolder keyHolder = new GeneratedKeyHolder();
+
+            jdbcTemplate.batchUpdate(
+                    connection -> connection.prepareStatement(INSERT_SQL, new String[]{"id"}),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            Virement v = chunk.get(i);
+                            ps.setLong(1, v.getBeneficiaireId());
+                            ps.setString(2, v.getRibSource());
+                            ps.setBigDecimal(3, v.getMontant());
+                            ps.setString(4, v.getDescription());
+                            ps.setTimestamp(5, Timestamp.valueOf(v.getDateVirement()));
+                            ps.setString(6, v.getType() != null ? v.getType().name() : null);
+                            ps.setString(7, v.getStatut().name());
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return chunk.size();
+                        }
+                    },
+                    keyHolder);
+
+            List<Map<String, Object>> keys = keyHolder.getKeyList();
+            for (int i = 0; i < chunk.size(); i++) {
+                chunk.get(i).setId(((Number) keys.get(i).get("id")).longValue());
+                chunk.get(i).setVersion(0L);
+            }
+        }
+    }
+
+    public void insertEvents(List<VirementEvent> events, int batchSize) {
+        jdbcTemplate.batchUpdate(INSERT_EVENT_SQL, events, batchSize, (ps, e) -> {
+            ps.setLong(1, e.getVirementId());
+            ps.setString(2, e.getType().name());
+            ps.setString(3, e.getAncienStatut() != null ? e.getAncienStatut().name() : null);
+            ps.setString(4, e.getStatut().name());
+            ps.setString(5, e.getPayload());
+            ps.setTimestamp(6, Timestamp.valueOf(e.getCreatedAt()));
+        });
+    }
+}
@@ -0,0 +1,43 @@
+package com.enset.virementservice.repo;
+
+import com.enset.virementservice.entities.VirementDailyTotal;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Repository
+public interface VirementDailyTotalRepository extends JpaRepository<VirementDailyTotal, VirementDailyTotal.Key> {
+
+    // Incrément atomique côté base : pas de lecture préalable de la ligne de cumul
+    @Modifying
+    @Query(nativeQuery = true, value =
+            "MERGE INTO virement_daily_totals t " +
+            "USING (VALUES (CAST(:ribSource AS VARCHAR(255)), CAST(:jour AS DATE), CAST(:statut AS VARCHAR(255)))) " +
+            "AS s(rib_source, jour, statut) " +
+            "ON t.rib_source = s.rib_source AND t.jour = s.jour AND t.statut = s.statut " +
+            "WHEN MATCHED THEN UPDATE SET montant_total = t.montant_total + :montant, nombre = t.nombre + :nombre " +
+            "WHEN NOT MATCHED THEN INSERT (rib_source, jour, statut, montant_total, nombre) " +
+            "VALUES (s.rib_source, s.jour, s.statut, :montant, :nombre)")
+    void increment(@Param("ribSource") String ribSource,
+                   @Param("jour") LocalDate jour,
+                   @Param("statut") String statut,
+                   @Param("montant") BigDecimal montant,
+                   @Param("nombre") long nombre);
+
+    @Query("SELECT COALESCE(SUM(t.montantTotal), 0) FROM VirementDailyTotal t " +
+            "WHERE t.ribSource = :ribSource AND t.jour BETWEEN :startDay AND :endDay")
+    BigDecimal sumMontant(@Param("ribSource") String ribSource,
+                          @Param("startDay") LocalDate startDay,
+                          @Param("endDay") LocalDate endDay);
+
+    @Query("SELECT COALESCE(SUM(t.nombre), 0) FROM VirementDailyTotal t " +
+            "WHERE t.ribSource = :ribSource AND t.jour BETWEEN :startDay AND :endDay")
+    Long sumNombre(@Param("ribSource") String ribSource,
+                   @Param("startDay") LocalDate startDay,
+                   @Param("endDay") LocalDate endDay);
+}
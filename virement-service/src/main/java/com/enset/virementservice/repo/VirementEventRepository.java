@@ -0,0 +1,37 @@
+package com.enset.virementservice.repo;
+
+import com.enset.virementservice.entities.VirementEvent;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface VirementEventRepository extends JpaRepository<VirementEvent, Long> {
+
+    // Verrouille le lot : deux relais concurrents ne publient jamais les mêmes événements
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM VirementEvent e WHERE e.publie = false ORDER BY e.id")
+    List<VirementEvent> findNonPubliesForUpdate(Limit limit);
+
+    // Sérialise les relais : un lot reçoit ses ordres de publication après ceux du lot validé avant lui
+    @Query(value = "SELECT dernier FROM virement_events_ordre WHERE id = 1 FOR UPDATE", nativeQuery = true)
+    long verrouillerDernierOrdre();
+
+    @Modifying
+    @Query(value = "UPDATE virement_events_ordre SET dernier = :dernier WHERE id = 1", nativeQuery = true)
+    int enregistrerDernierOrdre(@Param("dernier") long dernier);
+
+    boolean existsByPublieFalse();
+
+    @Query("SELECT COALESCE(MAX(e.ordrePublication), 0) FROM VirementEvent e")
+    long maxOrdrePublication();
+
+    List<VirementEvent> findByOrdrePublicationGreaterThanOrderByOrdrePublicationAsc(Long ordre, Limit limit);
+}
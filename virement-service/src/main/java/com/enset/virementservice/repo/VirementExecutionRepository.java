@@ -0,0 +1,115 @@
+package com.enset.virementservice.repo;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.OptionalInt;
+
+/**
+ * File durable des virements à exécuter. Les lignes sont réservées par bail
+ * (propriétaire + expiration) : un worker arrêté en cours de route libère ses
+ * virements à l'expiration du bail.
+ */
+@Repository
+public class VirementExecutionRepository {
+
+    private static final String CLAIM_SQL =
+            "SELECT virement_id FROM virement_executions " +
+            "WHERE prochaine_tentative <= ? AND (verrou_expiration IS NULL OR verrou_expiration < ?) " +
+            "ORDER BY prochaine_tentative LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(List<Long> virementIds, LocalDateTime now) {
+        if (virementIds.isEmpty()) {
+            return;
+        }
+        Timestamp ts = Timestamp.valueOf(now);
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO virement_executions (virement_id, tentatives, prochaine_tentative) VALUES (?, 0, ?)",
+                virementIds, virementIds.size(),
+                (ps, id) -> {
+                    ps.setLong(1, id);
+                    ps.setTimestamp(2, ts);
+                });
+    }
+
+    /**
+     * Réserve jusqu'à {@code limit} virements dus pour {@code owner}. Les lignes déjà
+     * verrouillées par une autre instance sont sautées au lieu d'être attendues.
+     */
+    @Transactional
+    public List<Long> claim(String owner, int limit, Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp nowTs = Timestamp.valueOf(now);
+        List<Long> ids = jdbcTemplate.queryForList(CLAIM_SQL, Long.class, nowTs, nowTs, limit);
+        if (!ids.isEmpty()) {
+            Timestamp expiration = Timestamp.valueOf(now.plus(lease));
+            jdbcTemplate.batchUpdate(
+                    "UPDATE virement_executions SET verrou_proprietaire = ?, verrou_expiration = ? WHERE virement_id = ?",
+                    ids, ids.size(),
+                    (ps, id) -> {
+                        ps.setString(1, owner);
+                        ps.setTimestamp(2, expiration);
+                        ps.setLong(3, id);
+                    });
+        }
+        return ids;
+    }
+
+    /**
+     * Retire le virement de la file si {@code owner} détient toujours son bail.
+     * Renvoie false quand le bail a été repris par un autre worker : la ligne est alors laissée en place.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean remove(Long virementId, String owner) {
+        return jdbcTemplate.update("DELETE FROM virement_executions WHERE virement_id = ? AND verrou_proprietaire = ?",
+                virementId, owner) == 1;
+    }
+
+    /**
+     * Compte un échec d'exécution pour {@code owner} et renvoie le nombre de tentatives qui en
+     * résulte, ou rien si le bail a été perdu. Le compteur n'est lu qu'à travers la ligne que
+     * {@code owner} détient, verrouillée par la mise à jour.
+     */
+    @Transactional
+    public OptionalInt echec(Long virementId, String owner) {
+        int updated = jdbcTemplate.update(
+                "UPDATE virement_executions SET tentatives = tentatives + 1 " +
+                "WHERE virement_id = ? AND verrou_proprietaire = ?", virementId, owner);
+        if (updated == 0) {
+            return OptionalInt.empty();
+        }
+        return OptionalInt.of(jdbcTemplate.queryForObject(
+                "SELECT tentatives FROM virement_executions WHERE virement_id = ?", Integer.class, virementId));
+    }
+
+    /**
+     * Relâche le bail de {@code owner} et reprogramme le virement. Renvoie false si le bail a été
+     * repris entre-temps : le verrou du nouveau propriétaire n'est pas touché.
+     */
+    @Transactional
+    public boolean reschedule(Long virementId, String owner, LocalDateTime prochaineTentative, String erreur) {
+        return jdbcTemplate.update(
+                "UPDATE virement_executions SET prochaine_tentative = ?, " +
+                "verrou_proprietaire = NULL, verrou_expiration = NULL, derniere_erreur = ? " +
+                "WHERE virement_id = ? AND verrou_proprietaire = ?",
+                Timestamp.valueOf(prochaineTentative), tronquer(erreur), virementId, owner) == 1;
+    }
+
+    private static String tronquer(String erreur) {
+        if (erreur == null || erreur.length() <= 500) {
+            return erreur;
+        }
+        return erreur.substring(0, 500);
+    }
+}
@@ -2,23 +2,34 @@ package com.enset.virementservice.repo;
 
 
 import com.enset.virementservice.entities.Virement;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface VirementRepository extends JpaRepository<Virement, Long> {
 
-    List<Virement> findByBeneficiaireId(Long beneficiaireId);
+    // Pagination par clé : on reprend strictement avant le dernier id déjà retourné
+    List<Virement> findByIdLessThanOrderByIdDesc(Long id, Limit limit);
+
+    List<Virement> findByBeneficiaireIdAndIdLessThanOrderByIdDesc(Long beneficiaireId, Long id, Limit limit);
 
-    List<Virement> findByRibSource(String ribSource);
+    List<Virement> findByRibSourceAndIdLessThanOrderByIdDesc(String ribSource, Long id, Limit limit);
 
-    List<Virement> findByStatut(Virement.StatutVirement statut);
+    List<Virement> findByStatutAndIdLessThanOrderByIdDesc(Virement.StatutVirement statut, Long id, Limit limit);
 
     List<Virement> findByDateVirementBetween(LocalDateTime startDate, LocalDateTime endDate);
 
@@ -33,4 +44,46 @@ public interface VirementRepository extends JpaRepository<Virement, Long> {
                                             @Param("endDate") LocalDateTime endDate);
 
     List<Virement> findByType(Virement.TypeVirement type);
+
+    // Bornes partielles des périodes agrégées : fin exclue, pour ne pas recompter le premier jour complet
+    @Query("SELECT COALESCE(SUM(v.montant), 0) FROM Virement v WHERE v.ribSource = :ribSource " +
+            "AND v.dateVirement >= :startDate AND v.dateVirement < :endDateExclusive")
+    BigDecimal sumMontantByRibSourceAndRange(@Param("ribSource") String ribSource,
+                                             @Param("startDate") LocalDateTime startDate,
+                                             @Param("endDateExclusive") LocalDateTime endDateExclusive);
+
+    @Query("SELECT COUNT(v) FROM Virement v WHERE v.ribSource = :ribSource " +
+            "AND v.dateVirement >= :startDate AND v.dateVirement < :endDateExclusive")
+    Long countByRibSourceAndRange(@Param("ribSource") String ribSource,
+                                  @Param("startDate") LocalDateTime startDate,
+                                  @Param("endDateExclusive") LocalDateTime endDateExclusive);
+
+    // Curseurs en lecture seule pour les exports : à consommer dans une transaction read-only
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT v FROM Virement v WHERE v.ribSource = :ribSource ORDER BY v.id")
+    Stream<Virement> streamByRibSource(@Param("ribSource") String ribSource);
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT v FROM Virement v WHERE v.dateVirement BETWEEN :startDate AND :endDate ORDER BY v.id")
+    Stream<Virement> streamByDateVirementBetween(@Param("startDate") LocalDateTime startDate,
+                                                 @Param("endDate") LocalDateTime endDate);
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT v FROM Virement v WHERE v.ribSource = :ribSource " +
+            "AND v.dateVirement BETWEEN :startDate AND :endDate ORDER BY v.id")
+    Stream<Virement> streamByRibSourceAndDateVirementBetween(@Param("ribSource") String ribSource,
+                                                             @Param("startDate") LocalDateTime startDate,
+                                                             @Param("endDate") LocalDateTime endDate);
 }
@@ -0,0 +1,15 @@
+package com.enset.virementservice.security;
+
+import com.enset.common.security.InternalIdentity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class InternalIdentityConfig {
+
+    @Bean
+    public InternalIdentity internalIdentity(@Value("${internal.identity.secret}") String secret) {
+        return new InternalIdentity(secret);
+    }
+}
@@ -0,0 +1,58 @@
+package com.enset.virementservice.security;
+
+import com.enset.common.security.InternalIdentity;
+import feign.RequestInterceptor;
+import feign.RequestTemplate;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Ajoute l'en-tête {@link InternalIdentity#HEADER} aux appels Feign : celui de la requête en cours
+ * s'il est valide (identité de l'utilisateur transmise par la gateway), sinon une identité de
+ * service (exécution en tâche de fond, invalidation de cache, appels doublés sur un autre thread).
+ */
+@Component
+public class InternalIdentityRequestInterceptor implements RequestInterceptor {
+
+    @Autowired
+    private InternalIdentity internalIdentity;
+
+    @Value("${spring.application.name}")
+    private String applicationName;
+
+    @Value("${internal.identity.ttl:60s}")
+    private Duration ttl;
+
+    @Value("${internal.identity.enabled:true}")
+    private boolean enabled;
+
+    @Override
+    public void apply(RequestTemplate template) {
+        if (!enabled) {
+            return;
+        }
+        template.removeHeader(InternalIdentity.HEADER);
+        template.header(InternalIdentity.HEADER, identite());
+    }
+
+    private String identite() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servlet) {
+            HttpServletRequest request = servlet.getRequest();
+            String entrant = request.getHeader(InternalIdentity.HEADER);
+            if (internalIdentity.verifier(entrant).isPresent()) {
+                return entrant;
+            }
+        }
+        return internalIdentity.signer("service:" + applicationName, Instant.now().plus(ttl), List.of());
+    }
+}
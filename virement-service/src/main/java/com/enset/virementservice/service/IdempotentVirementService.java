@@ -0,0 +1,169 @@
+package com.enset.virementservice.service;
+
+import com.enset.virementservice.dtos.VirementRequest;
+import com.enset.virementservice.dtos.VirementResponse;
+import com.enset.virementservice.entities.IdempotencyKey;
+import com.enset.virementservice.repo.IdempotencyKeyRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Création de virement protégée par une clé d'idempotence fournie par le client.
+ * Les requêtes concurrentes portant la même clé sur cette instance attendent la première ;
+ * entre instances, la clé primaire de idempotency_keys garantit une seule exécution.
+ */
+@Service
+public class IdempotentVirementService {
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    @Autowired
+    private VirementService virementService;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${virement.idempotency.ttl:24h}")
+    private Duration ttl;
+
+    private final ConcurrentMap<String, EnCours> enCours = new ConcurrentHashMap<>();
+
+    public record Resultat(VirementResponse response, boolean rejoue) {
+    }
+
+    private record EnCours(String requestHash, CompletableFuture<Resultat> resultat) {
+    }
+
+    public Resultat createVirement(String cle, VirementRequest request) {
+        if (cle.isBlank() || cle.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Clé d'idempotence invalide");
+        }
+        String requestHash = hash(request);
+
+        EnCours nouveau = new EnCours(requestHash, new CompletableFuture<>());
+        EnCours existant = enCours.putIfAbsent(cle, nouveau);
+        if (existant != null) {
+            return attendre(existant, requestHash);
+        }
+
+        try {
+            Resultat resultat = executerUneFois(cle, requestHash, request);
+            nouveau.resultat().complete(resultat);
+            return resultat;
+        } catch (RuntimeException e) {
+            nouveau.resultat().completeExceptionally(e);
+            throw e;
+        } finally {
+            enCours.remove(cle, nouveau);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${virement.idempotency.purge-interval:600000}")
+    @Transactional
+    public void purgerClesExpirees() {
+        idempotencyKeyRepository.deleteExpired(LocalDateTime.now());
+    }
+
+    private Resultat executerUneFois(String cle, String requestHash, VirementRequest request) {
+        LocalDateTime now = LocalDateTime.now();
+        IdempotencyKey stockee = idempotencyKeyRepository.findById(cle)
+                .filter(k -> k.getExpiresAt().isAfter(now))
+                .orElse(null);
+        if (stockee != null) {
+            return rejouer(stockee, requestHash);
+        }
+
+        // Appel au service bénéficiaire avant la transaction qui tient la clé verrouillée
+        virementService.validerCreation(request);
+        try {
+            return transactionTemplate.execute(status -> {
+                idempotencyKeyRepository.deleteIfExpired(cle, now);
+
+                // Insertion immédiate : une autre instance qui traite la même clé se bloque
+                // sur la clé primaire jusqu'à la fin de cette transaction
+                IdempotencyKey idempotencyKey = new IdempotencyKey();
+                idempotencyKey.setCle(cle);
+                idempotencyKey.setRequestHash(requestHash);
+                idempotencyKey.setCreatedAt(now);
+                idempotencyKey.setExpiresAt(now.plus(ttl));
+                idempotencyKeyRepository.saveAndFlush(idempotencyKey);
+
+                VirementResponse response = virementService.enregistrerCreation(request);
+                idempotencyKey.setVirementId(response.getId());
+                idempotencyKey.setResponseBody(toJson(response));
+                return new Resultat(response, false);
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Une autre instance a validé la même clé avant nous : on rejoue sa réponse
+            return idempotencyKeyRepository.findById(cle)
+                    .map(k -> rejouer(k, requestHash))
+                    .orElseThrow(() -> e);
+        }
+    }
+
+    private Resultat attendre(EnCours existant, String requestHash) {
+        if (!existant.requestHash().equals(requestHash)) {
+            throw new IllegalStateException("Clé d'idempotence déjà utilisée pour une autre requête");
+        }
+        try {
+            Resultat resultat = existant.resultat().join();
+            return new Resultat(resultat.response(), true);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private Resultat rejouer(IdempotencyKey stockee, String requestHash) {
+        if (!stockee.getRequestHash().equals(requestHash)) {
+            throw new IllegalStateException("Clé d'idempotence déjà utilisée pour une autre requête");
+        }
+        try {
+            return new Resultat(objectMapper.readValue(stockee.getResponseBody(), VirementResponse.class), true);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Réponse enregistrée illisible pour la clé " + stockee.getCle(), e);
+        }
+    }
+
+    private String hash(VirementRequest request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsBytes(request)));
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String toJson(VirementResponse response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.enset.virementservice.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Curseur de pagination par clé : encode l'identifiant du dernier élément retourné.
+ * Les identifiants sont attribués dans l'ordre d'insertion, donc dans l'ordre de
+ * date_virement : parcourir par id décroissant revient à parcourir du plus récent au plus ancien.
+ */
+final class PageCursor {
+
+    private static final String PREFIX = "v1:";
+
+    private PageCursor() {
+    }
+
+    static String encode(Long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return l'identifiant à partir duquel (exclu) reprendre, ou {@link Long#MAX_VALUE} pour la première page
+     */
+    static long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return Long.MAX_VALUE;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(PREFIX)) {
+                throw new IllegalArgumentException("Curseur de pagination invalide");
+            }
+            return Long.parseLong(decoded.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException hérite d'IllegalArgumentException
+            throw new IllegalArgumentException("Curseur de pagination invalide", e);
+        }
+    }
+}
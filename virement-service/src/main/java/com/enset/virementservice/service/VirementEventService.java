@@ -0,0 +1,104 @@
+package com.enset.virementservice.service;
+
+import com.enset.virementservice.dtos.VirementEventFeed;
+import com.enset.virementservice.dtos.VirementEventResponse;
+import com.enset.virementservice.entities.Virement;
+import com.enset.virementservice.entities.VirementEvent;
+import com.enset.virementservice.repo.VirementBatchRepository;
+import com.enset.virementservice.repo.VirementEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Outbox transactionnelle : chaque changement de virement écrit son événement dans la
+ * même transaction, puis le relais et le flux {@code GET /virements/events} le diffusent.
+ */
+@Service
+public class VirementEventService {
+
+    @Autowired
+    private VirementEventRepository virementEventRepository;
+
+    @Autowired
+    private VirementBatchRepository virementBatchRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${virement.batch.jdbc-batch-size:500}")
+    private int jdbcBatchSize;
+
+    @Value("${virement.outbox.feed-max-size:500}")
+    private int feedMaxSize;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enregistrer(Virement virement, VirementEvent.TypeEvenement type, Virement.StatutVirement ancienStatut) {
+        virementEventRepository.save(creer(virement, type, ancienStatut));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enregistrerCreations(Collection<Virement> virements) {
+        List<VirementEvent> events = virements.stream()
+                .map(v -> creer(v, VirementEvent.TypeEvenement.CREE, null))
+                .toList();
+        virementBatchRepository.insertEvents(events, jdbcBatchSize);
+    }
+
+    @Transactional(readOnly = true)
+    public VirementEventFeed getEvents(long after, Integer limit) {
+        int size = limit == null ? feedMaxSize : Math.max(1, Math.min(limit, feedMaxSize));
+        // Ordre de publication et non identifiant : un événement validé tardivement arrive après
+        // le curseur au lieu d'être sauté
+        List<VirementEventResponse> events = virementEventRepository
+                .findByOrdrePublicationGreaterThanOrderByOrdrePublicationAsc(after, Limit.of(size))
+                .stream()
+                .map(VirementEventResponse::from)
+                .toList();
+        long next = events.isEmpty() ? after : events.get(events.size() - 1).getOrdrePublication();
+        return new VirementEventFeed(events, next);
+    }
+
+    /**
+     * Version de la table des virements, pour les ETag des listes : chaque écriture produit un
+     * événement, le dernier ordre de publication suffit donc. Vide tant que des événements validés
+     * attendent le relais : leurs écritures sont visibles mais pas encore comptées.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Long> versionStable() {
+        if (virementEventRepository.existsByPublieFalse()) {
+            return Optional.empty();
+        }
+        return Optional.of(virementEventRepository.maxOrdrePublication());
+    }
+
+    private VirementEvent creer(Virement virement, VirementEvent.TypeEvenement type, Virement.StatutVirement ancienStatut) {
+        VirementEvent event = new VirementEvent();
+        event.setVirementId(virement.getId());
+        event.setType(type);
+        event.setAncienStatut(ancienStatut);
+        event.setStatut(virement.getStatut());
+        event.setPayload(toJson(virement));
+        event.setCreatedAt(LocalDateTime.now());
+        event.setPublie(false);
+        return event;
+    }
+
+    private String toJson(Virement virement) {
+        try {
+            return objectMapper.writeValueAsString(VirementService.mapToResponse(virement));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
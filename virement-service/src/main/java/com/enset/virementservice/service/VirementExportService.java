@@ -0,0 +1,176 @@
+package com.enset.virementservice.service;
+
+import com.enset.virementservice.dtos.VirementResponse;
+import com.enset.virementservice.entities.Virement;
+import com.enset.virementservice.repo.VirementRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Export des virements ligne par ligne : les lignes sont lues par un curseur JDBC et
+ * écrites directement dans la réponse, sans jamais matérialiser le résultat en mémoire.
+ * L'écriture sur le flux de la réponse est bloquante, un client lent ralentit donc la
+ * lecture du curseur au lieu de faire grossir un tampon.
+ */
+@Service
+public class VirementExportService {
+
+    private static final int FLUSH_INTERVAL = 500;
+    private static final String CSV_HEADER = "id,beneficiaireId,ribSource,montant,description,dateVirement,type,statut";
+
+    @Autowired
+    private VirementRepository virementRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format parse(String value) {
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("Format d'export non supporté: " + value);
+        }
+    }
+
+    public void validateCriteria(String ribSource, LocalDateTime startDate, LocalDateTime endDate) {
+        if ((startDate == null) != (endDate == null)) {
+            throw new IllegalArgumentException("startDate et endDate doivent être fournis ensemble");
+        }
+        if (ribSource == null && startDate == null) {
+            throw new IllegalArgumentException("Un RIB source ou une période est obligatoire pour l'export");
+        }
+        if (startDate != null && startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("La date de début doit précéder la date de fin");
+        }
+    }
+
+    /**
+     * @return le nombre de virements exportés
+     */
+    @Transactional(readOnly = true)
+    public long export(String ribSource, LocalDateTime startDate, LocalDateTime endDate,
+                       Format format, OutputStream out) throws IOException {
+        validateCriteria(ribSource, startDate, endDate);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+
+        try (Stream<Virement> virements = openStream(ribSource, startDate, endDate)) {
+            return format == Format.CSV ? writeCsv(virements, writer) : writeNdjson(virements, writer);
+        }
+    }
+
+    private Stream<Virement> openStream(String ribSource, LocalDateTime startDate, LocalDateTime endDate) {
+        if (ribSource != null && startDate != null) {
+            return virementRepository.streamByRibSourceAndDateVirementBetween(ribSource, startDate, endDate);
+        }
+        if (ribSource != null) {
+            return virementRepository.streamByRibSource(ribSource);
+        }
+        return virementRepository.streamByDateVirementBetween(startDate, endDate);
+    }
+
+    private long writeNdjson(Stream<Virement> virements, Writer writer) throws IOException {
+        long count = 0;
+        try (SequenceWriter sequence = objectMapper.writer().withRootValueSeparator("\n").writeValues(writer)) {
+            Iterator<Virement> it = virements.iterator();
+            while (it.hasNext()) {
+                sequence.write(toResponse(it.next()));
+                if (++count % FLUSH_INTERVAL == 0) {
+                    sequence.flush();
+                }
+            }
+            // Le séparateur n'est écrit qu'entre deux valeurs : on termine la dernière ligne
+            sequence.flush();
+            if (count > 0) {
+                writer.write("\n");
+            }
+        }
+        return count;
+    }
+
+    private long writeCsv(Stream<Virement> virements, Writer writer) throws IOException {
+        long count = 0;
+        writer.write(CSV_HEADER);
+        writer.write("\n");
+        Iterator<Virement> it = virements.iterator();
+        while (it.hasNext()) {
+            VirementResponse v = toResponse(it.next());
+            writer.write(String.valueOf(v.getId()));
+            writer.write(',');
+            writer.write(String.valueOf(v.getBeneficiaireId()));
+            writer.write(',');
+            writer.write(csv(v.getRibSource()));
+            writer.write(',');
+            writer.write(v.getMontant() != null ? v.getMontant().toPlainString() : "");
+            writer.write(',');
+            writer.write(csv(v.getDescription()));
+            writer.write(',');
+            writer.write(v.getDateVirement() != null ? v.getDateVirement().toString() : "");
+            writer.write(',');
+            writer.write(v.getType() != null ? v.getType().name() : "");
+            writer.write(',');
+            writer.write(v.getStatut() != null ? v.getStatut().name() : "");
+            writer.write("\n");
+            if (++count % FLUSH_INTERVAL == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+        return count;
+    }
+
+    // Détacher chaque entité garde le contexte de persistance vide, quel que soit le volume exporté
+    private VirementResponse toResponse(Virement virement) {
+        VirementResponse response = VirementService.mapToResponse(virement);
+        entityManager.detach(virement);
+        return response;
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+}
@@ -1,20 +1,37 @@
 package com.enset.virementservice.service;
 
-import com.enset.virementservice.client.BeneficiaireClient;
+import com.enset.virementservice.client.CachedBeneficiaireClient;
 import com.enset.virementservice.dtos.BeneficiaireResponse;
+import com.enset.virementservice.dtos.VirementBatchResult;
+import com.enset.virementservice.dtos.VirementPage;
 import com.enset.virementservice.dtos.VirementRequest;
 import com.enset.virementservice.dtos.VirementResponse;
 import com.enset.virementservice.entities.Virement;
+import com.enset.virementservice.entities.VirementEvent;
+import com.enset.virementservice.repo.VirementBatchRepository;
+import com.enset.virementservice.repo.VirementExecutionRepository;
 import com.enset.virementservice.repo.VirementRepository;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @Transactional
 public class VirementService {
@@ -23,9 +40,48 @@ public class VirementService {
     private VirementRepository virementRepository;
 
     @Autowired
-    private BeneficiaireClient beneficiaireClient;
+    private VirementBatchRepository virementBatchRepository;
 
+    @Autowired
+    private VirementExecutionRepository virementExecutionRepository;
+
+    @Autowired
+    private CachedBeneficiaireClient beneficiaireClient;
+
+    @Autowired
+    private VirementStatsService virementStatsService;
+
+    @Autowired
+    private VirementEventService virementEventService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${virement.batch.jdbc-batch-size:500}")
+    private int jdbcBatchSize;
+
+    @Value("${virement.page.default-size:50}")
+    private int defaultPageSize;
+
+    @Value("${virement.page.max-size:500}")
+    private int maxPageSize;
+
+    /**
+     * Validation hors transaction, écritures dans une transaction courte : aucune connexion
+     * JDBC n'est retenue pendant l'appel au service bénéficiaire.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public VirementResponse createVirement(VirementRequest request) {
+        validerCreation(request);
+        return transactionTemplate.execute(status -> enregistrerCreation(request));
+    }
+
+    /**
+     * Vérifie le bénéficiaire (appel distant) et les règles métier, à appeler avant d'ouvrir
+     * la transaction d'écriture.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void validerCreation(VirementRequest request) {
         // Validation synchrone : Vérifier que le bénéficiaire existe
         Boolean beneficiaireExists = beneficiaireClient.checkBeneficiaireExists(request.getBeneficiaireId());
 
@@ -35,7 +91,13 @@ public class VirementService {
 
         // Validation métier supplémentaire
         validateVirement(request);
+    }
 
+    /**
+     * Écritures d'un virement déjà validé par {@link #validerCreation}, dans la transaction de l'appelant.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public VirementResponse enregistrerCreation(VirementRequest request) {
         // Créer l'entité Virement
         Virement virement = new Virement();
         virement.setBeneficiaireId(request.getBeneficiaireId());
@@ -43,14 +105,88 @@ public class VirementService {
         virement.setMontant(request.getMontant());
         virement.setDescription(request.getDescription());
         virement.setType(request.getType());
-        virement.setStatut(Virement.StatutVirement.VALIDE);
+        virement.setDateVirement(LocalDateTime.now());
+        virement.setStatut(Virement.StatutVirement.INITIE);
 
-        // Sauvegarder le virement
+        // Sauvegarder le virement et le placer dans la file d'exécution (même transaction)
         Virement savedVirement = virementRepository.save(virement);
+        virementStatsService.enregistrer(savedVirement);
+        virementEventService.enregistrer(savedVirement, VirementEvent.TypeEvenement.CREE, null);
+        virementExecutionRepository.enqueue(List.of(savedVirement.getId()), savedVirement.getDateVirement());
 
         return mapToResponse(savedVirement);
     }
 
+    /**
+     * Comme {@link #createVirement} : existence des bénéficiaires vérifiée hors transaction,
+     * seules les insertions du lot sont transactionnelles.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<VirementBatchResult> createVirementsBatch(List<VirementRequest> requests) {
+        // Un seul appel au service bénéficiaire pour tous les identifiants distincts du lot
+        Set<Long> beneficiaireIds = requests.stream()
+                .filter(Objects::nonNull)
+                .map(VirementRequest::getBeneficiaireId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(HashSet::new));
+        Map<Long, Boolean> existence = beneficiaireIds.isEmpty()
+                ? Map.of()
+                : beneficiaireClient.checkBeneficiairesExist(beneficiaireIds);
+
+        VirementBatchResult[] results = new VirementBatchResult[requests.size()];
+        List<Virement> acceptes = new ArrayList<>();
+        List<Integer> indexAcceptes = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+
+        for (int i = 0; i < requests.size(); i++) {
+            VirementRequest request = requests.get(i);
+            if (request == null || request.getBeneficiaireId() == null) {
+                results[i] = VirementBatchResult.rejete(i, "Le bénéficiaire est obligatoire");
+                continue;
+            }
+            if (!Boolean.TRUE.equals(existence.get(request.getBeneficiaireId()))) {
+                results[i] = VirementBatchResult.rejete(i,
+                        "Le bénéficiaire avec ID " + request.getBeneficiaireId() + " n'existe pas");
+                continue;
+            }
+            try {
+                validateVirement(request);
+            } catch (IllegalArgumentException e) {
+                results[i] = VirementBatchResult.rejete(i, e.getMessage());
+                continue;
+            }
+
+            Virement virement = new Virement();
+            virement.setBeneficiaireId(request.getBeneficiaireId());
+            virement.setRibSource(request.getRibSource());
+            virement.setMontant(request.getMontant());
+            virement.setDescription(request.getDescription());
+            virement.setType(request.getType());
+            virement.setDateVirement(now);
+            virement.setStatut(Virement.StatutVirement.INITIE);
+            acceptes.add(virement);
+            indexAcceptes.add(i);
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            virementBatchRepository.insertAll(acceptes, jdbcBatchSize);
+            virementStatsService.enregistrerTous(acceptes);
+            virementEventService.enregistrerCreations(acceptes);
+            virementExecutionRepository.enqueue(acceptes.stream().map(Virement::getId).toList(), now);
+        });
+
+        for (int k = 0; k < acceptes.size(); k++) {
+            int index = indexAcceptes.get(k);
+            results[index] = VirementBatchResult.accepte(index, acceptes.get(k).getId());
+        }
+        return List.of(results);
+    }
+
+    /**
+     * Hors transaction : la connexion JDBC est rendue dès la lecture du virement au lieu
+     * d'être retenue pendant l'appel HTTP au service bénéficiaire.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public VirementResponse getVirementWithDetails(Long virementId) {
         Virement virement = virementRepository.findById(virementId)
                 .orElseThrow(() -> new IllegalArgumentException("Virement non trouvé avec ID: " + virementId));
@@ -62,50 +198,90 @@ public class VirementService {
             BeneficiaireResponse beneficiaire =
                     beneficiaireClient.getBeneficiaireById(virement.getBeneficiaireId());
 
-            response.setBeneficiaireNom(beneficiaire.getNom());
-            response.setBeneficiairePrenom(beneficiaire.getPrenom());
-            response.setBeneficiaireRib(beneficiaire.getRib());
+            appliquerBeneficiaire(response, beneficiaire);
         } catch (Exception e) {
             // Log l'erreur mais ne pas bloquer la réponse
-            System.err.println("Erreur lors de la récupération des détails du bénéficiaire: " + e.getMessage());
+            log.warn("Détails du bénéficiaire indisponibles pour le virement {} : {}", virementId, e.getMessage());
         }
 
         return response;
     }
 
-    public List<VirementResponse> getVirementsByBeneficiaire(Long beneficiaireId) {
-        List<Virement> virements = virementRepository.findByBeneficiaireId(beneficiaireId);
-        return virements.stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public VirementPage getVirements(String cursor, Integer size, boolean details) {
+        int pageSize = pageSize(size);
+        return toPage(virementRepository.findByIdLessThanOrderByIdDesc(
+                PageCursor.decode(cursor), Limit.of(pageSize + 1)), pageSize, details);
     }
 
-    public List<VirementResponse> getVirementsByRibSource(String ribSource) {
-        List<Virement> virements = virementRepository.findByRibSource(ribSource);
-        return virements.stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public VirementPage getVirementsByBeneficiaire(Long beneficiaireId, String cursor, Integer size, boolean details) {
+        int pageSize = pageSize(size);
+        return toPage(virementRepository.findByBeneficiaireIdAndIdLessThanOrderByIdDesc(
+                beneficiaireId, PageCursor.decode(cursor), Limit.of(pageSize + 1)), pageSize, details);
     }
 
-    public List<VirementResponse> getVirementsByStatut(Virement.StatutVirement statut) {
-        List<Virement> virements = virementRepository.findByStatut(statut);
-        return virements.stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public VirementPage getVirementsByRibSource(String ribSource, String cursor, Integer size, boolean details) {
+        int pageSize = pageSize(size);
+        return toPage(virementRepository.findByRibSourceAndIdLessThanOrderByIdDesc(
+                ribSource, PageCursor.decode(cursor), Limit.of(pageSize + 1)), pageSize, details);
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public VirementPage getVirementsByStatut(Virement.StatutVirement statut, String cursor, Integer size, boolean details) {
+        int pageSize = pageSize(size);
+        return toPage(virementRepository.findByStatutAndIdLessThanOrderByIdDesc(
+                statut, PageCursor.decode(cursor), Limit.of(pageSize + 1)), pageSize, details);
     }
 
     public VirementResponse updateStatutVirement(Long virementId, Virement.StatutVirement nouveauStatut) {
         Virement virement = virementRepository.findById(virementId)
                 .orElseThrow(() -> new IllegalArgumentException("Virement non trouvé avec ID: " + virementId));
 
+        Virement.StatutVirement ancienStatut = virement.getStatut();
         virement.setStatut(nouveauStatut);
-        Virement updatedVirement = virementRepository.save(virement);
+        // Flush : la version incrémentée figure dans la réponse et dans l'événement
+        Virement updatedVirement = virementRepository.saveAndFlush(virement);
+        virementStatsService.changerStatut(updatedVirement, ancienStatut);
+        virementEventService.enregistrer(updatedVirement, VirementEvent.TypeEvenement.STATUT_MODIFIE, ancienStatut);
 
         return mapToResponse(updatedVirement);
     }
 
+    /**
+     * Clôt l'exécution d'un virement réservé par {@code owner} : le retire de la file puis applique
+     * le statut final s'il est encore INITIE (un virement annulé entre-temps est laissé tel quel).
+     * Si le bail a été repris par un autre worker, rien n'est appliqué et la transaction est annulée :
+     * c'est au nouveau propriétaire de conclure. Renvoie false dans ce cas.
+     */
+    public boolean finaliserExecution(Long virementId, Virement.StatutVirement statutFinal, String owner) {
+        // Suppression d'abord : elle verrouille la ligne, aucune réservation concurrente ne peut la prendre
+        if (!virementExecutionRepository.remove(virementId, owner)) {
+            log.warn("Bail du virement {} perdu par {} : résultat d'exécution ignoré", virementId, owner);
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return false;
+        }
+        if (statutFinal != null) {
+            virementRepository.findById(virementId)
+                    .filter(v -> v.getStatut() == Virement.StatutVirement.INITIE)
+                    .ifPresent(virement -> {
+                        virement.setStatut(statutFinal);
+                        virementRepository.saveAndFlush(virement);
+                        virementStatsService.changerStatut(virement, Virement.StatutVirement.INITIE);
+                        virementEventService.enregistrer(virement, VirementEvent.TypeEvenement.STATUT_MODIFIE,
+                                Virement.StatutVirement.INITIE);
+                    });
+        }
+        return true;
+    }
+
     public BigDecimal getTotalVirementsPeriod(String ribSource, LocalDateTime startDate, LocalDateTime endDate) {
-        return virementRepository.getTotalVirementsByRibSourceAndPeriod(ribSource, startDate, endDate);
+        return virementStatsService.getTotal(ribSource, startDate, endDate);
+    }
+
+    public Long countVirementsPeriod(String ribSource, LocalDateTime startDate, LocalDateTime endDate) {
+        return virementStatsService.getCount(ribSource, startDate, endDate);
     }
 
     public void annulerVirement(Long virementId) {
@@ -117,13 +293,16 @@ public class VirementService {
             throw new IllegalStateException("Impossible d'annuler un virement avec le statut: " + virement.getStatut());
         }
 
+        Virement.StatutVirement ancienStatut = virement.getStatut();
         virement.setStatut(Virement.StatutVirement.ANNULE);
-        virementRepository.save(virement);
+        virementRepository.saveAndFlush(virement);
+        virementStatsService.changerStatut(virement, ancienStatut);
+        virementEventService.enregistrer(virement, VirementEvent.TypeEvenement.ANNULE, ancienStatut);
     }
 
     private void validateVirement(VirementRequest request) {
         // Validations métier
-        if (request.getMontant().compareTo(BigDecimal.ZERO) <= 0) {
+        if (request.getMontant() == null || request.getMontant().compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Le montant doit être positif");
         }
 
@@ -139,7 +318,59 @@ public class VirementService {
         }
     }
 
-    private VirementResponse mapToResponse(Virement virement) {
+    private int pageSize(Integer requested) {
+        if (requested == null) {
+            return defaultPageSize;
+        }
+        if (requested < 1) {
+            throw new IllegalArgumentException("La taille de page doit être positive");
+        }
+        return Math.min(requested, maxPageSize);
+    }
+
+    // La requête demande un élément de plus que la page : sa présence indique qu'une page suivante existe
+    private VirementPage toPage(List<Virement> virements, int pageSize, boolean details) {
+        boolean hasNext = virements.size() > pageSize;
+        List<Virement> pageContent = hasNext ? virements.subList(0, pageSize) : virements;
+        List<VirementResponse> content = pageContent.stream()
+                .map(VirementService::mapToResponse)
+                .collect(Collectors.toList());
+        if (details) {
+            enrichirAvecBeneficiaires(content);
+        }
+        String nextCursor = hasNext ? PageCursor.encode(pageContent.get(pageSize - 1).getId()) : null;
+        return new VirementPage(content, nextCursor, content.size());
+    }
+
+    // Un seul appel au service bénéficiaire pour toute la page, quel que soit le nombre de lignes
+    private void enrichirAvecBeneficiaires(List<VirementResponse> content) {
+        Set<Long> beneficiaireIds = content.stream()
+                .map(VirementResponse::getBeneficiaireId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (beneficiaireIds.isEmpty()) {
+            return;
+        }
+        try {
+            Map<Long, BeneficiaireResponse> beneficiaires = beneficiaireClient.getBeneficiairesByIds(beneficiaireIds);
+            content.forEach(response ->
+                    appliquerBeneficiaire(response, beneficiaires.get(response.getBeneficiaireId())));
+        } catch (Exception e) {
+            // Comme pour un virement seul : la page est rendue sans les détails
+            log.warn("Détails des bénéficiaires indisponibles pour la page : {}", e.getMessage());
+        }
+    }
+
+    private static void appliquerBeneficiaire(VirementResponse response, BeneficiaireResponse beneficiaire) {
+        if (beneficiaire != null) {
+            response.setBeneficiaireNom(beneficiaire.getNom());
+            response.setBeneficiairePrenom(beneficiaire.getPrenom());
+            response.setBeneficiaireRib(beneficiaire.getRib());
+            response.setBeneficiaireVersion(beneficiaire.getVersion());
+        }
+    }
+
+    static VirementResponse mapToResponse(Virement virement) {
         VirementResponse response = new VirementResponse();
         response.setId(virement.getId());
         response.setBeneficiaireId(virement.getBeneficiaireId());
@@ -149,6 +380,7 @@ public class VirementService {
         response.setDateVirement(virement.getDateVirement());
         response.setType(virement.getType());
         response.setStatut(virement.getStatut());
+        response.setVersion(virement.getVersion());
 
         return response;
     }
@@ -0,0 +1,129 @@
+package com.enset.virementservice.service;
+
+import com.enset.virementservice.entities.Virement;
+import com.enset.virementservice.repo.VirementDailyTotalRepository;
+import com.enset.virementservice.repo.VirementRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Statistiques par RIB source et par période. Les jours entièrement couverts sont lus dans
+ * la table de cumuls journaliers ; seules les journées partielles en bordure de période
+ * sont recalculées à partir des virements.
+ */
+@Service
+@Transactional
+public class VirementStatsService {
+
+    // Précision des colonnes TIMESTAMP : au-delà, la fin de journée est considérée atteinte
+    private static final LocalTime FIN_DE_JOURNEE = LocalTime.of(23, 59, 59, 999_999_000);
+
+    @Autowired
+    private VirementDailyTotalRepository dailyTotalRepository;
+
+    @Autowired
+    private VirementRepository virementRepository;
+
+    // Doit s'exécuter dans la transaction qui écrit le virement
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enregistrer(Virement virement) {
+        dailyTotalRepository.increment(virement.getRibSource(), virement.getDateVirement().toLocalDate(),
+                virement.getStatut().name(), virement.getMontant(), 1);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enregistrerTous(Collection<Virement> virements) {
+        // Un seul incrément par (RIB, jour, statut) pour tout le lot
+        Map<Key, BigDecimal> montants = new HashMap<>();
+        Map<Key, Long> nombres = new HashMap<>();
+        for (Virement v : virements) {
+            Key key = new Key(v.getRibSource(), v.getDateVirement().toLocalDate(), v.getStatut());
+            montants.merge(key, v.getMontant(), BigDecimal::add);
+            nombres.merge(key, 1L, Long::sum);
+        }
+        montants.forEach((key, montant) -> dailyTotalRepository.increment(
+                key.ribSource(), key.jour(), key.statut().name(), montant, nombres.get(key)));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void changerStatut(Virement virement, Virement.StatutVirement ancienStatut) {
+        if (ancienStatut == virement.getStatut()) {
+            return;
+        }
+        LocalDate jour = virement.getDateVirement().toLocalDate();
+        dailyTotalRepository.increment(virement.getRibSource(), jour, ancienStatut.name(),
+                virement.getMontant().negate(), -1);
+        dailyTotalRepository.increment(virement.getRibSource(), jour, virement.getStatut().name(),
+                virement.getMontant(), 1);
+    }
+
+    @Transactional(readOnly = true)
+    public BigDecimal getTotal(String ribSource, LocalDateTime startDate, LocalDateTime endDate) {
+        Periode periode = Periode.decouper(startDate, endDate);
+        if (periode == null) {
+            return zeroIfNull(virementRepository.getTotalVirementsByRibSourceAndPeriod(ribSource, startDate, endDate));
+        }
+        BigDecimal total = dailyTotalRepository.sumMontant(ribSource, periode.premierJour(), periode.dernierJour());
+        if (startDate.isBefore(periode.premierJour().atStartOfDay())) {
+            total = total.add(virementRepository.sumMontantByRibSourceAndRange(
+                    ribSource, startDate, periode.premierJour().atStartOfDay()));
+        }
+        LocalDateTime lendemain = periode.dernierJour().plusDays(1).atStartOfDay();
+        if (!endDate.isBefore(lendemain)) {
+            total = total.add(zeroIfNull(virementRepository.getTotalVirementsByRibSourceAndPeriod(
+                    ribSource, lendemain, endDate)));
+        }
+        return total;
+    }
+
+    @Transactional(readOnly = true)
+    public Long getCount(String ribSource, LocalDateTime startDate, LocalDateTime endDate) {
+        Periode periode = Periode.decouper(startDate, endDate);
+        if (periode == null) {
+            return virementRepository.countVirementsByRibSourceAndPeriod(ribSource, startDate, endDate);
+        }
+        long count = dailyTotalRepository.sumNombre(ribSource, periode.premierJour(), periode.dernierJour());
+        if (startDate.isBefore(periode.premierJour().atStartOfDay())) {
+            count += virementRepository.countByRibSourceAndRange(
+                    ribSource, startDate, periode.premierJour().atStartOfDay());
+        }
+        LocalDateTime lendemain = periode.dernierJour().plusDays(1).atStartOfDay();
+        if (!endDate.isBefore(lendemain)) {
+            count += virementRepository.countVirementsByRibSourceAndPeriod(ribSource, lendemain, endDate);
+        }
+        return count;
+    }
+
+    private static BigDecimal zeroIfNull(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
+    private record Key(String ribSource, LocalDate jour, Virement.StatutVirement statut) {
+    }
+
+    /**
+     * Jours entièrement compris dans [startDate, endDate], ou {@code null} s'il n'y en a aucun.
+     */
+    private record Periode(LocalDate premierJour, LocalDate dernierJour) {
+
+        static Periode decouper(LocalDateTime startDate, LocalDateTime endDate) {
+            LocalDate premier = startDate.toLocalTime().equals(LocalTime.MIDNIGHT)
+                    ? startDate.toLocalDate()
+                    : startDate.toLocalDate().plusDays(1);
+            LocalDate dernier = endDate.toLocalTime().isBefore(FIN_DE_JOURNEE)
+                    ? endDate.toLocalDate().minusDays(1)
+                    : endDate.toLocalDate();
+            return premier.isAfter(dernier) ? null : new Periode(premier, dernier);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+-- Schéma initial du service virement (auparavant généré par Hibernate)
+
+CREATE TABLE virements (
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    beneficiaire_id BIGINT,
+    rib_source      VARCHAR(255),
+    montant         NUMERIC(38, 2),
+    description     VARCHAR(255),
+    date_virement   TIMESTAMP(6),
+    type            VARCHAR(20),
+    statut          VARCHAR(20)
+);
+
+CREATE TABLE virement_daily_totals (
+    rib_source    VARCHAR(255)   NOT NULL,
+    jour          DATE           NOT NULL,
+    statut        VARCHAR(20)    NOT NULL,
+    montant_total NUMERIC(38, 2) NOT NULL,
+    nombre        BIGINT         NOT NULL,
+    PRIMARY KEY (rib_source, jour, statut)
+);
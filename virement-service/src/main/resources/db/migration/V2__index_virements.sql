@@ -0,0 +1,14 @@
+-- Index alignés sur les chemins d'accès de VirementRepository
+
+-- Totaux et comptages par période, exports par RIB source et période
+CREATE INDEX idx_virements_rib_source_date ON virements (rib_source, date_virement);
+
+-- Listes paginées par clé (id décroissant) filtrées par RIB source, bénéficiaire ou statut
+CREATE INDEX idx_virements_rib_source_id ON virements (rib_source, id);
+CREATE INDEX idx_virements_beneficiaire_id ON virements (beneficiaire_id, id);
+CREATE INDEX idx_virements_statut_id ON virements (statut, id);
+
+-- Exports et recherches par période seule
+CREATE INDEX idx_virements_date ON virements (date_virement);
+
+CREATE INDEX idx_virements_type ON virements (type);
@@ -0,0 +1,12 @@
+-- Clés d'idempotence de POST /virements : une clé ne peut être enregistrée qu'une fois
+
+CREATE TABLE idempotency_keys (
+    idempotency_key VARCHAR(255) PRIMARY KEY,
+    request_hash    VARCHAR(64)  NOT NULL,
+    virement_id     BIGINT,
+    response_body   CLOB,
+    created_at      TIMESTAMP(6) NOT NULL,
+    expires_at      TIMESTAMP(6) NOT NULL
+);
+
+CREATE INDEX idx_idempotency_keys_expires ON idempotency_keys (expires_at);
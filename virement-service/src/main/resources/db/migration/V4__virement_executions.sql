@@ -0,0 +1,12 @@
+-- File d'exécution des virements : une ligne par virement INITIE en attente de traitement
+
+CREATE TABLE virement_executions (
+    virement_id         BIGINT PRIMARY KEY,
+    tentatives          INT          NOT NULL DEFAULT 0,
+    prochaine_tentative TIMESTAMP(6) NOT NULL,
+    verrou_proprietaire VARCHAR(64),
+    verrou_expiration   TIMESTAMP(6),
+    derniere_erreur     VARCHAR(500)
+);
+
+CREATE INDEX idx_virement_executions_prochaine ON virement_executions (prochaine_tentative);
@@ -0,0 +1,15 @@
+-- Outbox des événements de virement, écrite dans la transaction de chaque changement
+
+CREATE TABLE virement_events (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    virement_id   BIGINT       NOT NULL,
+    type          VARCHAR(30)  NOT NULL,
+    ancien_statut VARCHAR(20),
+    statut        VARCHAR(20)  NOT NULL,
+    payload       CLOB         NOT NULL,
+    created_at    TIMESTAMP(6) NOT NULL,
+    publie        BOOLEAN      NOT NULL DEFAULT FALSE
+);
+
+-- Relais : événements non publiés dans l'ordre
+CREATE INDEX idx_virement_events_publie_id ON virement_events (publie, id);
@@ -0,0 +1,3 @@
+-- Version pour le verrouillage optimiste et les ETag de GET /virements/{id}
+
+ALTER TABLE virements ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
@@ -0,0 +1,14 @@
+-- Ordre de publication des événements : attribué par le relais dans l'ordre des commits
+-- (l'identifiant l'est à l'insertion, une transaction lente peut valider un identifiant inférieur après coup)
+
+ALTER TABLE virement_events ADD COLUMN ordre_publication BIGINT;
+UPDATE virement_events SET ordre_publication = id WHERE publie = TRUE;
+CREATE UNIQUE INDEX idx_virement_events_ordre ON virement_events (ordre_publication);
+
+-- Dernier ordre attribué ; la ligne reste verrouillée par le relais pendant tout un lot
+CREATE TABLE virement_events_ordre (
+    id      INT    PRIMARY KEY,
+    dernier BIGINT NOT NULL
+);
+INSERT INTO virement_events_ordre (id, dernier)
+SELECT 1, COALESCE(MAX(ordre_publication), 0) FROM virement_events;
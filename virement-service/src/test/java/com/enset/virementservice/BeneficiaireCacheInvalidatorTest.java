@@ -0,0 +1,98 @@
+package com.enset.virementservice;
+
+import com.enset.virementservice.client.BeneficiaireCacheInvalidator;
+import com.enset.virementservice.client.BeneficiaireClient;
+import com.enset.virementservice.client.CachedBeneficiaireClient;
+import com.enset.virementservice.dtos.BeneficiaireChangesResponse;
+import com.enset.virementservice.dtos.BeneficiaireChangesResponse.Change;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BeneficiaireCacheInvalidatorTest {
+
+    private final BeneficiaireClient beneficiaireClient = mock(BeneficiaireClient.class);
+    private final CachedBeneficiaireClient cache = mock(CachedBeneficiaireClient.class);
+    private final BeneficiaireCacheInvalidator invalidator = new BeneficiaireCacheInvalidator();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(invalidator, "beneficiaireClient", beneficiaireClient);
+        ReflectionTestUtils.setField(invalidator, "cachedBeneficiaireClient", cache);
+        ReflectionTestUtils.setField(invalidator, "overlap", 10L);
+        // Premier passage : époque inconnue, purge complète
+        repondre("base-1", 20, List.of());
+        invalidator.poll();
+        clearInvocations(cache);
+    }
+
+    @Test
+    void memeEpoqueSurToutesLesInstancesNePurgePlusTout() {
+        repondre("base-1", 21, List.of(change(21, 7L, "FR07")));
+        invalidator.poll();
+        repondre("base-1", 21, List.of(change(21, 7L, "FR07")));
+        invalidator.poll();
+
+        verify(cache, never()).evictAll();
+        verify(cache, times(1)).evict(7L, Set.of("FR07"));
+    }
+
+    @Test
+    void changementValideEnRetardAppliqueALaRelecture() {
+        // 22 est visible avant 21, encore en cours d'écriture
+        repondre("base-1", 22, List.of(change(22, 8L, "FR08")));
+        invalidator.poll();
+        String versionAvant = invalidator.getVersion();
+
+        repondre("base-1", 22, List.of(change(21, 7L, "FR07"), change(22, 8L, "FR08")));
+        invalidator.poll();
+
+        verify(cache).evict(7L, Set.of("FR07"));
+        verify(cache, times(1)).evict(8L, Set.of("FR08"));
+        verify(cache, never()).evictAll();
+        assertThat(invalidator.getVersion()).isNotEqualTo(versionAvant);
+        // Relecture à partir de la fenêtre derrière le curseur
+        verify(beneficiaireClient).getChanges(10);
+        verify(beneficiaireClient).getChanges(12);
+    }
+
+    @Test
+    void importEnMassePurgeUneSeuleFois() {
+        repondre("base-1", 21, List.of(change(21, null)));
+        invalidator.poll();
+        invalidator.poll();
+
+        verify(cache, times(1)).evictAll();
+    }
+
+    @Test
+    void nouvelleEpoquePurgeTout() {
+        repondre("base-2", 3, List.of());
+        invalidator.poll();
+
+        verify(cache).evictAll();
+        verify(cache, never()).evict(any(), any());
+    }
+
+    private void repondre(String epoque, long sequence, List<Change> changes) {
+        when(beneficiaireClient.getChanges(anyLong()))
+                .thenReturn(new BeneficiaireChangesResponse(epoque, sequence, false, changes));
+    }
+
+    private static Change change(long sequence, Long beneficiaireId, String... ribs) {
+        return new Change(sequence, beneficiaireId, Set.of(ribs));
+    }
+}
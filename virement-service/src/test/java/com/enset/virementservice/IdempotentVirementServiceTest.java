@@ -0,0 +1,169 @@
+package com.enset.virementservice;
+
+import com.enset.virementservice.client.CachedBeneficiaireClient;
+import com.enset.virementservice.dtos.VirementRequest;
+import com.enset.virementservice.entities.Virement;
+import com.enset.virementservice.repo.IdempotencyKeyRepository;
+import com.enset.virementservice.repo.VirementRepository;
+import com.enset.virementservice.service.IdempotentVirementService;
+import com.enset.virementservice.service.IdempotentVirementService.Resultat;
+import com.enset.virementservice.service.VirementService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+/**
+ * Deux POST simultanés avec la même Idempotency-Key, sur la même instance ou sur deux
+ * instances partageant la base, ne créent qu'un virement et reçoivent la même réponse.
+ */
+@SpringBootTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "virement.execution.enabled=false",
+        "virement.beneficiaire-cache.invalidation-interval=3600000"
+})
+class IdempotentVirementServiceTest {
+
+    @MockitoBean
+    private CachedBeneficiaireClient beneficiaireClient;
+
+    @Autowired
+    private IdempotentVirementService idempotentVirementService;
+
+    @Autowired
+    private VirementService virementService;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private VirementRepository virementRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final AtomicInteger verifications = new AtomicInteger();
+    // Description propre au test : permet de compter les virements créés pour la requête
+    private final String description = "Idempotence " + UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        verifications.set(0);
+        // Vérification lente : la seconde requête arrive pendant le traitement de la première
+        when(beneficiaireClient.checkBeneficiaireExists(anyLong())).thenAnswer(invocation -> {
+            verifications.incrementAndGet();
+            Thread.sleep(200);
+            return true;
+        });
+    }
+
+    @Test
+    void requetesSimultaneesSurLaMemeInstanceNExecutentQuUneFois() throws Exception {
+        List<Resultat> resultats = simultanement(idempotentVirementService, idempotentVirementService,
+                UUID.randomUUID().toString());
+
+        verifierUneSeuleExecution(resultats);
+        // La seconde requête attend la première, sans même appeler le service bénéficiaire
+        assertThat(verifications.get()).isEqualTo(1);
+    }
+
+    @Test
+    void requetesSimultaneesSurDeuxInstancesNExecutentQuUneFois() throws Exception {
+        List<Resultat> resultats = simultanement(idempotentVirementService, instance(Duration.ofHours(24)),
+                UUID.randomUUID().toString());
+
+        verifierUneSeuleExecution(resultats);
+    }
+
+    @Test
+    void cleExpireeEstReutilisable() throws Exception {
+        IdempotentVirementService courte = instance(Duration.ofMillis(300));
+        String cle = UUID.randomUUID().toString();
+
+        Resultat premier = courte.createVirement(cle, requete());
+        Resultat rejoue = courte.createVirement(cle, requete());
+        assertThat(rejoue.rejoue()).isTrue();
+        assertThat(rejoue.response().getId()).isEqualTo(premier.response().getId());
+
+        Thread.sleep(400);
+        Resultat apresExpiration = courte.createVirement(cle, requete());
+        assertThat(apresExpiration.rejoue()).isFalse();
+        assertThat(apresExpiration.response().getId()).isNotEqualTo(premier.response().getId());
+        assertThat(idempotencyKeyRepository.findById(cle).orElseThrow().getVirementId())
+                .isEqualTo(apresExpiration.response().getId());
+
+        // La purge ne retire que les clés expirées
+        Thread.sleep(400);
+        // Instance hors proxy Spring : transaction ouverte par le test
+        transactionTemplate.executeWithoutResult(status -> courte.purgerClesExpirees());
+        assertThat(idempotencyKeyRepository.findById(cle)).isEmpty();
+    }
+
+    private List<Resultat> simultanement(IdempotentVirementService premiere, IdempotentVirementService seconde,
+                                         String cle) throws Exception {
+        CyclicBarrier depart = new CyclicBarrier(2);
+        CompletableFuture<Resultat> a = CompletableFuture.supplyAsync(() -> apresDepart(depart, premiere, cle));
+        CompletableFuture<Resultat> b = CompletableFuture.supplyAsync(() -> apresDepart(depart, seconde, cle));
+        return List.of(a.get(20, TimeUnit.SECONDS), b.get(20, TimeUnit.SECONDS));
+    }
+
+    private Resultat apresDepart(CyclicBarrier depart, IdempotentVirementService service, String cle) {
+        try {
+            depart.await(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return service.createVirement(cle, requete());
+    }
+
+    private void verifierUneSeuleExecution(List<Resultat> resultats) {
+        assertThat(resultats).extracting(Resultat::rejoue).containsExactlyInAnyOrder(false, true);
+        assertThat(resultats.get(0).response()).isEqualTo(resultats.get(1).response());
+        Long virementId = resultats.get(0).response().getId();
+        assertThat(virementRepository.findById(virementId)).isPresent();
+        assertThat(virementRepository.findAll()).filteredOn(v -> v.getDescription().equals(resultats.get(0)
+                .response().getDescription())).hasSize(1);
+    }
+
+    // Autre instance du service : ne partage avec la première que la base de données
+    private IdempotentVirementService instance(Duration ttl) {
+        IdempotentVirementService instance = new IdempotentVirementService();
+        ReflectionTestUtils.setField(instance, "virementService", virementService);
+        ReflectionTestUtils.setField(instance, "idempotencyKeyRepository", idempotencyKeyRepository);
+        ReflectionTestUtils.setField(instance, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(instance, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(instance, "ttl", ttl);
+        return instance;
+    }
+
+    private VirementRequest requete() {
+        return VirementRequest.builder()
+                .beneficiaireId(1L)
+                .ribSource("MA64011519000001205000534921")
+                .montant(new BigDecimal("150.00"))
+                .description(description)
+                .type(Virement.TypeVirement.NORMAL)
+                .build();
+    }
+}
@@ -0,0 +1,250 @@
+package com.enset.virementservice;
+
+import com.enset.virementservice.client.BeneficiaireClient;
+import com.enset.virementservice.client.BeneficiaireServiceUnavailableException;
+import com.enset.virementservice.dtos.BeneficiaireResponse;
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Couche de résilience devant le service bénéficiaire, contre deux instances simulées
+ * dont on règle la latence et le code de réponse.
+ */
+@SpringBootTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "virement.execution.enabled=false",
+        "virement.beneficiaire-cache.invalidation-interval=3600000",
+        "virement.beneficiaire-client.default-timeout=500ms",
+        "virement.beneficiaire-client.circuit-breaker.sliding-window-size=4",
+        "virement.beneficiaire-client.circuit-breaker.minimum-number-of-calls=4",
+        "virement.beneficiaire-client.circuit-breaker.wait-duration-in-open-state=1m",
+        "virement.beneficiaire-client.circuit-breaker.slow-call-duration-threshold=400ms",
+        "virement.beneficiaire-client.bulkhead.max-concurrent-calls=4",
+        "virement.beneficiaire-client.hedging.enabled=true",
+        "virement.beneficiaire-client.hedging.delay=50ms"
+})
+class ResilientBeneficiaireClientTest {
+
+    private static final StubInstance instanceA = new StubInstance();
+    private static final StubInstance instanceB = new StubInstance();
+
+    @DynamicPropertySource
+    static void beneficiaireInstances(DynamicPropertyRegistry registry) {
+        registry.add("spring.cloud.discovery.client.simple.instances.beneficiaire-service[0].uri", instanceA::uri);
+        registry.add("spring.cloud.discovery.client.simple.instances.beneficiaire-service[1].uri", instanceB::uri);
+    }
+
+    @Autowired
+    private BeneficiaireClient beneficiaireClient;
+
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @Autowired
+    private BulkheadRegistry bulkheadRegistry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterAll
+    static void stopInstances() {
+        instanceA.server.stop(0);
+        instanceB.server.stop(0);
+    }
+
+    @BeforeEach
+    void reset() {
+        // Les appels du test précédent rendent leur place juste après avoir répondu
+        attendrePlacesLibres(1000);
+        circuitBreakerRegistry.circuitBreaker("beneficiaire-service").reset();
+        instanceA.configure(0, 200);
+        instanceB.configure(0, 200);
+    }
+
+    @Test
+    void delaiDepasseSurLesDeuxInstancesLeveIndisponible() {
+        instanceA.configure(2000, 200);
+        instanceB.configure(2000, 200);
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> beneficiaireClient.getBeneficiaireById(1L))
+                .isInstanceOf(BeneficiaireServiceUnavailableException.class);
+        assertThat((System.nanoTime() - start) / 1_000_000).isLessThan(1500);
+        // Les appels abandonnés sont interrompus et rendent leur place bien avant les 2 s du service
+        attendrePlacesLibres(200);
+    }
+
+    @Test
+    void circuitOuvertApresErreursRepeteesNAppellePlusLeService() {
+        instanceA.configure(0, 500);
+        instanceB.configure(0, 500);
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> beneficiaireClient.getBeneficiaireById(1L))
+                    .isNotInstanceOf(BeneficiaireServiceUnavailableException.class);
+        }
+        assertThat(circuitBreakerRegistry.circuitBreaker("beneficiaire-service").getState())
+                .isEqualTo(CircuitBreaker.State.OPEN);
+
+        int appelsAvant = instanceA.hits.get() + instanceB.hits.get();
+        assertThatThrownBy(() -> beneficiaireClient.getBeneficiaireById(1L))
+                .isInstanceOf(BeneficiaireServiceUnavailableException.class);
+        assertThat(instanceA.hits.get() + instanceB.hits.get()).isEqualTo(appelsAvant);
+        assertThat(meterRegistry.get("resilience4j.circuitbreaker.state").tag("state", "open").gauge().value())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void erreurClientNOuvrePasLeCircuit() {
+        instanceA.configure(0, 404);
+        instanceB.configure(0, 404);
+        for (int i = 0; i < 6; i++) {
+            assertThatThrownBy(() -> beneficiaireClient.getBeneficiaireById(1L))
+                    .isNotInstanceOf(BeneficiaireServiceUnavailableException.class);
+        }
+        assertThat(circuitBreakerRegistry.circuitBreaker("beneficiaire-service").getState())
+                .isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void requeteDoubleeRepondDepuisLInstanceRapide() {
+        instanceA.configure(400, 200);
+        double gagnantsAvant = hedgesGagnants();
+
+        for (int i = 0; i < 6; i++) {
+            long start = System.nanoTime();
+            BeneficiaireResponse beneficiaire = beneficiaireClient.getBeneficiaireById(1L);
+            assertThat(beneficiaire.getNom()).isEqualTo("Alami");
+            // Sans hedging, un appel sur deux attendrait les 400 ms de l'instance lente
+            assertThat((System.nanoTime() - start) / 1_000_000).isLessThan(300);
+        }
+        assertThat(hedgesGagnants()).isGreaterThan(gagnantsAvant);
+        // L'appel perdant vers l'instance lente est interrompu dès la réponse de l'autre
+        attendrePlacesLibres(150);
+    }
+
+    @Test
+    void bulkheadBorneLesAppelsSortantsHedgesCompris() throws Exception {
+        instanceA.configure(300, 200);
+        instanceB.configure(300, 200);
+        StubInstance.maxSimultanes.set(0);
+
+        List<Future<Object>> appels = new ArrayList<>();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 6; i++) {
+                appels.add(clients.submit(() -> {
+                    try {
+                        return beneficiaireClient.getBeneficiaireById(2L);
+                    } catch (BeneficiaireServiceUnavailableException e) {
+                        return e;
+                    }
+                }));
+            }
+        }
+
+        long rejetes = 0;
+        for (Future<Object> appel : appels) {
+            if (appel.get() instanceof BeneficiaireServiceUnavailableException) {
+                rejetes++;
+            }
+        }
+        // 4 places : au plus 4 appels en cours côté service, ni les hedges ni les rejetés n'en ajoutent
+        assertThat(StubInstance.maxSimultanes.get()).isLessThanOrEqualTo(4);
+        assertThat(rejetes).isEqualTo(2);
+        assertThat(circuitBreakerRegistry.circuitBreaker("beneficiaire-service").getMetrics().getNumberOfFailedCalls())
+                .isZero();
+    }
+
+    private void attendrePlacesLibres(long delaiMaxMs) {
+        Bulkhead bulkhead = bulkheadRegistry.bulkhead("beneficiaire-service");
+        long limite = System.nanoTime() + delaiMaxMs * 1_000_000;
+        while (bulkhead.getMetrics().getAvailableConcurrentCalls() < 4 && System.nanoTime() < limite) {
+            Thread.onSpinWait();
+        }
+        assertThat(bulkhead.getMetrics().getAvailableConcurrentCalls()).isEqualTo(4);
+    }
+
+    private double hedgesGagnants() {
+        return meterRegistry.get("beneficiaire.client.hedges").tag("resultat", "gagne").counter().count();
+    }
+
+    private static final class StubInstance {
+
+        // Appels simultanés sur /beneficiaires/2, toutes instances confondues
+        private static final AtomicInteger simultanes = new AtomicInteger();
+        private static final AtomicInteger maxSimultanes = new AtomicInteger();
+
+        private final HttpServer server;
+        private final AtomicInteger hits = new AtomicInteger();
+        private volatile long latencyMs;
+        private volatile int status = 200;
+
+        private StubInstance() {
+            try {
+                server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+            server.createContext("/beneficiaires/", exchange -> {
+                hits.incrementAndGet();
+                boolean compte = exchange.getRequestURI().getPath().endsWith("/2");
+                if (compte) {
+                    maxSimultanes.accumulateAndGet(simultanes.incrementAndGet(), Math::max);
+                }
+                try {
+                    Thread.sleep(latencyMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    if (compte) {
+                        simultanes.decrementAndGet();
+                    }
+                }
+                byte[] body = (status == 200
+                        ? "{\"id\":1,\"nom\":\"Alami\",\"prenom\":\"Sara\",\"rib\":\"MA64011519000001205000534921\"}"
+                        : "{}").getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(status, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            server.start();
+        }
+
+        private void configure(long latencyMs, int status) {
+            this.latencyMs = latencyMs;
+            this.status = status;
+        }
+
+        private String uri() {
+            return "http://localhost:" + server.getAddress().getPort();
+        }
+    }
+}
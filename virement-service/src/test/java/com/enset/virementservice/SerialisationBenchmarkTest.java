@@ -0,0 +1,112 @@
+package com.enset.virementservice;
+
+import com.enset.virementservice.dtos.VirementResponse;
+import com.enset.virementservice.entities.Virement;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Taille et coût CPU d'une liste de 10 000 virements en JSON et en Smile, avec et sans gzip.
+ * <p>
+ * Hors build normal : {@code mvn test -Dsurefire.excludedGroups= -Dgroups=benchmark}
+ */
+@Tag("benchmark")
+class SerialisationBenchmarkTest {
+
+    private static final int VIREMENTS = 10_000;
+    private static final int TOURS = 30;
+    private static final TypeReference<List<VirementResponse>> LISTE = new TypeReference<>() {
+    };
+
+    @Test
+    void smileEstPlusCompactQueJson() throws IOException {
+        List<VirementResponse> virements = virements();
+        ObjectMapper json = Jackson2ObjectMapperBuilder.json().build();
+        ObjectMapper smile = Jackson2ObjectMapperBuilder.json().factory(new SmileFactory()).build();
+
+        Resultat resultatJson = mesurer("JSON", json, virements);
+        Resultat resultatSmile = mesurer("Smile", smile, virements);
+
+        assertThat(resultatSmile.octets()).isLessThan(resultatJson.octets());
+        assertThat(resultatJson.octetsGzip()).isLessThan(resultatJson.octets());
+    }
+
+    private record Resultat(int octets, int octetsGzip) {
+    }
+
+    private static Resultat mesurer(String format, ObjectMapper mapper, List<VirementResponse> virements)
+            throws IOException {
+        byte[] octets = mapper.writeValueAsBytes(virements);
+        // Échauffement
+        for (int i = 0; i < 5; i++) {
+            mapper.readValue(mapper.writeValueAsBytes(virements), LISTE);
+        }
+
+        long debut = System.nanoTime();
+        for (int i = 0; i < TOURS; i++) {
+            mapper.writeValueAsBytes(virements);
+        }
+        double ecritureMs = (System.nanoTime() - debut) / 1e6 / TOURS;
+
+        debut = System.nanoTime();
+        for (int i = 0; i < TOURS; i++) {
+            mapper.readValue(octets, LISTE);
+        }
+        double lectureMs = (System.nanoTime() - debut) / 1e6 / TOURS;
+
+        debut = System.nanoTime();
+        byte[] compresses = null;
+        for (int i = 0; i < TOURS; i++) {
+            compresses = gzip(octets);
+        }
+        double gzipMs = (System.nanoTime() - debut) / 1e6 / TOURS;
+
+        System.out.printf("%-6s %9d octets  gzip %8d octets  écriture %6.1f ms  lecture %6.1f ms  gzip %6.1f ms%n",
+                format, octets.length, compresses.length, ecritureMs, lectureMs, gzipMs);
+        return new Resultat(octets.length, compresses.length);
+    }
+
+    private static byte[] gzip(byte[] octets) throws IOException {
+        ByteArrayOutputStream sortie = new ByteArrayOutputStream(octets.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(sortie)) {
+            gzip.write(octets);
+        }
+        return sortie.toByteArray();
+    }
+
+    private static List<VirementResponse> virements() {
+        List<VirementResponse> virements = new ArrayList<>(VIREMENTS);
+        LocalDateTime debut = LocalDateTime.of(2025, 1, 1, 9, 0);
+        for (int i = 0; i < VIREMENTS; i++) {
+            virements.add(VirementResponse.builder()
+                    .id((long) i)
+                    .beneficiaireId((long) (i % 500))
+                    .ribSource(String.format("FR76300010079412345678%05d", i % 2000))
+                    .montant(BigDecimal.valueOf(10_000 + i * 37L, 2))
+                    .description("Virement " + i)
+                    .dateVirement(debut.plusMinutes(i))
+                    .type(i % 10 == 0 ? Virement.TypeVirement.INSTANTANE : Virement.TypeVirement.NORMAL)
+                    .statut(Virement.StatutVirement.EXECUTE)
+                    .beneficiaireNom("Nom" + (i % 500))
+                    .beneficiairePrenom("Prénom" + (i % 500))
+                    .beneficiaireRib(String.format("FR76300010079400000000%05d", i % 500))
+                    .version(0L)
+                    .build());
+        }
+        return virements;
+    }
+}
@@ -0,0 +1,257 @@
+package com.enset.virementservice;
+
+import com.enset.virementservice.entities.Virement;
+import com.enset.virementservice.entities.VirementEvent;
+import com.enset.virementservice.execution.VirementExecutionWorker;
+import com.enset.virementservice.execution.VirementExecutor;
+import com.enset.virementservice.repo.VirementEventRepository;
+import com.enset.virementservice.repo.VirementExecutionRepository;
+import com.enset.virementservice.repo.VirementRepository;
+import com.enset.virementservice.service.VirementService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * File d'exécution (CLAIM_SQL) partagée par plusieurs workers : réservation exclusive,
+ * reprise des baux expirés, et écritures réservées au détenteur du bail quand deux workers
+ * exécutent tout de même le même virement.
+ */
+@SpringBootTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "virement.execution.enabled=false",
+        "virement.beneficiaire-cache.invalidation-interval=3600000"
+})
+class VirementExecutionWorkerTest {
+
+    @Autowired
+    private VirementExecutionRepository executionRepository;
+
+    @Autowired
+    private VirementRepository virementRepository;
+
+    @Autowired
+    private VirementEventRepository virementEventRepository;
+
+    @Autowired
+    private VirementService virementService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM virement_executions");
+    }
+
+    @Test
+    void deuxWorkersNeReserventJamaisLaMemeLigne() throws Exception {
+        List<Long> ids = LongStream.rangeClosed(1_000_001, 1_000_200).boxed().toList();
+        transactionTemplate.executeWithoutResult(status ->
+                executionRepository.enqueue(ids, LocalDateTime.now().minusSeconds(1)));
+
+        CyclicBarrier depart = new CyclicBarrier(2);
+        CompletableFuture<List<Long>> workerA = CompletableFuture.supplyAsync(() -> reserverTout("A", depart));
+        CompletableFuture<List<Long>> workerB = CompletableFuture.supplyAsync(() -> reserverTout("B", depart));
+        List<Long> reservesA = workerA.get(30, TimeUnit.SECONDS);
+        List<Long> reservesB = workerB.get(30, TimeUnit.SECONDS);
+
+        Set<Long> communs = new HashSet<>(reservesA);
+        communs.retainAll(reservesB);
+        assertThat(communs).isEmpty();
+        assertThat(reservesA.size() + reservesB.size()).isEqualTo(ids.size());
+        assertThat(new HashSet<>(reservesA)).hasSize(reservesA.size());
+    }
+
+    @Test
+    void bailExpireEstRepris() throws Exception {
+        transactionTemplate.executeWithoutResult(status ->
+                executionRepository.enqueue(List.of(2_000_001L), LocalDateTime.now().minusSeconds(1)));
+
+        assertThat(executionRepository.claim("A", 10, Duration.ofMillis(200))).containsExactly(2_000_001L);
+        // Bail en cours : la ligne n'est pas proposée à un autre worker
+        assertThat(executionRepository.claim("B", 10, Duration.ofMinutes(1))).isEmpty();
+
+        Thread.sleep(300);
+        assertThat(executionRepository.claim("B", 10, Duration.ofMinutes(1))).containsExactly(2_000_001L);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT verrou_proprietaire FROM virement_executions WHERE virement_id = ?", String.class, 2_000_001L))
+                .isEqualTo("B");
+    }
+
+    @Test
+    void secondeExecutionTardiveEstSansEffet() throws Exception {
+        Long virementId = virementEnFile();
+
+        // Le worker A réserve puis reste bloqué au-delà de son bail
+        assertThat(executionRepository.claim("A", 10, Duration.ofMillis(100))).containsExactly(virementId);
+        Thread.sleep(200);
+
+        // Le worker B reprend la ligne et exécute le virement
+        AtomicInteger executions = new AtomicInteger();
+        VirementExecutionWorker workerB = worker(Duration.ofMinutes(1), virement -> {
+            executions.incrementAndGet();
+            return Virement.StatutVirement.EXECUTE;
+        });
+        workerB.poll();
+        attendreStatut(virementId, Virement.StatutVirement.EXECUTE);
+        workerB.shutdown();
+
+        // A termine enfin, avec un autre résultat : ni le statut ni les événements ne changent
+        assertThat(virementService.finaliserExecution(virementId, Virement.StatutVirement.REJETE, "A")).isFalse();
+
+        assertThat(executions.get()).isEqualTo(1);
+        assertThat(virementRepository.findById(virementId).orElseThrow().getStatut())
+                .isEqualTo(Virement.StatutVirement.EXECUTE);
+        assertThat(virementEventRepository.findAll()).filteredOn(e -> e.getVirementId().equals(virementId)
+                        && e.getType() == VirementEvent.TypeEvenement.STATUT_MODIFIE)
+                .singleElement()
+                .satisfies(e -> assertThat(e.getStatut()).isEqualTo(Virement.StatutVirement.EXECUTE));
+        assertThat(executionRepository.claim("C", 10, Duration.ofMinutes(1))).doesNotContain(virementId);
+    }
+
+    @Test
+    void workerAuBailExpireNeToucheNiLeVerrouNiLeStatutDuNouveauProprietaire() throws Exception {
+        Long virementId = virementEnFile();
+        CountDownLatch aDemarre = new CountDownLatch(1);
+        CountDownLatch bDemarre = new CountDownLatch(1);
+        CountDownLatch libererA = new CountDownLatch(1);
+        CountDownLatch libererB = new CountDownLatch(1);
+        VirementExecutionWorker workerA = worker(Duration.ofMillis(100), virement -> {
+            aDemarre.countDown();
+            attendre(libererA);
+            throw new IllegalStateException("Banque indisponible");
+        });
+        VirementExecutionWorker workerB = worker(Duration.ofMinutes(1), virement -> {
+            bDemarre.countDown();
+            attendre(libererB);
+            return Virement.StatutVirement.EXECUTE;
+        });
+
+        // A réserve puis reste bloqué au-delà de son bail ; B reprend la ligne et exécute à son tour
+        workerA.poll();
+        assertThat(aDemarre.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(200);
+        workerB.poll();
+        assertThat(bDemarre.await(5, TimeUnit.SECONDS)).isTrue();
+        String proprietaireA = (String) ReflectionTestUtils.getField(workerA, "owner");
+        String proprietaireB = (String) ReflectionTestUtils.getField(workerB, "owner");
+
+        // L'échec tardif de A ne relâche pas le verrou de B et ne compte pas de tentative
+        libererA.countDown();
+        arreter(workerA);
+        assertThat(jdbcTemplate.queryForMap(
+                "SELECT verrou_proprietaire, verrou_expiration, tentatives FROM virement_executions WHERE virement_id = ?",
+                virementId))
+                .containsEntry("VERROU_PROPRIETAIRE", proprietaireB)
+                .containsEntry("TENTATIVES", 0)
+                .extractingByKey("VERROU_EXPIRATION").isNotNull();
+        assertThat(executionRepository.claim("C", 10, Duration.ofMinutes(1))).doesNotContain(virementId);
+
+        // Une finalisation de A ne retire pas la ligne pendant que B l'exécute
+        assertThat(virementService.finaliserExecution(virementId, Virement.StatutVirement.REJETE, proprietaireA))
+                .isFalse();
+        assertThat(virementRepository.findById(virementId).orElseThrow().getStatut())
+                .isEqualTo(Virement.StatutVirement.INITIE);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM virement_executions WHERE virement_id = ?", Integer.class, virementId)).isEqualTo(1);
+
+        libererB.countDown();
+        attendreStatut(virementId, Virement.StatutVirement.EXECUTE);
+        arreter(workerB);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM virement_executions WHERE virement_id = ?", Integer.class, virementId)).isZero();
+    }
+
+    private Long virementEnFile() {
+        return transactionTemplate.execute(status -> {
+            Virement virement = virementRepository.save(Virement.builder()
+                    .beneficiaireId(1L)
+                    .ribSource("MA64011519000001205000534921")
+                    .montant(new BigDecimal("75.00"))
+                    .type(Virement.TypeVirement.NORMAL)
+                    .statut(Virement.StatutVirement.INITIE)
+                    .dateVirement(LocalDateTime.now())
+                    .build());
+            executionRepository.enqueue(List.of(virement.getId()), LocalDateTime.now().minusSeconds(1));
+            return virement.getId();
+        });
+    }
+
+    private List<Long> reserverTout(String owner, CyclicBarrier depart) {
+        try {
+            depart.await(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        List<Long> reserves = new ArrayList<>();
+        List<Long> lot;
+        do {
+            lot = executionRepository.claim(owner, 7, Duration.ofMinutes(1));
+            reserves.addAll(lot);
+        } while (!lot.isEmpty());
+        return reserves;
+    }
+
+    private VirementExecutionWorker worker(Duration lease, VirementExecutor executor) {
+        VirementExecutionWorker worker = new VirementExecutionWorker(4);
+        ReflectionTestUtils.setField(worker, "executionRepository", executionRepository);
+        ReflectionTestUtils.setField(worker, "virementRepository", virementRepository);
+        ReflectionTestUtils.setField(worker, "virementService", virementService);
+        ReflectionTestUtils.setField(worker, "virementExecutor", executor);
+        ReflectionTestUtils.setField(worker, "batchSize", 10);
+        ReflectionTestUtils.setField(worker, "lease", lease);
+        ReflectionTestUtils.setField(worker, "maxAttempts", 5);
+        ReflectionTestUtils.setField(worker, "backoffInitial", Duration.ofSeconds(1));
+        ReflectionTestUtils.setField(worker, "backoffMax", Duration.ofMinutes(5));
+        return worker;
+    }
+
+    private static void arreter(VirementExecutionWorker worker) throws InterruptedException {
+        worker.shutdown();
+        ExecutorService executor = (ExecutorService) ReflectionTestUtils.getField(worker, "executor");
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private static void attendre(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void attendreStatut(Long virementId, Virement.StatutVirement statut) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (virementRepository.findById(virementId).orElseThrow().getStatut() != statut
+                && System.nanoTime() < limite) {
+            Thread.sleep(20);
+        }
+        assertThat(virementRepository.findById(virementId).orElseThrow().getStatut()).isEqualTo(statut);
+    }
+}
@@ -0,0 +1,122 @@
+package com.enset.virementservice;
+
+import com.enset.virementservice.entities.Virement;
+import com.enset.virementservice.repo.VirementRepository;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Vérifie sur H2 que les requêtes de VirementRepository utilisent les index créés par
+ * les migrations Flyway plutôt qu'un parcours complet de la table. Le plan est demandé
+ * pour le SQL réellement généré par Hibernate, intercepté à l'exécution du repository.
+ */
+@DataJpaTest(properties = "spring.cloud.config.enabled=false")
+class VirementIndexUsageTest {
+
+    private static final String RIB = "FR761001100020123456781";
+    private static final List<String> requetes = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private VirementRepository virementRepository;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        String[] statuts = {"INITIE", "VALIDE", "EXECUTE", "REJETE", "ANNULE"};
+        for (int i = 0; i < 500; i++) {
+            jdbcTemplate.update(
+                    "INSERT INTO virements (beneficiaire_id, rib_source, montant, description, date_virement, type, statut) " +
+                    "VALUES (?, ?, ?, ?, DATEADD('DAY', ?, TIMESTAMP '2024-01-01 10:00:00'), ?, ?)",
+                    (long) (i % 50), "FR76100110002012345678" + (i % 20), 100 + i, "test", i % 365,
+                    i % 2 == 0 ? "NORMAL" : "INSTANTANE", statuts[i % statuts.length]);
+        }
+        jdbcTemplate.execute("ANALYZE");
+        requetes.clear();
+    }
+
+    @Test
+    void totalParPeriodeUtiliseIndexRibSourceDate() {
+        LocalDateTime debut = LocalDateTime.of(2024, 2, 1, 0, 0);
+        LocalDateTime fin = LocalDateTime.of(2024, 3, 1, 0, 0);
+        virementRepository.getTotalVirementsByRibSourceAndPeriod(RIB, debut, fin);
+        assertThat(plan(RIB, debut, fin)).containsIgnoringCase("IDX_VIREMENTS_RIB_SOURCE_DATE");
+
+        virementRepository.sumMontantByRibSourceAndRange(RIB, debut, fin);
+        assertThat(plan(RIB, debut, fin)).containsIgnoringCase("IDX_VIREMENTS_RIB_SOURCE_DATE");
+    }
+
+    @Test
+    void listeParBeneficiaireUtiliseIndexBeneficiaire() {
+        virementRepository.findByBeneficiaireIdAndIdLessThanOrderByIdDesc(7L, 9999L, Limit.of(51));
+        assertThat(plan(7L, 9999L, 51)).containsIgnoringCase("IDX_VIREMENTS_BENEFICIAIRE_ID");
+    }
+
+    @Test
+    void listeParRibSourceUtiliseIndexRibSourceId() {
+        virementRepository.findByRibSourceAndIdLessThanOrderByIdDesc(RIB, 9999L, Limit.of(51));
+        assertThat(plan(RIB, 9999L, 51)).containsIgnoringCase("IDX_VIREMENTS_RIB_SOURCE_ID");
+    }
+
+    @Test
+    void listeParStatutUtiliseIndexStatut() {
+        virementRepository.findByStatutAndIdLessThanOrderByIdDesc(Virement.StatutVirement.EXECUTE, 9999L, Limit.of(51));
+        assertThat(plan("EXECUTE", 9999L, 51)).containsIgnoringCase("IDX_VIREMENTS_STATUT_ID");
+    }
+
+    @Test
+    void exportParPeriodeUtiliseIndexDate() {
+        LocalDateTime debut = LocalDateTime.of(2024, 2, 1, 0, 0);
+        LocalDateTime fin = LocalDateTime.of(2024, 2, 3, 0, 0);
+        try (Stream<Virement> virements = virementRepository.streamByDateVirementBetween(debut, fin)) {
+            assertThat(virements).isNotEmpty();
+        }
+        assertThat(plan(debut, fin)).containsIgnoringCase("IDX_VIREMENTS_DATE");
+    }
+
+    // EXPLAIN du dernier SELECT généré par Hibernate, avec les valeurs passées au repository
+    private String plan(Object... parametres) {
+        String sql = requetes.stream()
+                .filter(requete -> requete.regionMatches(true, 0, "select", 0, 6))
+                .reduce((premiere, derniere) -> derniere)
+                .orElseThrow(() -> new AssertionError("Aucun SELECT intercepté"));
+        requetes.clear();
+        assertThat(sql.chars().filter(c -> c == '?').count()).isEqualTo(parametres.length);
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, parametres);
+    }
+
+    @TestConfiguration
+    static class CaptureSql {
+
+        // Chaque requête SQL préparée par Hibernate est relevée avant son exécution
+        @Bean
+        HibernatePropertiesCustomizer captureSqlCustomizer() {
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR,
+                    (StatementInspector) sql -> {
+                        requetes.add(sql);
+                        return sql;
+                    });
+        }
+    }
+}
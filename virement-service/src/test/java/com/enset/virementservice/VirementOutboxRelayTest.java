@@ -0,0 +1,97 @@
+package com.enset.virementservice;
+
+import com.enset.virementservice.dtos.VirementEventFeed;
+import com.enset.virementservice.dtos.VirementEventResponse;
+import com.enset.virementservice.entities.Virement;
+import com.enset.virementservice.entities.VirementEvent;
+import com.enset.virementservice.outbox.VirementOutboxRelay;
+import com.enset.virementservice.repo.VirementEventRepository;
+import com.enset.virementservice.service.VirementEventService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Une transaction qui valide après une autre, alors qu'elle a obtenu un identifiant plus petit,
+ * ne doit pas disparaître du flux des événements.
+ */
+@SpringBootTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "virement.execution.enabled=false",
+        "virement.beneficiaire-cache.invalidation-interval=3600000",
+        "virement.outbox.relay-interval=3600000"
+})
+class VirementOutboxRelayTest {
+
+    @Autowired
+    private VirementOutboxRelay relay;
+
+    @Autowired
+    private VirementEventService virementEventService;
+
+    @Autowired
+    private VirementEventRepository virementEventRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void evenementValideTardivementArriveApresLeCurseur() throws Exception {
+        relay.relayer();
+        long depart = virementEventService.versionStable().orElseThrow();
+
+        CountDownLatch insere = new CountDownLatch(1);
+        CountDownLatch valider = new CountDownLatch(1);
+        CompletableFuture<Long> lente = CompletableFuture.supplyAsync(() -> transactionTemplate.execute(status -> {
+            Long id = virementEventRepository.save(evenement(1L)).getId();
+            insere.countDown();
+            attendre(valider);
+            return id;
+        }));
+        assertThat(insere.await(5, TimeUnit.SECONDS)).isTrue();
+        Long idRapide = transactionTemplate.execute(status -> virementEventRepository.save(evenement(2L)).getId());
+
+        relay.relayer();
+        VirementEventFeed premier = virementEventService.getEvents(depart, null);
+        assertThat(premier.getEvents()).extracting(VirementEventResponse::getId).containsExactly(idRapide);
+
+        valider.countDown();
+        Long idLent = lente.get(5, TimeUnit.SECONDS);
+        assertThat(idLent).isLessThan(idRapide);
+        // Validé mais pas encore relayé : pas de version stable pour les ETag des listes
+        assertThat(virementEventService.versionStable()).isEmpty();
+
+        relay.relayer();
+        VirementEventFeed suite = virementEventService.getEvents(premier.getAfter(), null);
+        assertThat(suite.getEvents()).extracting(VirementEventResponse::getId).containsExactly(idLent);
+        assertThat(suite.getAfter()).isEqualTo(premier.getAfter() + 1);
+        assertThat(virementEventService.versionStable()).contains(suite.getAfter());
+    }
+
+    private static VirementEvent evenement(Long virementId) {
+        return VirementEvent.builder()
+                .virementId(virementId)
+                .type(VirementEvent.TypeEvenement.CREE)
+                .statut(Virement.StatutVirement.INITIE)
+                .payload("{}")
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    private static void attendre(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
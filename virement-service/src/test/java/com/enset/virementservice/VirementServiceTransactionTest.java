@@ -0,0 +1,119 @@
+package com.enset.virementservice;
+
+import com.enset.virementservice.client.CachedBeneficiaireClient;
+import com.enset.virementservice.dtos.VirementBatchResult;
+import com.enset.virementservice.dtos.VirementRequest;
+import com.enset.virementservice.dtos.VirementResponse;
+import com.enset.virementservice.entities.Virement;
+import com.enset.virementservice.repo.VirementRepository;
+import com.enset.virementservice.service.IdempotentVirementService;
+import com.enset.virementservice.service.VirementService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+/**
+ * La vérification du bénéficiaire est un appel HTTP : elle doit se faire sans transaction
+ * ouverte, donc sans connexion JDBC retenue.
+ */
+@SpringBootTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "virement.execution.enabled=false",
+        "virement.beneficiaire-cache.invalidation-interval=3600000"
+})
+class VirementServiceTransactionTest {
+
+    @MockitoBean
+    private CachedBeneficiaireClient beneficiaireClient;
+
+    @Autowired
+    private VirementService virementService;
+
+    @Autowired
+    private IdempotentVirementService idempotentVirementService;
+
+    @Autowired
+    private VirementRepository virementRepository;
+
+    private final AtomicInteger appelsEnTransaction = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        appelsEnTransaction.set(0);
+        when(beneficiaireClient.checkBeneficiaireExists(anyLong())).thenAnswer(invocation -> {
+            compterSiTransaction();
+            return invocation.getArgument(0, Long.class) != 404L;
+        });
+        when(beneficiaireClient.checkBeneficiairesExist(any())).thenAnswer(invocation -> {
+            compterSiTransaction();
+            return Map.of(1L, true);
+        });
+    }
+
+    @Test
+    void creationValideLeBeneficiaireHorsTransaction() {
+        VirementResponse response = virementService.createVirement(requete(1L));
+
+        assertThat(appelsEnTransaction.get()).isZero();
+        assertThat(virementRepository.findById(response.getId())).isPresent();
+    }
+
+    @Test
+    void beneficiaireInconnuNEcritRien() {
+        long avant = virementRepository.count();
+
+        assertThatThrownBy(() -> virementService.createVirement(requete(404L)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(virementRepository.count()).isEqualTo(avant);
+    }
+
+    @Test
+    void lotValideLesBeneficiairesHorsTransaction() {
+        List<VirementBatchResult> resultats = virementService.createVirementsBatch(List.of(requete(1L), requete(2L)));
+
+        assertThat(appelsEnTransaction.get()).isZero();
+        assertThat(resultats).extracting(VirementBatchResult::getVirementId).first().isNotNull();
+        assertThat(resultats.get(1).getVirementId()).isNull();
+    }
+
+    @Test
+    void creationIdempotenteValideLeBeneficiaireHorsTransaction() {
+        IdempotentVirementService.Resultat resultat =
+                idempotentVirementService.createVirement(UUID.randomUUID().toString(), requete(1L));
+
+        assertThat(appelsEnTransaction.get()).isZero();
+        assertThat(virementRepository.findById(resultat.response().getId())).isPresent();
+    }
+
+    private void compterSiTransaction() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            appelsEnTransaction.incrementAndGet();
+        }
+    }
+
+    private static VirementRequest requete(Long beneficiaireId) {
+        return VirementRequest.builder()
+                .beneficiaireId(beneficiaireId)
+                .ribSource("MA64011519000001205000534921")
+                .montant(new BigDecimal("150.00"))
+                .description("Loyer")
+                .type(Virement.TypeVirement.NORMAL)
+                .build();
+    }
+}
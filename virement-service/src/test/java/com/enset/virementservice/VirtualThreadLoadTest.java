@@ -0,0 +1,165 @@
+package com.enset.virementservice;
+
+import com.enset.virementservice.entities.Virement;
+import com.enset.virementservice.repo.VirementRepository;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compare GET /virements/{id}/details sous charge avec et sans threads virtuels.
+ * Le service bénéficiaire est simulé par un serveur HTTP local qui répond en 100 ms et
+ * mesure le nombre maximal d'appels simultanés qu'il reçoit.
+ * <p>
+ * Exclu du build normal ; lancement : {@code mvn test -Dsurefire.excludedGroups= -Dgroups=load}
+ */
+@Tag("load")
+class VirtualThreadLoadTest {
+
+    private static final int REQUESTS = 400;
+    private static final int TOMCAT_MAX_THREADS = 50;
+    private static final long BENEFICIAIRE_LATENCY_MS = 100;
+
+    private static HttpServer beneficiaireStub;
+    private static final AtomicInteger inFlight = new AtomicInteger();
+    private static final AtomicInteger maxInFlight = new AtomicInteger();
+
+    @BeforeAll
+    static void startBeneficiaireStub() throws Exception {
+        beneficiaireStub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        beneficiaireStub.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        beneficiaireStub.createContext("/beneficiaires/", exchange -> {
+            int current = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(current, Math::max);
+            try {
+                Thread.sleep(BENEFICIAIRE_LATENCY_MS);
+                byte[] body = "{\"id\":1,\"nom\":\"Alami\",\"prenom\":\"Sara\",\"rib\":\"MA64011519000001205000534921\",\"type\":\"PHYSIQUE\"}"
+                        .getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        });
+        beneficiaireStub.start();
+    }
+
+    @AfterAll
+    static void stopBeneficiaireStub() {
+        beneficiaireStub.stop(0);
+    }
+
+    @Test
+    void threadsVirtuelsAugmententLaConcurrenceDesAppelsBeneficiaire() throws Exception {
+        Resultat platform = mesurer(false);
+        Resultat virtual = mesurer(true);
+
+        System.out.printf("threads plateforme : p50=%d ms p99=%d ms, appels simultanés max=%d%n",
+                platform.p50(), platform.p99(), platform.maxInFlight());
+        System.out.printf("threads virtuels   : p50=%d ms p99=%d ms, appels simultanés max=%d%n",
+                virtual.p50(), virtual.p99(), virtual.maxInFlight());
+
+        assertThat(platform.maxInFlight()).isLessThanOrEqualTo(TOMCAT_MAX_THREADS);
+        assertThat(virtual.maxInFlight()).isGreaterThan(TOMCAT_MAX_THREADS);
+        assertThat(virtual.p99()).isLessThan(platform.p99());
+    }
+
+    private Resultat mesurer(boolean virtualThreads) throws Exception {
+        inFlight.set(0);
+        maxInFlight.set(0);
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(VirementServiceApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "server.tomcat.threads.max=" + TOMCAT_MAX_THREADS,
+                        "spring.cloud.config.enabled=false",
+                        "spring.config.import=",
+                        "eureka.client.enabled=false",
+                        "spring.cache.type=none",
+                        "virement.execution.enabled=false",
+                        // Le bulkhead ne doit pas masquer la limite due aux threads
+                        "virement.beneficiaire-client.bulkhead.max-concurrent-calls=" + REQUESTS,
+                        "spring.cloud.discovery.client.simple.instances.beneficiaire-service[0].uri=http://localhost:"
+                                + beneficiaireStub.getAddress().getPort())
+                .run()) {
+
+            Long virementId = context.getBean(VirementRepository.class).save(Virement.builder()
+                    .beneficiaireId(1L)
+                    .ribSource("MA64011519000001205000534921")
+                    .montant(new BigDecimal("100.00"))
+                    .description("charge")
+                    .dateVirement(LocalDateTime.now())
+                    .type(Virement.TypeVirement.NORMAL)
+                    .statut(Virement.StatutVirement.INITIE)
+                    .build()).getId();
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            URI uri = URI.create("http://localhost:" + port + "/virements/" + virementId + "/details");
+            HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+            // Chauffe (chargement des clients Feign, JIT) avant la mesure
+            client.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.discarding());
+            maxInFlight.set(0);
+
+            List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+            try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int i = 0; i < REQUESTS; i++) {
+                    futures.add(clients.submit(() -> {
+                        long start = System.nanoTime();
+                        HttpResponse<Void> response = client.send(
+                                HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.discarding());
+                        assertThat(response.statusCode()).isEqualTo(200);
+                        latencies.add((System.nanoTime() - start) / 1_000_000);
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            }
+
+            List<Long> sorted = new ArrayList<>(latencies);
+            Collections.sort(sorted);
+            return new Resultat(percentile(sorted, 50), percentile(sorted, 99), maxInFlight.get());
+        }
+    }
+
+    private static long percentile(List<Long> sorted, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index));
+    }
+
+    private record Resultat(long p50, long p99, int maxInFlight) {
+    }
+}